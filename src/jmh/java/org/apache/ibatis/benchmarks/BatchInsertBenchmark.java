@@ -0,0 +1,73 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inserts {@code rows} rows per operation with each executor type. The transaction is rolled back afterwards so
+ * that the table does not grow during the trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchInsertBenchmark {
+
+  @Param({ "SIMPLE", "REUSE", "BATCH" })
+  public ExecutorType executorType;
+
+  @Param({ "100" })
+  public int rows;
+
+  @Benchmark
+  public int insert(BenchmarkDatabase database) {
+    Date now = new Date();
+    int inserted = 0;
+    try (SqlSession sqlSession = database.getSqlSessionFactory().openSession(executorType)) {
+      BenchmarkMapper mapper = sqlSession.getMapper(BenchmarkMapper.class);
+      for (int i = 0; i < rows; i++) {
+        Post post = new Post();
+        post.setId(i);
+        post.setAuthorId(1 + i % 100);
+        post.setSubject("Batch subject " + i);
+        post.setBody("Batch body " + i);
+        post.setCreatedOn(now);
+        inserted += mapper.insertPost(post);
+      }
+      inserted += sqlSession.flushStatements().size();
+      sqlSession.rollback(true);
+    }
+    return inserted;
+  }
+
+}
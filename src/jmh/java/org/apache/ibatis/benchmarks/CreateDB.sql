@@ -0,0 +1,52 @@
+--
+--    Copyright 2009-2021 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table post if exists;
+drop table author if exists;
+
+create table author (
+  id int not null,
+  username varchar(32) not null,
+  email varchar(64),
+  bio varchar(255),
+  primary key (id)
+);
+
+create table post (
+  id int not null,
+  author_id int not null,
+  subject varchar(64) not null,
+  body varchar(255),
+  created_on timestamp,
+  primary key (id)
+);
+
+create table post_batch (
+  id int not null,
+  author_id int not null,
+  subject varchar(64) not null,
+  body varchar(255),
+  created_on timestamp
+);
+
+insert into author (id, username, email, bio)
+  select c, 'user' || c, 'user' || c || '@example.com', 'Biography of user ' || c
+  from unnest(sequence_array(1, 100, 1)) as t(c);
+
+insert into post (id, author_id, subject, body, created_on)
+  select c, mod(c - 1, 100) + 1, 'Subject ' || c, 'Body of post ' || c, current_timestamp
+  from unnest(sequence_array(1, 1000, 1)) as t(c);
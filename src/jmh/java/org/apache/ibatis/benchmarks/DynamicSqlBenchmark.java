@@ -0,0 +1,95 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs a {@code <where>/<if>/<foreach>} search statement. The {@code boundSql*} benchmarks only build the SQL
+ * and parameter mappings, which isolates the scripting layer from JDBC.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DynamicSqlBenchmark {
+
+  private static final String STATEMENT = "org.apache.ibatis.benchmarks.BenchmarkMapper.searchPosts";
+  private static final List<Integer> IDS = Arrays.asList(3, 14, 15, 92, 65, 35, 89, 79, 32, 38);
+
+  @State(Scope.Benchmark)
+  public static class StatementState {
+
+    MappedStatement mappedStatement;
+    Map<String, Object> byAuthor;
+    Map<String, Object> byIds;
+
+    @Setup
+    public void setUp(BenchmarkDatabase database) {
+      mappedStatement = database.getSqlSessionFactory().getConfiguration().getMappedStatement(STATEMENT);
+      byAuthor = searchParameter(7, "Subject 1%", null);
+      byIds = searchParameter(null, null, IDS);
+    }
+
+    private static Map<String, Object> searchParameter(Integer authorId, String subject, List<Integer> ids) {
+      Map<String, Object> parameter = new HashMap<>();
+      parameter.put("authorId", authorId);
+      parameter.put("subject", subject);
+      parameter.put("ids", ids);
+      return parameter;
+    }
+
+  }
+
+  @Benchmark
+  public List<Post> selectByAuthor(SessionState session) {
+    return session.mapper.searchPosts(7, "Subject 1%", null);
+  }
+
+  @Benchmark
+  public List<Post> selectByIds(SessionState session) {
+    return session.mapper.searchPosts(null, null, IDS);
+  }
+
+  @Benchmark
+  public BoundSql boundSqlByAuthor(StatementState state) {
+    return state.mappedStatement.getBoundSql(state.byAuthor);
+  }
+
+  @Benchmark
+  public BoundSql boundSqlByIds(StatementState state) {
+    return state.mappedStatement.getBoundSql(state.byIds);
+  }
+
+}
@@ -0,0 +1,103 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the same single-row select entering the call path at each layer, from the mapper proxy down to
+ * {@link Executor#query}. The difference between two adjacent benchmarks is the cost of the layer in between.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperCallPathBenchmark {
+
+  private static final String STATEMENT = "org.apache.ibatis.benchmarks.BenchmarkMapper.selectAuthor";
+  private static final Integer AUTHOR_ID = 42;
+
+  @State(Scope.Thread)
+  public static class ExecutorState {
+
+    Executor executor;
+    MappedStatement mappedStatement;
+
+    @Setup
+    public void open(BenchmarkDatabase database) {
+      Configuration configuration = database.getSqlSessionFactory().getConfiguration();
+      DataSource dataSource = configuration.getEnvironment().getDataSource();
+      executor = configuration.newExecutor(new JdbcTransaction(dataSource, null, false));
+      mappedStatement = configuration.getMappedStatement(STATEMENT);
+    }
+
+    @TearDown
+    public void close() {
+      executor.close(false);
+    }
+
+  }
+
+  @Benchmark
+  public Author mapperProxy(SessionState session) {
+    return session.mapper.selectAuthor(AUTHOR_ID);
+  }
+
+  @Benchmark
+  public Author sqlSession(SessionState session) {
+    return session.sqlSession.selectOne(STATEMENT, AUTHOR_ID);
+  }
+
+  @Benchmark
+  public List<Author> executor(ExecutorState state) throws Exception {
+    return state.executor.query(state.mappedStatement, AUTHOR_ID, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+  }
+
+  @Benchmark
+  public BoundSql boundSql(ExecutorState state) {
+    return state.mappedStatement.getBoundSql(AUTHOR_ID);
+  }
+
+  @Benchmark
+  public CacheKey cacheKey(ExecutorState state) {
+    MappedStatement ms = state.mappedStatement;
+    return state.executor.createCacheKey(ms, AUTHOR_ID, RowBounds.DEFAULT, ms.getBoundSql(AUTHOR_ID));
+  }
+
+}
@@ -0,0 +1,45 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.benchmarks;
+
+import org.apache.ibatis.session.SqlSession;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * A {@link SqlSession} and mapper kept open by each benchmark thread for the whole trial, so that session
+ * creation and connection checkout are not part of the measured call.
+ */
+@State(Scope.Thread)
+public class SessionState {
+
+  SqlSession sqlSession;
+  BenchmarkMapper mapper;
+
+  @Setup
+  public void open(BenchmarkDatabase database) {
+    sqlSession = database.getSqlSessionFactory().openSession();
+    mapper = sqlSession.getMapper(BenchmarkMapper.class);
+  }
+
+  @TearDown
+  public void close() {
+    sqlSession.close();
+  }
+
+}
@@ -0,0 +1,27 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+/**
+ * JMH benchmarks for the mapper call path.
+ * <p>
+ * The benchmarks are not part of the default build. Run them with the {@code jmh} profile:
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="-prof gc"
+ * </pre>
+ *
+ * Allocation rates per operation are reported by the {@code gc} profiler ({@code gc.alloc.rate.norm}).
+ */
+package org.apache.ibatis.benchmarks;
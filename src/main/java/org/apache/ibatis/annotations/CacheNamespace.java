@@ -78,6 +78,14 @@ public @interface CacheNamespace {
    */
   int size() default 1024;
 
+  /**
+   * Returns the approximate number of bytes the cached values may retain. Zero means no byte budget.
+   *
+   * @return the byte budget
+   * @since 3.5.10
+   */
+  long maxWeight() default 0;
+
   /**
    * Returns whether use read/write cache.
    *
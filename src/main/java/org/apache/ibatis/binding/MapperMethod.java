@@ -23,6 +23,8 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
@@ -34,8 +36,10 @@ import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.ParamNameResolver;
 import org.apache.ibatis.reflection.TypeParameterResolver;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Page;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.Seek;
 import org.apache.ibatis.session.SqlSession;
 
 /**
@@ -54,6 +58,17 @@ public class MapperMethod {
     this.method = new MethodSignature(config, mapperInterface, method);
   }
 
+  /**
+   * Returns whether the method returns a {@code CompletableFuture} or a {@code CompletionStage} of its result, which
+   * the mapper proxy completes on the asynchronous executor of the configuration.
+   *
+   * @return {@code true} if the method is asynchronous
+   * @since 3.5.10
+   */
+  public boolean returnsFuture() {
+    return method.returnsFuture();
+  }
+
   public Object execute(SqlSession sqlSession, Object[] args) {
     Object result;
     switch (command.getType()) {
@@ -82,6 +97,8 @@ public class MapperMethod {
           result = executeForMap(sqlSession, args);
         } else if (method.returnsCursor()) {
           result = executeForCursor(sqlSession, args);
+        } else if (method.returnsPage()) {
+          result = executeForPage(sqlSession, args);
         } else {
           Object param = method.convertArgsToSqlCommandParam(args);
           result = sqlSession.selectOne(command.getName(), param);
@@ -169,6 +186,16 @@ public class MapperMethod {
     return result;
   }
 
+  private <E> Page<E> executeForPage(SqlSession sqlSession, Object[] args) {
+    RowBounds rowBounds = method.extractRowBounds(args);
+    if (!(rowBounds instanceof Seek)) {
+      throw new BindingException("Mapper method '" + command.getName() + "' returns a Page and needs a Seek parameter.");
+    }
+    Object param = method.convertArgsToSqlCommandParam(args);
+    List<E> result = sqlSession.selectList(command.getName(), param, rowBounds);
+    return ((Seek) rowBounds).toPage(sqlSession.getConfiguration().getMappedStatement(command.getName()), result);
+  }
+
   private <E> Object convertToDeclaredCollection(Configuration config, List<E> list) {
     Object collection = config.getObjectFactory().create(method.getReturnType());
     MetaObject metaObject = config.newMetaObject(collection);
@@ -279,6 +306,8 @@ public class MapperMethod {
     private final boolean returnsVoid;
     private final boolean returnsCursor;
     private final boolean returnsOptional;
+    private final boolean returnsPage;
+    private final boolean returnsFuture;
     private final Class<?> returnType;
     private final String mapKey;
     private final Integer resultHandlerIndex;
@@ -287,17 +316,28 @@ public class MapperMethod {
 
     public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
       Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+      this.returnsFuture = CompletableFuture.class.equals(method.getReturnType())
+          || CompletionStage.class.equals(method.getReturnType());
+      if (returnsFuture) {
+        resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+            ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+      }
       if (resolvedReturnType instanceof Class<?>) {
         this.returnType = (Class<?>) resolvedReturnType;
       } else if (resolvedReturnType instanceof ParameterizedType) {
         this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
       } else {
-        this.returnType = method.getReturnType();
+        this.returnType = returnsFuture ? Object.class : method.getReturnType();
       }
-      this.returnsVoid = void.class.equals(this.returnType);
+      this.returnsVoid = void.class.equals(this.returnType) || returnsFuture && Void.class.equals(this.returnType);
       this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
       this.returnsCursor = Cursor.class.equals(this.returnType);
       this.returnsOptional = Optional.class.equals(this.returnType);
+      this.returnsPage = Page.class.equals(this.returnType);
+      if (returnsFuture && returnsCursor) {
+        throw new BindingException("Mapper method '" + mapperInterface.getName() + "." + method.getName()
+            + "' cannot return a Cursor asynchronously because its session is closed when the future completes.");
+      }
       this.mapKey = getMapKey(method);
       this.returnsMap = this.mapKey != null;
       this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
@@ -355,6 +395,27 @@ public class MapperMethod {
       return returnsOptional;
     }
 
+    /**
+     * return whether return type is {@code org.apache.ibatis.session.Page}.
+     *
+     * @return return {@code true}, if return type is {@code org.apache.ibatis.session.Page}
+     * @since 3.5.10
+     */
+    public boolean returnsPage() {
+      return returnsPage;
+    }
+
+    /**
+     * return whether return type is {@code java.util.concurrent.CompletableFuture} or
+     * {@code java.util.concurrent.CompletionStage}, in which case {@link #getReturnType()} is the type of its result.
+     *
+     * @return return {@code true}, if return type is a future
+     * @since 3.5.10
+     */
+    public boolean returnsFuture() {
+      return returnsFuture;
+    }
+
     private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
       Integer index = null;
       final Class<?>[] argTypes = method.getParameterTypes();
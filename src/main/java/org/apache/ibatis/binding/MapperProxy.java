@@ -25,9 +25,14 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 import org.apache.ibatis.util.MapUtil;
 
 /**
@@ -105,7 +110,8 @@ public class MapperProxy<T> implements InvocationHandler, Serializable {
             throw new RuntimeException(e);
           }
         } else {
-          return new PlainMethodInvoker(new MapperMethod(mapperInterface, method, sqlSession.getConfiguration()));
+          MapperMethod mapperMethod = new MapperMethod(mapperInterface, method, sqlSession.getConfiguration());
+          return mapperMethod.returnsFuture() ? new AsyncMethodInvoker(mapperMethod) : new PlainMethodInvoker(mapperMethod);
         }
       });
     } catch (RuntimeException re) {
@@ -146,6 +152,35 @@ public class MapperProxy<T> implements InvocationHandler, Serializable {
     }
   }
 
+  private static class AsyncMethodInvoker implements MapperMethodInvoker {
+    private final MapperMethod mapperMethod;
+
+    public AsyncMethodInvoker(MapperMethod mapperMethod) {
+      super();
+      this.mapperMethod = mapperMethod;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args, SqlSession sqlSession) throws Throwable {
+      Configuration configuration = sqlSession.getConfiguration();
+      Executor executor = configuration.getAsyncExecutor();
+      if (executor == null) {
+        // the common pool is sized for the processors, blocking JDBC calls would starve it
+        throw new BindingException("Mapper method '" + method.getDeclaringClass().getName() + "." + method.getName()
+            + "' returns a " + method.getReturnType().getSimpleName() + " but no asyncExecutor is configured.");
+      }
+      // the session is opened from the configuration, not from the factory of the calling session
+      Supplier<Object> call = () -> {
+        try (SqlSession asyncSession = new DefaultSqlSessionFactory(configuration).openSession()) {
+          Object result = mapperMethod.execute(asyncSession, args);
+          asyncSession.commit();
+          return result;
+        }
+      };
+      return CompletableFuture.supplyAsync(call, executor);
+    }
+  }
+
   private static class DefaultMethodInvoker implements MapperMethodInvoker {
     private final MethodHandle methodHandle;
 
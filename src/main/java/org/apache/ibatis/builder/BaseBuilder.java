@@ -23,6 +23,7 @@ import java.util.regex.Pattern;
 import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.PaginationDialect;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeAliasRegistry;
 import org.apache.ibatis.type.TypeHandler;
@@ -58,6 +59,10 @@ public abstract class BaseBuilder {
     return value == null ? defaultValue : Integer.valueOf(value);
   }
 
+  protected Long longValueOf(String value, Long defaultValue) {
+    return value == null ? defaultValue : Long.valueOf(value);
+  }
+
   protected Set<String> stringSetValueOf(String value, String defaultValue) {
     value = value == null ? defaultValue : value;
     return new HashSet<>(Arrays.asList(value.split(",")));
@@ -85,6 +90,17 @@ public abstract class BaseBuilder {
     }
   }
 
+  protected PaginationDialect resolvePaginationDialect(String alias) {
+    if (alias == null) {
+      return null;
+    }
+    try {
+      return PaginationDialect.valueOf(alias);
+    } catch (IllegalArgumentException e) {
+      throw new BuilderException("Error resolving PaginationDialect. Cause: " + e, e);
+    }
+  }
+
   protected ParameterMode resolveParameterMode(String alias) {
     if (alias == null) {
       return null;
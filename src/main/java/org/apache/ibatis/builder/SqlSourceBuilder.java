@@ -52,6 +52,22 @@ public class SqlSourceBuilder extends BaseBuilder {
     return new StaticSqlSource(configuration, sql, handler.getParameterMappings());
   }
 
+  /**
+   * Builds the parameter mapping of a single {@code #{...}} placeholder.
+   *
+   * @param content
+   *          the content of the placeholder, without the enclosing {@code #{} and {@code }}
+   * @param parameterType
+   *          the type of the parameter object
+   * @param additionalParameters
+   *          the additional parameters bound while the SQL was generated
+   * @return the parameter mapping
+   * @since 3.5.10
+   */
+  public ParameterMapping buildParameterMapping(String content, Class<?> parameterType, Map<String, Object> additionalParameters) {
+    return new ParameterMappingTokenHandler(configuration, parameterType, additionalParameters).buildParameterMapping(content);
+  }
+
   public static String removeExtraWhitespaces(String original) {
     StringTokenizer tokenizer = new StringTokenizer(original);
     StringBuilder builder = new StringBuilder();
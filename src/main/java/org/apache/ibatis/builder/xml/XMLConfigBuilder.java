@@ -18,6 +18,7 @@ package org.apache.ibatis.builder.xml;
 import java.io.InputStream;
 import java.io.Reader;
 import java.util.Properties;
+import java.util.concurrent.Executor;
 
 import javax.sql.DataSource;
 
@@ -241,6 +242,18 @@ public class XMLConfigBuilder extends BaseBuilder {
     }
   }
 
+  private Executor createAsyncExecutor(String alias) {
+    Class<? extends Executor> type = resolveClass(alias);
+    if (type == null) {
+      return null;
+    }
+    try {
+      return type.getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException e) {
+      throw new BuilderException("Error creating asyncExecutor of type " + alias + ". Cause: " + e, e);
+    }
+  }
+
   private void settingsElement(Properties props) {
     configuration.setAutoMappingBehavior(AutoMappingBehavior.valueOf(props.getProperty("autoMappingBehavior", "PARTIAL")));
     configuration.setAutoMappingUnknownColumnBehavior(AutoMappingUnknownColumnBehavior.valueOf(props.getProperty("autoMappingUnknownColumnBehavior", "NONE")));
@@ -271,6 +284,18 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setShrinkWhitespacesInSql(booleanValueOf(props.getProperty("shrinkWhitespacesInSql"), false));
     configuration.setDefaultSqlProviderType(resolveClass(props.getProperty("defaultSqlProviderType")));
     configuration.setNullableOnForEach(booleanValueOf(props.getProperty("nullableOnForEach"), false));
+    configuration.setSingleFlightCacheLoading(booleanValueOf(props.getProperty("singleFlightCacheLoading"), false));
+    configuration.setSingleFlightCacheWaitTimeout(longValueOf(props.getProperty("singleFlightCacheWaitTimeout"), null));
+    configuration.setCompiledDynamicSql(booleanValueOf(props.getProperty("compiledDynamicSql"), false));
+    configuration.setCompiledExpressions(booleanValueOf(props.getProperty("compiledExpressions"), false));
+    configuration.setDynamicSqlShapeCacheSize(integerValueOf(props.getProperty("dynamicSqlShapeCacheSize"), null));
+    configuration.setPositionalForEachBinding(booleanValueOf(props.getProperty("positionalForEachBinding"), false));
+    configuration.setMaxParametersPerStatement(integerValueOf(props.getProperty("maxParametersPerStatement"), null));
+    configuration.setPhysicalPagination(booleanValueOf(props.getProperty("physicalPagination"), false));
+    configuration.setPaginationDialect(resolvePaginationDialect(props.getProperty("paginationDialect")));
+    configuration.setAsyncExecutor(createAsyncExecutor(props.getProperty("asyncExecutor")));
+    configuration.setCompiledRowMappers(booleanValueOf(props.getProperty("compiledRowMappers"), false));
+    configuration.setAutoResultOrdered(booleanValueOf(props.getProperty("autoResultOrdered"), false));
   }
 
   private void environmentsElement(XNode context) throws Exception {
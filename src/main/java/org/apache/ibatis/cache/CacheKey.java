@@ -15,19 +15,26 @@
  */
 package org.apache.ibatis.cache;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.StringJoiner;
 
 import org.apache.ibatis.reflection.ArrayUtil;
+import org.apache.ibatis.util.HashUtil;
 
 /**
+ * The key of a cached query result, made of the values passed to {@link #update(Object)} in order.
+ * <p>
+ * The values are kept in an array sized up front when the number of updates is known, and a 64-bit hash is
+ * accumulated as they are added, so that keys with different values are told apart without walking them.
+ *
  * @author Clinton Begin
  */
 public class CacheKey implements Cloneable, Serializable {
 
-  private static final long serialVersionUID = 1146682552656046210L;
+  private static final long serialVersionUID = -3287451049373016870L;
 
   public static final CacheKey NULL_CACHE_KEY = new CacheKey() {
 
@@ -42,43 +49,52 @@ public class CacheKey implements Cloneable, Serializable {
     }
   };
 
-  private static final int DEFAULT_MULTIPLIER = 37;
-  private static final int DEFAULT_HASHCODE = 17;
+  private static final Object[] EMPTY_COMPONENTS = new Object[0];
+  private static final int DEFAULT_CAPACITY = 8;
+  private static final long DEFAULT_HASH = 17L;
+  private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
 
-  private final int multiplier;
-  private int hashcode;
-  private long checksum;
+  private long hash;
   private int count;
   // 8/21/2017 - Sonarlint flags this as needing to be marked transient. While true if content is not serializable, this
   // is not always true and thus should not be marked transient.
-  private List<Object> updateList;
+  private Object[] components;
 
   public CacheKey() {
-    this.hashcode = DEFAULT_HASHCODE;
-    this.multiplier = DEFAULT_MULTIPLIER;
-    this.count = 0;
-    this.updateList = new ArrayList<>();
+    this.hash = DEFAULT_HASH;
+    this.components = EMPTY_COMPONENTS;
+  }
+
+  /**
+   * Creates a key for the given number of updates, which avoids growing its values as they are added.
+   *
+   * @param expectedUpdateCount
+   *          the expected number of updates
+   * @since 3.5.10
+   */
+  public CacheKey(int expectedUpdateCount) {
+    this.hash = DEFAULT_HASH;
+    this.components = expectedUpdateCount > 0 ? new Object[expectedUpdateCount] : EMPTY_COMPONENTS;
   }
 
   public CacheKey(Object[] objects) {
-    this();
+    this(objects.length);
     updateAll(objects);
   }
 
   public int getUpdateCount() {
-    return updateList.size();
+    return count;
   }
 
   public void update(Object object) {
-    int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
+    final long baseHash = object == null ? 1L : HashUtil.longHashCode(object);
+    // the multiplication by an odd constant keeps the hash sensitive to the order of the values
+    hash = (hash + baseHash) * MULTIPLIER;
 
-    count++;
-    checksum += baseHashCode;
-    baseHashCode *= count;
-
-    hashcode = multiplier * hashcode + baseHashCode;
-
-    updateList.add(object);
+    if (count == components.length) {
+      components = Arrays.copyOf(components, Math.max(DEFAULT_CAPACITY, count << 1));
+    }
+    components[count++] = object;
   }
 
   public void updateAll(Object[] objects) {
@@ -98,20 +114,17 @@ public class CacheKey implements Cloneable, Serializable {
 
     final CacheKey cacheKey = (CacheKey) object;
 
-    if (hashcode != cacheKey.hashcode) {
-      return false;
-    }
-    if (checksum != cacheKey.checksum) {
+    if (hash != cacheKey.hash) {
       return false;
     }
     if (count != cacheKey.count) {
       return false;
     }
 
-    for (int i = 0; i < updateList.size(); i++) {
-      Object thisObject = updateList.get(i);
-      Object thatObject = cacheKey.updateList.get(i);
-      if (!ArrayUtil.equals(thisObject, thatObject)) {
+    for (int i = 0; i < count; i++) {
+      Object thisObject = components[i];
+      Object thatObject = cacheKey.components[i];
+      if (thisObject != thatObject && !ArrayUtil.equals(thisObject, thatObject)) {
         return false;
       }
     }
@@ -120,23 +133,36 @@ public class CacheKey implements Cloneable, Serializable {
 
   @Override
   public int hashCode() {
-    return hashcode;
+    // mix before folding so that every bit of the hash reaches the int
+    long h = HashUtil.mix(hash);
+    return (int) (h ^ (h >>> 32));
   }
 
   @Override
   public String toString() {
     StringJoiner returnValue = new StringJoiner(":");
-    returnValue.add(String.valueOf(hashcode));
-    returnValue.add(String.valueOf(checksum));
-    updateList.stream().map(ArrayUtil::toString).forEach(returnValue::add);
+    returnValue.add(String.valueOf(hashCode()));
+    returnValue.add(String.valueOf(hash));
+    for (int i = 0; i < count; i++) {
+      returnValue.add(ArrayUtil.toString(components[i]));
+    }
     return returnValue.toString();
   }
 
   @Override
   public CacheKey clone() throws CloneNotSupportedException {
     CacheKey clonedCacheKey = (CacheKey) super.clone();
-    clonedCacheKey.updateList = new ArrayList<>(updateList);
+    clonedCacheKey.components = count == 0 ? EMPTY_COMPONENTS : Arrays.copyOf(components, count);
     return clonedCacheKey;
   }
 
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    // drop the unused capacity from the stream, leaving this key as is
+    ObjectOutputStream.PutField fields = out.putFields();
+    fields.put("hash", hash);
+    fields.put("count", count);
+    fields.put("components", components.length == count ? components : Arrays.copyOf(components, count));
+    out.writeFields();
+  }
+
 }
@@ -0,0 +1,30 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * Marker for caches that can be shared between threads without external synchronization.
+ * <p>
+ * A base cache implementing this interface must be safe for concurrent use on its own. A decorator implementing this
+ * interface must not introduce any unguarded state of its own, so it is thread-safe as long as the cache it decorates
+ * is. When the base cache and every decorator applied to it are thread-safe, the {@code CacheBuilder} does not wrap
+ * the namespace cache in a {@link org.apache.ibatis.cache.decorators.SynchronizedCache}.
+ *
+ * @since 3.5.10
+ */
+public interface ThreadSafeCache extends Cache {
+
+}
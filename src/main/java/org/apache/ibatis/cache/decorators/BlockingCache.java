@@ -21,6 +21,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.ThreadSafeCache;
 
 /**
  * <p>Simple blocking decorator
@@ -34,7 +35,7 @@ import org.apache.ibatis.cache.CacheException;
  * @author Eduardo Macarron
  *
  */
-public class BlockingCache implements Cache {
+public class BlockingCache implements ThreadSafeCache {
 
   private long timeout;
   private final Cache delegate;
@@ -16,24 +16,31 @@
 package org.apache.ibatis.cache.decorators;
 
 import java.util.Deque;
-import java.util.LinkedList;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.ThreadSafeCache;
 
 /**
  * FIFO (first in, first out) cache decorator.
+ * <p>
+ * The key list is a lock-free deque, so this decorator does not need external synchronization when the cache it
+ * decorates is thread-safe.
  *
  * @author Clinton Begin
  */
-public class FifoCache implements Cache {
+public class FifoCache implements ThreadSafeCache {
 
   private final Cache delegate;
   private final Deque<Object> keyList;
-  private int size;
+  private final AtomicInteger keyCount;
+  private volatile int size;
 
   public FifoCache(Cache delegate) {
     this.delegate = delegate;
-    this.keyList = new LinkedList<>();
+    this.keyList = new ConcurrentLinkedDeque<>();
+    this.keyCount = new AtomicInteger();
     this.size = 1024;
   }
 
@@ -53,8 +60,9 @@ public class FifoCache implements Cache {
 
   @Override
   public void putObject(Object key, Object value) {
-    cycleKeyList(key);
+    // publish the value before its key becomes eligible for eviction, so a concurrent eviction cannot miss it
     delegate.putObject(key, value);
+    cycleKeyList(key);
   }
 
   @Override
@@ -64,20 +72,28 @@ public class FifoCache implements Cache {
 
   @Override
   public Object removeObject(Object key) {
+    if (keyList.remove(key)) {
+      keyCount.decrementAndGet();
+    }
     return delegate.removeObject(key);
   }
 
   @Override
   public void clear() {
     delegate.clear();
-    keyList.clear();
+    while (keyList.pollFirst() != null) {
+      keyCount.decrementAndGet();
+    }
   }
 
   private void cycleKeyList(Object key) {
     keyList.addLast(key);
-    if (keyList.size() > size) {
-      Object oldestKey = keyList.removeFirst();
-      delegate.removeObject(oldestKey);
+    if (keyCount.incrementAndGet() > size) {
+      Object oldestKey = keyList.pollFirst();
+      if (oldestKey != null) {
+        keyCount.decrementAndGet();
+        delegate.removeObject(oldestKey);
+      }
     }
   }
 
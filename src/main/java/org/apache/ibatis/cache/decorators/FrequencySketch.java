@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+/*
+ * This class is derived from com.github.benmanes.caffeine.cache.FrequencySketch of Caffeine
+ * (https://github.com/ben-manes/caffeine), Copyright 2015 Ben Manes, licensed under the Apache License, Version 2.0.
+ */
+package org.apache.ibatis.cache.decorators;
+
+/**
+ * A count-min sketch estimating how often a key was seen, used by {@link TinyLfuCache} for admission decisions.
+ * <p>
+ * Each key is hashed to four 4-bit counters, sixteen of them packed per {@code long}, and its frequency is the smallest
+ * of the four. Once the number of recorded events reaches ten times the table width, every counter is halved so the
+ * sketch keeps following the recent popularity of keys instead of their all-time totals.
+ * <p>
+ * This class is not thread-safe; {@link TinyLfuCache} only uses it under its eviction lock.
+ *
+ * @author Ben Manes
+ */
+final class FrequencySketch {
+
+  private static final long[] SEEDS = {
+      0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+  private long[] table;
+  private int tableMask;
+  private int sampleSize;
+  private int additions;
+
+  FrequencySketch(int maximumSize) {
+    ensureCapacity(maximumSize);
+  }
+
+  /**
+   * Resizes the counter table to fit the given number of keys. Resizing drops all recorded frequencies.
+   *
+   * @param maximumSize
+   *          the number of keys the owning cache keeps at most
+   */
+  void ensureCapacity(int maximumSize) {
+    int width = tableSizeFor(Math.max(maximumSize, 1));
+    if (table != null && table.length >= width) {
+      return;
+    }
+    table = new long[width];
+    tableMask = width - 1;
+    sampleSize = (int) Math.min(10L * width, Integer.MAX_VALUE);
+    additions = 0;
+  }
+
+  int frequency(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    int frequency = Integer.MAX_VALUE;
+    for (int i = 0; i < 4; i++) {
+      int index = indexOf(hash, i);
+      int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+      frequency = Math.min(frequency, count);
+    }
+    return frequency;
+  }
+
+  void increment(Object key) {
+    int hash = spread(key.hashCode());
+    int start = (hash & 3) << 2;
+    boolean added = false;
+    for (int i = 0; i < 4; i++) {
+      added |= incrementAt(indexOf(hash, i), start + i);
+    }
+    if (added && ++additions == sampleSize) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int index, int counter) {
+    int offset = counter << 2;
+    long mask = 0xfL << offset;
+    if ((table[index] & mask) != mask) {
+      table[index] += 1L << offset;
+      return true;
+    }
+    return false;
+  }
+
+  private void reset() {
+    int odd = 0;
+    for (int i = 0; i < table.length; i++) {
+      odd += Long.bitCount(table[i] & 0x1111111111111111L);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    additions = (additions >>> 1) - (odd >>> 2);
+  }
+
+  private int indexOf(int hash, int depth) {
+    long h = (hash + SEEDS[depth]) * SEEDS[depth];
+    h += h >>> 32;
+    return ((int) h) & tableMask;
+  }
+
+  private static int spread(int hash) {
+    int h = hash * 0x31848bab;
+    h ^= h >>> 14;
+    return (h * 0x9e3779b9) ^ (h >>> 16);
+  }
+
+  private static int tableSizeFor(int size) {
+    int n = -1 >>> Integer.numberOfLeadingZeros(size - 1);
+    return n < 0 ? 1 : n >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY : n + 1;
+  }
+
+}
@@ -0,0 +1,185 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Approximates how many bytes of heap a cached value retains, for {@link WeightedCache}.
+ * <p>
+ * Serialized values ({@code byte[]}) are weighed exactly. Other values are walked as an object graph, assuming a
+ * 64-bit JVM with compressed references: strings, boxed values, arrays, collections and maps are sized by their
+ * contents, and the declared fields of application classes are followed reflectively. JDK types that are none of the
+ * above, MyBatis internals (such as the state behind lazy loading proxies), enums and classes count as a fixed header
+ * and are not followed, so the estimate never drags shared infrastructure into the weight of a result.
+ */
+final class ObjectWeigher {
+
+  private static final int HEADER = 12;
+  private static final int ARRAY_HEADER = 16;
+  private static final int REFERENCE = 4;
+  private static final int OPAQUE = 16;
+  private static final int COLLECTION_ENTRY = 32;
+
+  private static final ConcurrentMap<Class<?>, List<Field>> referenceFields = new ConcurrentHashMap<>();
+  private static final ConcurrentMap<Class<?>, Long> shallowSizes = new ConcurrentHashMap<>();
+
+  private ObjectWeigher() {
+    // Prevent Instantiation
+  }
+
+  static long weigh(Object value) {
+    if (value == null) {
+      return 0;
+    }
+    if (value instanceof byte[]) {
+      return align(ARRAY_HEADER + ((byte[]) value).length);
+    }
+    Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    Deque<Object> pending = new ArrayDeque<>();
+    pending.push(value);
+    long weight = 0;
+    while (!pending.isEmpty()) {
+      Object object = pending.pop();
+      if (visited.add(object)) {
+        weight += weighShallow(object, pending);
+      }
+    }
+    return weight;
+  }
+
+  private static long weighShallow(Object object, Deque<Object> pending) {
+    Class<?> type = object.getClass();
+    if (type.isArray()) {
+      Class<?> componentType = type.getComponentType();
+      int length = Array.getLength(object);
+      if (componentType.isPrimitive()) {
+        return align(ARRAY_HEADER + (long) length * primitiveSize(componentType));
+      }
+      for (Object element : (Object[]) object) {
+        push(element, pending);
+      }
+      return align(ARRAY_HEADER + (long) length * REFERENCE);
+    }
+    if (object instanceof CharSequence) {
+      return align(HEADER + 12) + align(ARRAY_HEADER + 2L * ((CharSequence) object).length());
+    }
+    if (object instanceof Number || object instanceof Boolean || object instanceof Character) {
+      return OPAQUE + 8;
+    }
+    if (object instanceof Collection) {
+      Collection<?> collection = (Collection<?>) object;
+      for (Object element : collection) {
+        push(element, pending);
+      }
+      return OPAQUE * 2 + (long) collection.size() * COLLECTION_ENTRY;
+    }
+    if (object instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) object;
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        push(entry.getKey(), pending);
+        push(entry.getValue(), pending);
+      }
+      return OPAQUE * 3 + (long) map.size() * COLLECTION_ENTRY;
+    }
+    if (object instanceof Enum || object instanceof Class) {
+      return 0;
+    }
+    if (!isFollowed(type)) {
+      return OPAQUE + 8;
+    }
+    for (Field field : referenceFields.computeIfAbsent(type, ObjectWeigher::findReferenceFields)) {
+      try {
+        push(field.get(object), pending);
+      } catch (IllegalAccessException e) {
+        // the field is counted but not followed
+      }
+    }
+    return shallowSizes.computeIfAbsent(type, ObjectWeigher::shallowSize);
+  }
+
+  private static void push(Object object, Deque<Object> pending) {
+    if (object != null) {
+      pending.push(object);
+    }
+  }
+
+  private static boolean isFollowed(Class<?> type) {
+    String name = type.getName();
+    return !name.startsWith("java.") && !name.startsWith("javax.") && !name.startsWith("sun.")
+        && !name.startsWith("jdk.") && !name.startsWith("org.apache.ibatis.");
+  }
+
+  private static List<Field> findReferenceFields(Class<?> type) {
+    List<Field> fields = new ArrayList<>();
+    for (Class<?> current = type; current != null && isFollowed(current); current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+          try {
+            field.setAccessible(true);
+            fields.add(field);
+          } catch (RuntimeException e) {
+            // not accessible, e.g. denied by a security manager; counted in the shallow size only
+          }
+        }
+      }
+    }
+    return fields;
+  }
+
+  private static long shallowSize(Class<?> type) {
+    long size = HEADER;
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          Class<?> fieldType = field.getType();
+          size += fieldType.isPrimitive() ? primitiveSize(fieldType) : REFERENCE;
+        }
+      }
+    }
+    return align(size);
+  }
+
+  private static int primitiveSize(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    } else {
+      return 1;
+    }
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+}
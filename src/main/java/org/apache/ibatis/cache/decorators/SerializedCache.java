@@ -15,29 +15,66 @@
  */
 package org.apache.ibatis.cache.decorators;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.Serializable;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.ThreadSafeCache;
+import org.apache.ibatis.cache.serializer.CacheSerializer;
+import org.apache.ibatis.cache.serializer.CompactCacheSerializer;
+import org.apache.ibatis.cache.serializer.JdkCacheSerializer;
 import org.apache.ibatis.io.Resources;
-import org.apache.ibatis.io.SerialFilterChecker;
 
 /**
  * @author Clinton Begin
  */
-public class SerializedCache implements Cache {
+public class SerializedCache implements ThreadSafeCache {
 
   private final Cache delegate;
+  private volatile CacheSerializer serializer;
 
   public SerializedCache(Cache delegate) {
+    this(delegate, new JdkCacheSerializer());
+  }
+
+  /**
+   * Creates a decorator that copies cached objects with the given serializer.
+   *
+   * @param delegate
+   *          the decorated cache
+   * @param serializer
+   *          the serializer
+   * @since 3.5.10
+   */
+  public SerializedCache(Cache delegate, CacheSerializer serializer) {
     this.delegate = delegate;
+    this.serializer = serializer;
+  }
+
+  /**
+   * Sets the serializer used to copy cached objects, either {@code JDK} (the default), {@code COMPACT} or the fully
+   * qualified name of a {@link CacheSerializer} implementation.
+   *
+   * @param serializer
+   *          the serializer name
+   * @since 3.5.10
+   */
+  public void setSerializer(String serializer) {
+    if ("JDK".equalsIgnoreCase(serializer)) {
+      this.serializer = new JdkCacheSerializer();
+    } else if ("COMPACT".equalsIgnoreCase(serializer)) {
+      this.serializer = new CompactCacheSerializer();
+    } else {
+      try {
+        this.serializer = (CacheSerializer) Resources.classForName(serializer).getDeclaredConstructor().newInstance();
+      } catch (Exception e) {
+        throw new CacheException("Could not instantiate cache serializer (" + serializer + "). Cause: " + e, e);
+      }
+    }
   }
 
   @Override
@@ -86,26 +123,11 @@ public class SerializedCache implements Cache {
   }
 
   private byte[] serialize(Serializable value) {
-    try (ByteArrayOutputStream bos = new ByteArrayOutputStream();
-        ObjectOutputStream oos = new ObjectOutputStream(bos)) {
-      oos.writeObject(value);
-      oos.flush();
-      return bos.toByteArray();
-    } catch (Exception e) {
-      throw new CacheException("Error serializing object.  Cause: " + e, e);
-    }
+    return serializer.serialize(value);
   }
 
   private Serializable deserialize(byte[] value) {
-    SerialFilterChecker.check();
-    Serializable result;
-    try (ByteArrayInputStream bis = new ByteArrayInputStream(value);
-        ObjectInputStream ois = new CustomObjectInputStream(bis)) {
-      result = (Serializable) ois.readObject();
-    } catch (Exception e) {
-      throw new CacheException("Error deserializing object.  Cause: " + e, e);
-    }
-    return result;
+    return (Serializable) serializer.deserialize(value);
   }
 
   public static class CustomObjectInputStream extends ObjectInputStream {
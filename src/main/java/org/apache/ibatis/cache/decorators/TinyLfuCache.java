@@ -0,0 +1,237 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.ThreadSafeCache;
+
+/**
+ * W-TinyLFU (window tiny least frequently used) cache decorator.
+ * <p>
+ * New keys enter a small LRU window. Keys leaving the window compete with the least recently used key of the main
+ * area, and whichever was requested less often according to a {@link FrequencySketch} is evicted. The main area is a
+ * segmented LRU, so a key must be hit again while on probation before it gets protected. A burst of keys that are
+ * only read once, such as a scan, therefore flows through the window without pushing the frequently used keys out.
+ * <p>
+ * Reads do not take a lock. Hits are recorded in a lossy buffer that is replayed against the policy by whichever
+ * thread next holds the eviction lock; writes and removals take that lock. The decorator is thread-safe as long as
+ * the cache it decorates is.
+ *
+ * @since 3.5.10
+ */
+public class TinyLfuCache implements ThreadSafeCache {
+
+  private static final int READ_BUFFER_SIZE = 128;
+  private static final int READ_BUFFER_MASK = READ_BUFFER_SIZE - 1;
+  private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 4;
+  private static final double WINDOW_RATIO = 0.01d;
+  private static final double PROTECTED_RATIO = 0.8d;
+
+  private final Cache delegate;
+  private final ReentrantLock evictionLock = new ReentrantLock();
+  private final AtomicReferenceArray<Object> readBuffer = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+  private final AtomicLong readBufferWriteCount = new AtomicLong();
+  private volatile long readBufferReadCount;
+
+  // guarded by evictionLock; iteration order is least recently used first
+  private final Map<Object, Object> window = new LinkedHashMap<>();
+  private final Map<Object, Object> probation = new LinkedHashMap<>();
+  private final Map<Object, Object> protectedKeys = new LinkedHashMap<>();
+  private final FrequencySketch sketch;
+  private int size;
+  private int maximumWindowSize;
+  private int maximumProtectedSize;
+
+  public TinyLfuCache(Cache delegate) {
+    this.delegate = delegate;
+    this.sketch = new FrequencySketch(1024);
+    setSize(1024);
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  public void setSize(int size) {
+    evictionLock.lock();
+    try {
+      this.size = Math.max(size, 1);
+      this.maximumWindowSize = Math.max(1, (int) (this.size * WINDOW_RATIO));
+      this.maximumProtectedSize = (int) ((this.size - maximumWindowSize) * PROTECTED_RATIO);
+      sketch.ensureCapacity(this.size);
+      evict();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      if (value == null) {
+        // a null marks a miss; dropping the key keeps it from taking a slot
+        delegate.removeObject(key);
+        untrack(key);
+        return;
+      }
+      delegate.putObject(key, value);
+      sketch.increment(key);
+      if (!onAccess(key)) {
+        window.put(key, key);
+        evict();
+      }
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object value = delegate.getObject(key);
+    if (value != null) {
+      recordRead(key);
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    evictionLock.lock();
+    try {
+      untrack(key);
+      return delegate.removeObject(key);
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    evictionLock.lock();
+    try {
+      drainReadBuffer();
+      delegate.clear();
+      window.clear();
+      probation.clear();
+      protectedKeys.clear();
+    } finally {
+      evictionLock.unlock();
+    }
+  }
+
+  private void recordRead(Object key) {
+    long readCount = readBufferReadCount;
+    long writeCount = readBufferWriteCount.get();
+    long pending = writeCount - readCount;
+    // when the buffer is full or another reader won the slot the hit is dropped, which only makes the policy lossy
+    if (pending < READ_BUFFER_SIZE && readBufferWriteCount.compareAndSet(writeCount, writeCount + 1)) {
+      readBuffer.lazySet((int) writeCount & READ_BUFFER_MASK, key);
+      pending++;
+    }
+    if (pending >= READ_BUFFER_DRAIN_THRESHOLD && evictionLock.tryLock()) {
+      try {
+        drainReadBuffer();
+      } finally {
+        evictionLock.unlock();
+      }
+    }
+  }
+
+  private void drainReadBuffer() {
+    long readCount = readBufferReadCount;
+    long writeCount = readBufferWriteCount.get();
+    for (; readCount < writeCount; readCount++) {
+      int index = (int) readCount & READ_BUFFER_MASK;
+      Object key = readBuffer.get(index);
+      if (key == null) {
+        // claimed by a reader that has not published its key yet
+        break;
+      }
+      readBuffer.lazySet(index, null);
+      sketch.increment(key);
+      onAccess(key);
+    }
+    readBufferReadCount = readCount;
+  }
+
+  private boolean onAccess(Object key) {
+    if (window.remove(key) != null) {
+      window.put(key, key);
+    } else if (probation.remove(key) != null) {
+      protectedKeys.put(key, key);
+      demoteProtected();
+    } else if (protectedKeys.remove(key) != null) {
+      protectedKeys.put(key, key);
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  private void demoteProtected() {
+    while (protectedKeys.size() > maximumProtectedSize) {
+      Object demoted = removeEldest(protectedKeys);
+      probation.put(demoted, demoted);
+    }
+  }
+
+  private void evict() {
+    while (window.size() > maximumWindowSize) {
+      Object candidate = removeEldest(window);
+      probation.put(candidate, candidate);
+      if (window.size() + probation.size() + protectedKeys.size() > size) {
+        Object victim = probation.keySet().iterator().next();
+        Object evicted = sketch.frequency(candidate) > sketch.frequency(victim) ? victim : candidate;
+        probation.remove(evicted);
+        delegate.removeObject(evicted);
+      }
+    }
+    demoteProtected();
+    while (probation.size() + protectedKeys.size() > size - maximumWindowSize) {
+      Object evicted = probation.isEmpty() ? removeEldest(protectedKeys) : removeEldest(probation);
+      delegate.removeObject(evicted);
+    }
+  }
+
+  private void untrack(Object key) {
+    if (window.remove(key) == null && probation.remove(key) == null) {
+      protectedKeys.remove(key);
+    }
+  }
+
+  private static Object removeEldest(Map<Object, Object> keys) {
+    Iterator<Object> iterator = keys.keySet().iterator();
+    Object eldest = iterator.next();
+    iterator.remove();
+    return eldest;
+  }
+
+}
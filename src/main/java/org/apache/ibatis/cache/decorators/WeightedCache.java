@@ -0,0 +1,182 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.ThreadSafeCache;
+
+/**
+ * Weight (byte budget) bounded cache decorator.
+ * <p>
+ * Every value counts against the budget with its approximate retained size in bytes. Values serialized by a
+ * read/write cache reach this decorator as {@code byte[]} and are weighed exactly; other values are estimated by
+ * walking their object graph. When the total weight exceeds the budget, the oldest entries are evicted until it fits
+ * again, and a value that is heavier than the whole budget is not cached at all.
+ * <p>
+ * The builder places this decorator directly over the base cache, below the count-based eviction policy, so removals
+ * made by that policy release their weight here, and sets the eviction policy as the {@link #setEvictionCache
+ * eviction cache}, so that the entries evicted for their weight are removed from the policy too instead of being kept
+ * as keys without a value. The evicted entries are removed through the eviction cache while holding the lock of this
+ * decorator, so that an entry put again by another thread meanwhile is not removed; the eviction cache takes its own
+ * lock, if any, before calling this decorator, so the thread evicting already holds it. Reads do not take a lock. The
+ * decorator is thread-safe as long as the cache it decorates is.
+ *
+ * @since 3.5.10
+ */
+public class WeightedCache implements ThreadSafeCache {
+
+  private final Cache delegate;
+  private final ReentrantLock lock = new ReentrantLock();
+  // guarded by lock; iteration order is oldest first
+  private final Map<Object, Long> weights = new LinkedHashMap<>();
+  private volatile long weight;
+  private volatile long maxWeight;
+  private volatile Cache evictionCache;
+
+  public WeightedCache(Cache delegate) {
+    this.delegate = delegate;
+    this.maxWeight = Long.MAX_VALUE;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  public void setMaxWeight(long maxWeight) {
+    lock.lock();
+    try {
+      this.maxWeight = maxWeight;
+      evict();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getMaxWeight() {
+    return maxWeight;
+  }
+
+  /**
+   * Sets the cache the entries evicted for their weight are removed through, typically the eviction policy decorating
+   * this cache. Its removals must reach this cache. By default the entries are removed from the decorated cache only.
+   *
+   * @param evictionCache
+   *          the cache to remove the evicted entries through
+   */
+  public void setEvictionCache(Cache evictionCache) {
+    this.evictionCache = evictionCache;
+  }
+
+  /**
+   * Returns the approximate number of bytes retained by the cached values.
+   *
+   * @return the current weight
+   */
+  public long getWeight() {
+    return weight;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    long valueWeight = ObjectWeigher.weigh(value);
+    lock.lock();
+    try {
+      release(key);
+      if (valueWeight > maxWeight) {
+        delegate.removeObject(key);
+        return;
+      }
+      delegate.putObject(key, value);
+      weights.put(key, valueWeight);
+      weight += valueWeight;
+      evict();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    lock.lock();
+    try {
+      release(key);
+      return delegate.removeObject(key);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void clear() {
+    lock.lock();
+    try {
+      delegate.clear();
+      weights.clear();
+      weight = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(Object key) {
+    Long valueWeight = weights.remove(key);
+    if (valueWeight != null) {
+      weight -= valueWeight;
+    }
+  }
+
+  private void evict() {
+    if (weight <= maxWeight) {
+      return;
+    }
+    List<Object> evicted = new ArrayList<>();
+    Iterator<Map.Entry<Object, Long>> iterator = weights.entrySet().iterator();
+    while (weight > maxWeight && iterator.hasNext()) {
+      Map.Entry<Object, Long> eldest = iterator.next();
+      iterator.remove();
+      weight -= eldest.getValue();
+      evicted.add(eldest.getKey());
+    }
+    // the removals of the eviction cache reach this cache again, the lock is reentrant
+    Cache outer = evictionCache;
+    for (Object key : evicted) {
+      if (outer == null) {
+        delegate.removeObject(key);
+      } else {
+        outer.removeObject(key);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,396 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.StampedLock;
+
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.ThreadSafeCache;
+
+/**
+ * A base cache that keeps serialized values outside of the Java heap.
+ * <p>
+ * Values must be {@code byte[]}, as produced by a read/write namespace cache. They are copied into slabs of direct
+ * memory, allocated on demand up to {@link #setCapacity(long) capacity}. Each slab is carved into equally sized chunks
+ * of one size class, and a value is stored in the smallest chunk that fits it. When no chunk of the needed class is
+ * free and no further slab can be allocated, a slab is moved from the size class written to least recently if that
+ * class has not been written to since the oldest value of the needed class was stored, or if the needed class holds
+ * no value; the values of the moved slab are evicted. Otherwise the oldest value of the needed class is evicted. This
+ * way the slabs follow the sizes of the values when they change over time. A value larger than a slab is not cached.
+ * <p>
+ * Reads copy the bytes back onto the heap without taking a lock; they retry under a read lock only when a write
+ * overlapped with the copy. Writes are serialized.
+ *
+ * @since 3.5.10
+ */
+public class OffHeapCache implements ThreadSafeCache, InitializingObject {
+
+  private static final int MINIMUM_CHUNK_SIZE = 64;
+  private static final double GROWTH_FACTOR = 1.25d;
+
+  private final String id;
+  private final ConcurrentMap<Object, Chunk> index = new ConcurrentHashMap<>();
+  private final StampedLock lock = new StampedLock();
+
+  private long capacity = 64L * 1024 * 1024;
+  private int slabSize = 1024 * 1024;
+
+  // guarded by lock
+  private int[] chunkSizes;
+  private List<SizeClass> sizeClasses;
+  private long allocated;
+  private long writes;
+
+  public OffHeapCache(String id) {
+    this.id = id;
+  }
+
+  /**
+   * Sets the number of bytes of direct memory the cache may allocate. Defaults to 64 MiB.
+   *
+   * @param capacity
+   *          the capacity in bytes
+   */
+  public void setCapacity(long capacity) {
+    this.capacity = capacity;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Sets the size of a slab, which is also the largest value the cache can hold. Defaults to 1 MiB.
+   *
+   * @param slabSize
+   *          the slab size in bytes
+   */
+  public void setSlabSize(int slabSize) {
+    this.slabSize = slabSize;
+  }
+
+  public int getSlabSize() {
+    return slabSize;
+  }
+
+  @Override
+  public void initialize() {
+    long stamp = lock.writeLock();
+    try {
+      allocateSizeClasses();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private void allocateSizeClasses() {
+    if (slabSize < MINIMUM_CHUNK_SIZE) {
+      throw new CacheException("The slab size of off-heap cache '" + id + "' must be at least " + MINIMUM_CHUNK_SIZE
+          + " bytes, but was " + slabSize + ".");
+    }
+    if (capacity < slabSize) {
+      throw new CacheException("The capacity of off-heap cache '" + id + "' must be at least one slab of " + slabSize
+          + " bytes, but was " + capacity + ".");
+    }
+    List<Integer> sizes = new ArrayList<>();
+    for (int size = MINIMUM_CHUNK_SIZE; size < slabSize; size = align((int) Math.ceil(size * GROWTH_FACTOR))) {
+      sizes.add(size);
+    }
+    sizes.add(slabSize);
+    index.clear();
+    allocated = 0;
+    chunkSizes = new int[sizes.size()];
+    sizeClasses = new ArrayList<>(sizes.size());
+    for (int i = 0; i < chunkSizes.length; i++) {
+      chunkSizes[i] = sizes.get(i);
+      sizeClasses.add(new SizeClass(chunkSizes[i]));
+    }
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public int getSize() {
+    return index.size();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    if (value != null && !(value instanceof byte[])) {
+      throw new CacheException("Off-heap cache '" + id + "' can only store serialized values, but got "
+          + value.getClass().getName() + ". Declare the cache with readOnly=\"false\".");
+    }
+    long stamp = lock.writeLock();
+    try {
+      if (sizeClasses == null) {
+        allocateSizeClasses();
+      }
+      release(key, index.remove(key));
+      if (value == null) {
+        return;
+      }
+      byte[] bytes = (byte[]) value;
+      int classIndex = classIndexFor(bytes.length);
+      if (classIndex < 0) {
+        return;
+      }
+      SizeClass sizeClass = sizeClasses.get(classIndex);
+      Chunk chunk = allocate(sizeClass);
+      if (chunk == null) {
+        return;
+      }
+      sizeClass.lastWrite = ++writes;
+      Chunk stored = chunk.write(bytes, sizeClass.lastWrite);
+      sizeClass.residents.put(key, stored);
+      index.put(key, stored);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    long stamp = lock.tryOptimisticRead();
+    Chunk chunk = index.get(key);
+    if (chunk == null) {
+      return null;
+    }
+    byte[] bytes = chunk.read();
+    if (lock.validate(stamp)) {
+      return bytes;
+    }
+    stamp = lock.readLock();
+    try {
+      chunk = index.get(key);
+      return chunk == null ? null : chunk.read();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    long stamp = lock.writeLock();
+    try {
+      Chunk chunk = index.remove(key);
+      if (chunk == null) {
+        return null;
+      }
+      byte[] bytes = chunk.read();
+      release(key, chunk);
+      return bytes;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  @Override
+  public void clear() {
+    long stamp = lock.writeLock();
+    try {
+      index.clear();
+      if (sizeClasses != null) {
+        for (SizeClass sizeClass : sizeClasses) {
+          for (Chunk chunk : sizeClass.residents.values()) {
+            sizeClass.freeChunks.push(chunk);
+          }
+          sizeClass.residents.clear();
+        }
+      }
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Returns the number of bytes of direct memory allocated so far.
+   *
+   * @return the allocated bytes
+   */
+  public long getAllocatedCapacity() {
+    long stamp = lock.readLock();
+    try {
+      return allocated;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private int classIndexFor(int length) {
+    for (int i = 0; i < chunkSizes.length; i++) {
+      if (chunkSizes[i] >= length) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private Chunk allocate(SizeClass sizeClass) {
+    Chunk chunk = sizeClass.freeChunks.poll();
+    if (chunk != null) {
+      return chunk;
+    }
+    if (allocated + slabSize <= capacity) {
+      allocated += slabSize;
+      return carve(ByteBuffer.allocateDirect(slabSize), sizeClass);
+    }
+    Iterator<Map.Entry<Object, Chunk>> eldest = sizeClass.residents.entrySet().iterator();
+    Map.Entry<Object, Chunk> victim = eldest.hasNext() ? eldest.next() : null;
+    SizeClass idle = leastRecentlyWritten(sizeClass);
+    if (idle != null && (victim == null || idle.lastWrite < victim.getValue().written)) {
+      return carve(reclaimSlab(idle), sizeClass);
+    }
+    if (victim == null) {
+      return null;
+    }
+    eldest.remove();
+    index.remove(victim.getKey());
+    return victim.getValue();
+  }
+
+  private Chunk carve(ByteBuffer slab, SizeClass sizeClass) {
+    for (int offset = 0; offset + sizeClass.chunkSize <= slabSize; offset += sizeClass.chunkSize) {
+      sizeClass.freeChunks.push(new Chunk(slab, offset, 0, sizeClass, 0L));
+    }
+    sizeClass.slabs++;
+    return sizeClass.freeChunks.poll();
+  }
+
+  private SizeClass leastRecentlyWritten(SizeClass excluded) {
+    SizeClass idle = null;
+    for (SizeClass sizeClass : sizeClasses) {
+      if (sizeClass != excluded && sizeClass.slabs > 0 && (idle == null || sizeClass.lastWrite < idle.lastWrite)) {
+        idle = sizeClass;
+      }
+    }
+    return idle;
+  }
+
+  /**
+   * Takes a slab back from a size class, the one of its oldest value, evicting the values stored in it.
+   */
+  private ByteBuffer reclaimSlab(SizeClass sizeClass) {
+    ByteBuffer slab = sizeClass.residents.isEmpty() ? sizeClass.freeChunks.peek().slab
+        : sizeClass.residents.values().iterator().next().slab;
+    Iterator<Map.Entry<Object, Chunk>> residents = sizeClass.residents.entrySet().iterator();
+    while (residents.hasNext()) {
+      Map.Entry<Object, Chunk> resident = residents.next();
+      if (resident.getValue().slab == slab) {
+        residents.remove();
+        index.remove(resident.getKey());
+      }
+    }
+    sizeClass.freeChunks.removeIf(chunk -> chunk.slab == slab);
+    sizeClass.slabs--;
+    return slab;
+  }
+
+  private void release(Object key, Chunk chunk) {
+    if (chunk != null) {
+      chunk.sizeClass.residents.remove(key);
+      chunk.sizeClass.freeChunks.push(chunk);
+    }
+  }
+
+  private static int align(int size) {
+    return (size + 7) & ~7;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Cache)) {
+      return false;
+    }
+
+    Cache otherCache = (Cache) o;
+    return getId().equals(otherCache.getId());
+  }
+
+  @Override
+  public int hashCode() {
+    if (getId() == null) {
+      throw new CacheException("Cache instances require an ID.");
+    }
+    return getId().hashCode();
+  }
+
+  private static final class SizeClass {
+    private final int chunkSize;
+    private final Deque<Chunk> freeChunks = new ArrayDeque<>();
+    // iteration order is oldest first
+    private final Map<Object, Chunk> residents = new LinkedHashMap<>();
+    private int slabs;
+    private long lastWrite;
+
+    private SizeClass(int chunkSize) {
+      this.chunkSize = chunkSize;
+    }
+  }
+
+  private static final class Chunk {
+    private final ByteBuffer slab;
+    private final int offset;
+    private final int length;
+    private final SizeClass sizeClass;
+    private final long written;
+
+    private Chunk(ByteBuffer slab, int offset, int length, SizeClass sizeClass, long written) {
+      this.slab = slab;
+      this.offset = offset;
+      this.length = length;
+      this.sizeClass = sizeClass;
+      this.written = written;
+    }
+
+    private Chunk write(byte[] bytes, long written) {
+      ByteBuffer buffer = slab.duplicate();
+      ((Buffer) buffer).position(offset);
+      buffer.put(bytes);
+      return new Chunk(slab, offset, bytes.length, sizeClass, written);
+    }
+
+    private byte[] read() {
+      byte[] bytes = new byte[length];
+      ByteBuffer buffer = slab.duplicate();
+      ((Buffer) buffer).position(offset);
+      buffer.get(bytes);
+      return bytes;
+    }
+  }
+
+}
@@ -0,0 +1,54 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+/**
+ * SPI for turning cached objects into bytes and back, used by read/write caches to hand out copies.
+ * <p>
+ * Implementations must be thread-safe and have a public no-argument constructor. A serializer is chosen per namespace
+ * with the {@code serializer} property of the cache:
+ *
+ * <pre>
+ * &lt;cache&gt;
+ *   &lt;property name="serializer" value="COMPACT"/&gt;
+ * &lt;/cache&gt;
+ * </pre>
+ *
+ * @since 3.5.10
+ * @see JdkCacheSerializer
+ * @see CompactCacheSerializer
+ */
+public interface CacheSerializer {
+
+  /**
+   * @param object
+   *          the object to serialize, may be {@code null}
+   * @return the serialized form
+   * @throws org.apache.ibatis.cache.CacheException
+   *           if the object cannot be serialized
+   */
+  byte[] serialize(Object object);
+
+  /**
+   * @param bytes
+   *          the bytes returned by {@link #serialize(Object)}
+   * @return a copy of the serialized object
+   * @throws org.apache.ibatis.cache.CacheException
+   *           if the bytes cannot be deserialized
+   */
+  Object deserialize(byte[] bytes);
+
+}
@@ -0,0 +1,518 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.AmbiguousMethodInvoker;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * A compact serializer for the objects MyBatis usually caches: lists and maps of mapped result objects.
+ * <p>
+ * Strings, boxed primitives, big numbers, dates, enums, byte arrays, object arrays and the common list, set and map
+ * implementations are written with a one byte tag. Result objects are written as the values of their properties, read
+ * and written through the same {@link Reflector} metadata that maps them from a {@code ResultSet}; the class name is
+ * only written the first time a class occurs. Shared references and cycles are preserved.
+ * <p>
+ * A class is written this way only when it is {@link Serializable}, has a default constructor, has a getter and a
+ * setter of the same type for every instance field, and does not customize its serialized form (transient fields,
+ * {@code writeObject}, {@code writeReplace}, {@link Externalizable}, lazy loading proxies and the like). Any other
+ * object is written with Java object serialization, as a self-contained block that does not share references with
+ * the rest of the graph.
+ * <p>
+ * Reading only resolves the classes this serializer wrote itself, so a cache entry cannot make it load, initialize or
+ * instantiate any other class. The Java serialized blocks are read with {@link JdkCacheSerializer}, which applies the
+ * JEP 290 serial filter.
+ *
+ * @since 3.5.10
+ */
+public class CompactCacheSerializer implements CacheSerializer {
+
+  private static final byte NULL = 0;
+  private static final byte REFERENCE = 1;
+  private static final byte STRING = 2;
+  private static final byte INTEGER = 3;
+  private static final byte LONG = 4;
+  private static final byte SHORT = 5;
+  private static final byte BYTE = 6;
+  private static final byte BOOLEAN = 7;
+  private static final byte CHARACTER = 8;
+  private static final byte FLOAT = 9;
+  private static final byte DOUBLE = 10;
+  private static final byte BIG_DECIMAL = 11;
+  private static final byte BIG_INTEGER = 12;
+  private static final byte DATE = 13;
+  private static final byte SQL_DATE = 14;
+  private static final byte SQL_TIME = 15;
+  private static final byte SQL_TIMESTAMP = 16;
+  private static final byte ENUM = 17;
+  private static final byte BYTES = 18;
+  private static final byte ARRAY = 19;
+  private static final byte ARRAY_LIST = 20;
+  private static final byte LINKED_LIST = 21;
+  private static final byte HASH_SET = 22;
+  private static final byte LINKED_HASH_SET = 23;
+  private static final byte HASH_MAP = 24;
+  private static final byte LINKED_HASH_MAP = 25;
+  private static final byte BEAN = 26;
+  private static final byte JDK = 27;
+
+  private static final Set<String> SERIALIZATION_METHODS = new HashSet<>(
+      Arrays.asList("writeObject", "readObject", "readObjectNoData", "writeReplace", "readResolve"));
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+  private static final BeanCodec NOT_A_BEAN = new BeanCodec(null, new String[0], new Invoker[0], new Invoker[0]);
+
+  private final ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+  private final ConcurrentMap<Class<?>, BeanCodec> beanCodecs = new ConcurrentHashMap<>();
+  private final JdkCacheSerializer jdkSerializer = new JdkCacheSerializer();
+  private final ConcurrentMap<String, Class<?>> writtenClasses = new ConcurrentHashMap<>();
+
+  @Override
+  public byte[] serialize(Object object) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      new Writer(new DataOutputStream(bytes)).write(object);
+      return bytes.toByteArray();
+    } catch (IOException | ReflectiveOperationException e) {
+      throw new CacheException("Error serializing object.  Cause: " + e, e);
+    }
+  }
+
+  @Override
+  public Object deserialize(byte[] bytes) {
+    try {
+      return new Reader(new DataInputStream(new ByteArrayInputStream(bytes))).read();
+    } catch (IOException | ReflectiveOperationException e) {
+      throw new CacheException("Error deserializing object.  Cause: " + e, e);
+    }
+  }
+
+  private BeanCodec beanCodec(Class<?> type) {
+    return beanCodecs.computeIfAbsent(type, this::createBeanCodec);
+  }
+
+  private BeanCodec createBeanCodec(Class<?> type) {
+    if (!Serializable.class.isAssignableFrom(type) || Externalizable.class.isAssignableFrom(type)
+        || type.isInterface() || Modifier.isAbstract(type.getModifiers()) || type.isAnonymousClass()
+        || type.getName().startsWith("java.")) {
+      return NOT_A_BEAN;
+    }
+    Set<String> fieldNames = new HashSet<>();
+    for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+      if (declaresSerializationMethod(current)) {
+        return NOT_A_BEAN;
+      }
+      for (Field field : current.getDeclaredFields()) {
+        int modifiers = field.getModifiers();
+        if (Modifier.isStatic(modifiers)) {
+          continue;
+        }
+        if (Modifier.isTransient(modifiers) || field.isSynthetic() || !fieldNames.add(field.getName())) {
+          return NOT_A_BEAN;
+        }
+      }
+    }
+    Reflector reflector = reflectorFactory.findForClass(type);
+    if (!reflector.hasDefaultConstructor()) {
+      return NOT_A_BEAN;
+    }
+    List<String> names = new ArrayList<>(Arrays.asList(reflector.getGetablePropertyNames()));
+    names.retainAll(Arrays.asList(reflector.getSetablePropertyNames()));
+    if (!names.containsAll(fieldNames)) {
+      return NOT_A_BEAN;
+    }
+    names.sort(null);
+    Invoker[] getters = new Invoker[names.size()];
+    Invoker[] setters = new Invoker[names.size()];
+    for (int i = 0; i < getters.length; i++) {
+      String name = names.get(i);
+      getters[i] = reflector.getGetInvoker(name);
+      setters[i] = reflector.getSetInvoker(name);
+      if (getters[i] instanceof AmbiguousMethodInvoker || setters[i] instanceof AmbiguousMethodInvoker
+          || !reflector.getGetterType(name).equals(reflector.getSetterType(name))) {
+        return NOT_A_BEAN;
+      }
+    }
+    return new BeanCodec(reflector, names.toArray(new String[0]), getters, setters);
+  }
+
+  private static boolean declaresSerializationMethod(Class<?> type) {
+    for (Method method : type.getDeclaredMethods()) {
+      if (SERIALIZATION_METHODS.contains(method.getName())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static final class BeanCodec {
+    private final Reflector reflector;
+    private final String[] names;
+    private final Invoker[] getters;
+    private final Invoker[] setters;
+
+    private BeanCodec(Reflector reflector, String[] names, Invoker[] getters, Invoker[] setters) {
+      this.reflector = reflector;
+      this.names = names;
+      this.getters = getters;
+      this.setters = setters;
+    }
+  }
+
+  private final class Writer {
+    private final DataOutputStream out;
+    private final Map<Object, Integer> handles = new IdentityHashMap<>();
+    private final Map<Class<?>, Integer> classes = new HashMap<>();
+
+    private Writer(DataOutputStream out) {
+      this.out = out;
+    }
+
+    private void write(Object object) throws IOException, ReflectiveOperationException {
+      if (object == null) {
+        out.writeByte(NULL);
+        return;
+      }
+      Class<?> type = object.getClass();
+      if (type == String.class) {
+        out.writeByte(STRING);
+        writeString((String) object);
+      } else if (type == Integer.class) {
+        out.writeByte(INTEGER);
+        out.writeInt((Integer) object);
+      } else if (type == Long.class) {
+        out.writeByte(LONG);
+        out.writeLong((Long) object);
+      } else if (type == Short.class) {
+        out.writeByte(SHORT);
+        out.writeShort((Short) object);
+      } else if (type == Byte.class) {
+        out.writeByte(BYTE);
+        out.writeByte((Byte) object);
+      } else if (type == Boolean.class) {
+        out.writeByte(BOOLEAN);
+        out.writeBoolean((Boolean) object);
+      } else if (type == Character.class) {
+        out.writeByte(CHARACTER);
+        out.writeChar((Character) object);
+      } else if (type == Float.class) {
+        out.writeByte(FLOAT);
+        out.writeFloat((Float) object);
+      } else if (type == Double.class) {
+        out.writeByte(DOUBLE);
+        out.writeDouble((Double) object);
+      } else if (type == BigDecimal.class) {
+        out.writeByte(BIG_DECIMAL);
+        BigDecimal decimal = (BigDecimal) object;
+        out.writeInt(decimal.scale());
+        writeBytes(decimal.unscaledValue().toByteArray());
+      } else if (type == BigInteger.class) {
+        out.writeByte(BIG_INTEGER);
+        writeBytes(((BigInteger) object).toByteArray());
+      } else if (type == java.util.Date.class) {
+        out.writeByte(DATE);
+        out.writeLong(((java.util.Date) object).getTime());
+      } else if (type == java.sql.Date.class) {
+        out.writeByte(SQL_DATE);
+        out.writeLong(((java.sql.Date) object).getTime());
+      } else if (type == Time.class) {
+        out.writeByte(SQL_TIME);
+        out.writeLong(((Time) object).getTime());
+      } else if (type == Timestamp.class) {
+        out.writeByte(SQL_TIMESTAMP);
+        out.writeLong(((Timestamp) object).getTime());
+        out.writeInt(((Timestamp) object).getNanos());
+      } else if (object instanceof Enum) {
+        out.writeByte(ENUM);
+        writeClass(((Enum<?>) object).getDeclaringClass());
+        writeString(((Enum<?>) object).name());
+      } else if (type == byte[].class) {
+        out.writeByte(BYTES);
+        writeBytes((byte[]) object);
+      } else if (!writeReference(object)) {
+        writeContainer(object, type);
+      }
+    }
+
+    private boolean writeReference(Object object) throws IOException {
+      Integer handle = handles.get(object);
+      if (handle != null) {
+        out.writeByte(REFERENCE);
+        out.writeInt(handle);
+        return true;
+      }
+      return false;
+    }
+
+    private void writeContainer(Object object, Class<?> type) throws IOException, ReflectiveOperationException {
+      if (type.isArray() && !type.getComponentType().isPrimitive()) {
+        handles.put(object, handles.size());
+        Object[] array = (Object[]) object;
+        out.writeByte(ARRAY);
+        writeClass(type.getComponentType());
+        out.writeInt(array.length);
+        for (Object element : array) {
+          write(element);
+        }
+      } else if (type == ArrayList.class || type == LinkedList.class || type == HashSet.class
+          || type == LinkedHashSet.class) {
+        handles.put(object, handles.size());
+        Collection<?> collection = (Collection<?>) object;
+        out.writeByte(type == ArrayList.class ? ARRAY_LIST
+            : type == LinkedList.class ? LINKED_LIST : type == HashSet.class ? HASH_SET : LINKED_HASH_SET);
+        out.writeInt(collection.size());
+        for (Object element : collection) {
+          write(element);
+        }
+      } else if (type == HashMap.class || type == LinkedHashMap.class) {
+        handles.put(object, handles.size());
+        Map<?, ?> map = (Map<?, ?>) object;
+        out.writeByte(type == HashMap.class ? HASH_MAP : LINKED_HASH_MAP);
+        out.writeInt(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+          write(entry.getKey());
+          write(entry.getValue());
+        }
+      } else {
+        BeanCodec codec = beanCodec(type);
+        if (codec == NOT_A_BEAN) {
+          writeJdk(object);
+          return;
+        }
+        handles.put(object, handles.size());
+        out.writeByte(BEAN);
+        writeClass(type);
+        for (Invoker getter : codec.getters) {
+          write(getter.invoke(object, NO_ARGUMENTS));
+        }
+      }
+    }
+
+    private void writeJdk(Object object) throws IOException {
+      if (!(object instanceof Serializable)) {
+        throw new CacheException("SharedCache failed to make a copy of a non-serializable object: " + object);
+      }
+      out.writeByte(JDK);
+      writeBytes(jdkSerializer.serialize(object));
+    }
+
+    private void writeClass(Class<?> type) throws IOException {
+      Integer index = classes.get(type);
+      if (index == null) {
+        classes.put(type, classes.size());
+        writtenClasses.putIfAbsent(type.getName(), type);
+        out.writeInt(-1);
+        writeString(type.getName());
+      } else {
+        out.writeInt(index);
+      }
+    }
+
+    private void writeString(String value) throws IOException {
+      writeBytes(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void writeBytes(byte[] value) throws IOException {
+      out.writeInt(value.length);
+      out.write(value);
+    }
+  }
+
+  private final class Reader {
+    private final DataInputStream in;
+    private final List<Object> handles = new ArrayList<>();
+    private final List<Class<?>> classes = new ArrayList<>();
+
+    private Reader(DataInputStream in) {
+      this.in = in;
+    }
+
+    private Object read() throws IOException, ReflectiveOperationException {
+      byte tag = in.readByte();
+      switch (tag) {
+        case NULL:
+          return null;
+        case REFERENCE:
+          return handles.get(in.readInt());
+        case STRING:
+          return readString();
+        case INTEGER:
+          return in.readInt();
+        case LONG:
+          return in.readLong();
+        case SHORT:
+          return in.readShort();
+        case BYTE:
+          return in.readByte();
+        case BOOLEAN:
+          return in.readBoolean();
+        case CHARACTER:
+          return in.readChar();
+        case FLOAT:
+          return in.readFloat();
+        case DOUBLE:
+          return in.readDouble();
+        case BIG_DECIMAL:
+          int scale = in.readInt();
+          return new BigDecimal(new BigInteger(readBytes()), scale);
+        case BIG_INTEGER:
+          return new BigInteger(readBytes());
+        case DATE:
+          return new java.util.Date(in.readLong());
+        case SQL_DATE:
+          return new java.sql.Date(in.readLong());
+        case SQL_TIME:
+          return new Time(in.readLong());
+        case SQL_TIMESTAMP:
+          Timestamp timestamp = new Timestamp(in.readLong());
+          timestamp.setNanos(in.readInt());
+          return timestamp;
+        case ENUM:
+          return readEnum();
+        case BYTES:
+          return readBytes();
+        case ARRAY:
+          return readArray();
+        case ARRAY_LIST:
+          return readCollection(new ArrayList<>());
+        case LINKED_LIST:
+          return readCollection(new LinkedList<>());
+        case HASH_SET:
+          return readCollection(new HashSet<>());
+        case LINKED_HASH_SET:
+          return readCollection(new LinkedHashSet<>());
+        case HASH_MAP:
+          return readMap(new HashMap<>());
+        case LINKED_HASH_MAP:
+          return readMap(new LinkedHashMap<>());
+        case BEAN:
+          return readBean();
+        case JDK:
+          return jdkSerializer.deserialize(readBytes());
+        default:
+          throw new CacheException("Unknown type tag " + tag + " in serialized cache entry.");
+      }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Object readEnum() throws IOException, ReflectiveOperationException {
+      Class<? extends Enum> type = (Class<? extends Enum>) readClass();
+      return Enum.valueOf(type, readString());
+    }
+
+    private Object readArray() throws IOException, ReflectiveOperationException {
+      Class<?> componentType = readClass();
+      Object[] array = (Object[]) Array.newInstance(componentType, in.readInt());
+      handles.add(array);
+      for (int i = 0; i < array.length; i++) {
+        array[i] = read();
+      }
+      return array;
+    }
+
+    private Object readCollection(Collection<Object> collection) throws IOException, ReflectiveOperationException {
+      handles.add(collection);
+      for (int size = in.readInt(); size > 0; size--) {
+        collection.add(read());
+      }
+      return collection;
+    }
+
+    private Object readMap(Map<Object, Object> map) throws IOException, ReflectiveOperationException {
+      handles.add(map);
+      for (int size = in.readInt(); size > 0; size--) {
+        Object key = read();
+        map.put(key, read());
+      }
+      return map;
+    }
+
+    private Object readBean() throws IOException, ReflectiveOperationException {
+      BeanCodec codec = beanCodec(readClass());
+      if (codec == NOT_A_BEAN) {
+        throw new CacheException("Serialized cache entry contains a class that cannot be read as a bean.");
+      }
+      Object bean = codec.reflector.getDefaultConstructor().newInstance();
+      handles.add(bean);
+      for (int i = 0; i < codec.setters.length; i++) {
+        Object value = read();
+        if (value != null || !codec.reflector.getSetterType(codec.names[i]).isPrimitive()) {
+          codec.setters[i].invoke(bean, new Object[] { value });
+        }
+      }
+      return bean;
+    }
+
+    private Class<?> readClass() throws IOException {
+      int index = in.readInt();
+      if (index >= 0) {
+        return classes.get(index);
+      }
+      String name = readString();
+      Class<?> type = writtenClasses.get(name);
+      if (type == null) {
+        throw new CacheException("Serialized cache entry contains the class '" + name + "' that was not written by this serializer.");
+      }
+      classes.add(type);
+      return type;
+    }
+
+    private String readString() throws IOException {
+      return new String(readBytes(), StandardCharsets.UTF_8);
+    }
+
+    private byte[] readBytes() throws IOException {
+      byte[] bytes = new byte[in.readInt()];
+      in.readFully(bytes);
+      return bytes;
+    }
+  }
+
+}
@@ -0,0 +1,56 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram with fixed bucket bounds that can be updated concurrently without locking.
+ */
+final class PoolHistogram {
+
+  private final long[] bounds;
+  private final LongAdder[] counts;
+
+  PoolHistogram(long... bounds) {
+    this.bounds = bounds;
+    this.counts = new LongAdder[bounds.length + 1];
+    for (int i = 0; i < counts.length; i++) {
+      counts[i] = new LongAdder();
+    }
+  }
+
+  void record(long value) {
+    int i = 0;
+    while (i < bounds.length && value > bounds[i]) {
+      i++;
+    }
+    counts[i].increment();
+  }
+
+  long[] getBounds() {
+    return bounds.clone();
+  }
+
+  long[] getCounts() {
+    long[] snapshot = new long[counts.length];
+    for (int i = 0; i < counts.length; i++) {
+      snapshot[i] = counts[i].sum();
+    }
+    return snapshot;
+  }
+
+}
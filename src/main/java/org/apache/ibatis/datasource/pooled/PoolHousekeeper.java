@@ -0,0 +1,90 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * Periodically runs the background maintenance of a {@link PooledDataSource}: validating and evicting idle
+ * connections and opening connections up to the minimum idle count.
+ * <p>
+ * All pools share a single daemon thread. A housekeeper only holds a weak reference to its pool and cancels itself
+ * once the pool has been garbage collected.
+ */
+final class PoolHousekeeper implements Runnable {
+
+  private static final Log log = LogFactory.getLog(PoolHousekeeper.class);
+
+  private static final ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+    Thread thread = new Thread(runnable, "mybatis-pool-housekeeper");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  static {
+    scheduler.setRemoveOnCancelPolicy(true);
+  }
+
+  private final WeakReference<PooledDataSource> dataSource;
+  private final ScheduledFuture<?> future;
+
+  private PoolHousekeeper(PooledDataSource dataSource, long interval) {
+    this.dataSource = new WeakReference<>(dataSource);
+    this.future = scheduler.scheduleWithFixedDelay(this, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Starts the housekeeping of a pool.
+   *
+   * @param dataSource
+   *          the pool to maintain
+   * @param interval
+   *          the time between two runs in milliseconds
+   * @return the housekeeper, to be cancelled when the pool no longer needs it
+   */
+  static PoolHousekeeper start(PooledDataSource dataSource, long interval) {
+    return new PoolHousekeeper(dataSource, interval);
+  }
+
+  /**
+   * Stops any further run of this housekeeper.
+   */
+  void cancel() {
+    future.cancel(false);
+  }
+
+  @Override
+  public void run() {
+    PooledDataSource pool = dataSource.get();
+    if (pool == null) {
+      cancel();
+      return;
+    }
+    try {
+      pool.housekeep();
+    } catch (Exception e) {
+      // an exception would suppress all further runs
+      log.warn("Pool housekeeping failed: " + e.getMessage());
+    }
+  }
+
+}
@@ -0,0 +1,132 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The metrics every {@link PooledDataSource} keeps about itself. Counters and histograms are updated from
+ * {@link PoolMetricsListener} events and gauges are read from the {@link PoolState}, neither of which takes a lock.
+ *
+ * @since 3.5.10
+ */
+public class PoolMetrics implements PoolMetricsListener, PoolMetricsMXBean {
+
+  private final PoolState state;
+
+  private final LongAdder checkoutCount = new LongAdder();
+  private final LongAdder waitTimeoutCount = new LongAdder();
+  private final LongAdder badConnectionCount = new LongAdder();
+  private final LongAdder openedConnectionCount = new LongAdder();
+  private final LongAdder closedConnectionCount = new LongAdder();
+  private final PoolHistogram checkoutTimes = new PoolHistogram(10, 50, 100, 500, 1000, 5000, 10000, 50000, 100000,
+      500000, 1000000, 5000000, 10000000);
+  private final PoolHistogram connectionLifetimes = new PoolHistogram(1000, 10000, 60000, 600000, 1800000, 3600000,
+      21600000, 86400000);
+
+  public PoolMetrics(PoolState state) {
+    this.state = state;
+  }
+
+  @Override
+  public void connectionCheckedOut(long waitTimeNanos) {
+    checkoutCount.increment();
+    checkoutTimes.record(TimeUnit.NANOSECONDS.toMicros(waitTimeNanos));
+  }
+
+  @Override
+  public void waitTimedOut() {
+    waitTimeoutCount.increment();
+  }
+
+  @Override
+  public void badConnectionDiscarded() {
+    badConnectionCount.increment();
+  }
+
+  @Override
+  public void connectionOpened() {
+    openedConnectionCount.increment();
+  }
+
+  @Override
+  public void connectionClosed(long lifetimeMillis) {
+    closedConnectionCount.increment();
+    connectionLifetimes.record(lifetimeMillis);
+  }
+
+  @Override
+  public int getActiveConnectionCount() {
+    return state.activeCount.get();
+  }
+
+  @Override
+  public int getIdleConnectionCount() {
+    return state.idleCount.get();
+  }
+
+  @Override
+  public int getWaitingThreadCount() {
+    return state.waiters.size();
+  }
+
+  @Override
+  public long getCheckoutCount() {
+    return checkoutCount.sum();
+  }
+
+  @Override
+  public long getWaitTimeoutCount() {
+    return waitTimeoutCount.sum();
+  }
+
+  @Override
+  public long getBadConnectionCount() {
+    return badConnectionCount.sum();
+  }
+
+  @Override
+  public long getOpenedConnectionCount() {
+    return openedConnectionCount.sum();
+  }
+
+  @Override
+  public long getClosedConnectionCount() {
+    return closedConnectionCount.sum();
+  }
+
+  @Override
+  public long[] getCheckoutTimeBucketBoundsMicros() {
+    return checkoutTimes.getBounds();
+  }
+
+  @Override
+  public long[] getCheckoutTimeHistogram() {
+    return checkoutTimes.getCounts();
+  }
+
+  @Override
+  public long[] getConnectionLifetimeBucketBoundsMillis() {
+    return connectionLifetimes.getBounds();
+  }
+
+  @Override
+  public long[] getConnectionLifetimeHistogram() {
+    return connectionLifetimes.getCounts();
+  }
+
+}
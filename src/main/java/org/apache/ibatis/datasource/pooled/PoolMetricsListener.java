@@ -0,0 +1,70 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * Receives the events of a {@link PooledDataSource} that pool metrics are built from.
+ * <p>
+ * Events are published on the thread that caused them, without holding any pool lock, so implementations must be
+ * thread-safe and should return quickly.
+ *
+ * @since 3.5.10
+ * @see PooledDataSource#addPoolMetricsListener(PoolMetricsListener)
+ */
+public interface PoolMetricsListener {
+
+  /**
+   * A connection was checked out.
+   *
+   * @param waitTimeNanos
+   *          the time the requesting thread spent in the pool, including waiting and opening a new connection
+   */
+  default void connectionCheckedOut(long waitTimeNanos) {
+    // NOP
+  }
+
+  /**
+   * A thread waited for poolTimeToWait without being handed a connection, and is about to retry.
+   */
+  default void waitTimedOut() {
+    // NOP
+  }
+
+  /**
+   * A connection failed validation, at checkout, on return or in the background, and was discarded.
+   */
+  default void badConnectionDiscarded() {
+    // NOP
+  }
+
+  /**
+   * A new physical connection was opened.
+   */
+  default void connectionOpened() {
+    // NOP
+  }
+
+  /**
+   * A physical connection was closed by the pool.
+   *
+   * @param lifetimeMillis
+   *          the time since the connection was opened
+   */
+  default void connectionClosed(long lifetimeMillis) {
+    // NOP
+  }
+
+}
@@ -0,0 +1,53 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+/**
+ * Management interface of the metrics of a {@link PooledDataSource}, registered when
+ * {@link PooledDataSource#setPoolJmxName(String)} is set.
+ * <p>
+ * Histograms are returned as counts per bucket, where bucket {@code i} counts values up to and including
+ * {@code bounds[i]} and the last bucket counts all larger values.
+ *
+ * @since 3.5.10
+ */
+public interface PoolMetricsMXBean {
+
+  int getActiveConnectionCount();
+
+  int getIdleConnectionCount();
+
+  int getWaitingThreadCount();
+
+  long getCheckoutCount();
+
+  long getWaitTimeoutCount();
+
+  long getBadConnectionCount();
+
+  long getOpenedConnectionCount();
+
+  long getClosedConnectionCount();
+
+  long[] getCheckoutTimeBucketBoundsMicros();
+
+  long[] getCheckoutTimeHistogram();
+
+  long[] getConnectionLifetimeBucketBoundsMillis();
+
+  long[] getConnectionLifetimeHistogram();
+
+}
@@ -15,74 +15,111 @@
  */
 package org.apache.ibatis.datasource.pooled;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
+ * The connections and statistics of a {@link PooledDataSource}.
+ * <p>
+ * Since 3.5.10 the pool is updated without a lock, so the protected fields changed type and are not compatible with
+ * code compiled against earlier versions: the connection lists became a {@link Deque} and a {@link Set}, and the
+ * statistics became {@link LongAdder}s. Read the statistics through the public getters, whose signatures are
+ * unchanged.
+ *
  * @author Clinton Begin
  */
 public class PoolState {
 
   protected PooledDataSource dataSource;
 
-  protected final List<PooledConnection> idleConnections = new ArrayList<>();
-  protected final List<PooledConnection> activeConnections = new ArrayList<>();
-  protected long requestCount = 0;
-  protected long accumulatedRequestTime = 0;
-  protected long accumulatedCheckoutTime = 0;
-  protected long claimedOverdueConnectionCount = 0;
-  protected long accumulatedCheckoutTimeOfOverdueConnections = 0;
-  protected long accumulatedWaitTime = 0;
-  protected long hadToWaitCount = 0;
-  protected long badConnectionCount = 0;
+  /**
+   * Idle connections, used as a stack so that the most recently returned connection is checked out first.
+   */
+  protected final Deque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+  protected final Set<PooledConnection> activeConnections = ConcurrentHashMap.newKeySet();
+  /**
+   * Threads waiting for a connection, in arrival order.
+   */
+  protected final Queue<PoolWaiter> waiters = new ConcurrentLinkedQueue<>();
+  /**
+   * Number of idle connections, including slots reserved by connections about to be returned to the pool.
+   */
+  protected final AtomicInteger idleCount = new AtomicInteger();
+  /**
+   * Number of checked out connections, including slots reserved by connections being opened or handed over.
+   */
+  protected final AtomicInteger activeCount = new AtomicInteger();
+  /**
+   * Number of connections opened by the pool and not closed yet, whether checked out, idle or in between. It never
+   * exceeds poolMaximumActiveConnections, which bounds the number of checked out connections.
+   */
+  protected final AtomicInteger connectionCount = new AtomicInteger();
+  protected final LongAdder requestCount = new LongAdder();
+  protected final LongAdder accumulatedRequestTime = new LongAdder();
+  protected final LongAdder accumulatedCheckoutTime = new LongAdder();
+  protected final LongAdder claimedOverdueConnectionCount = new LongAdder();
+  protected final LongAdder accumulatedCheckoutTimeOfOverdueConnections = new LongAdder();
+  protected final LongAdder accumulatedWaitTime = new LongAdder();
+  protected final LongAdder hadToWaitCount = new LongAdder();
+  protected final LongAdder badConnectionCount = new LongAdder();
 
   public PoolState(PooledDataSource dataSource) {
     this.dataSource = dataSource;
   }
 
-  public synchronized long getRequestCount() {
-    return requestCount;
+  public long getRequestCount() {
+    return requestCount.sum();
   }
 
-  public synchronized long getAverageRequestTime() {
-    return requestCount == 0 ? 0 : accumulatedRequestTime / requestCount;
+  public long getAverageRequestTime() {
+    long requests = requestCount.sum();
+    return requests == 0 ? 0 : accumulatedRequestTime.sum() / requests;
   }
 
-  public synchronized long getAverageWaitTime() {
-    return hadToWaitCount == 0 ? 0 : accumulatedWaitTime / hadToWaitCount;
+  public long getAverageWaitTime() {
+    long waits = hadToWaitCount.sum();
+    return waits == 0 ? 0 : accumulatedWaitTime.sum() / waits;
 
   }
 
-  public synchronized long getHadToWaitCount() {
-    return hadToWaitCount;
+  public long getHadToWaitCount() {
+    return hadToWaitCount.sum();
   }
 
-  public synchronized long getBadConnectionCount() {
-    return badConnectionCount;
+  public long getBadConnectionCount() {
+    return badConnectionCount.sum();
   }
 
-  public synchronized long getClaimedOverdueConnectionCount() {
-    return claimedOverdueConnectionCount;
+  public long getClaimedOverdueConnectionCount() {
+    return claimedOverdueConnectionCount.sum();
   }
 
-  public synchronized long getAverageOverdueCheckoutTime() {
-    return claimedOverdueConnectionCount == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections / claimedOverdueConnectionCount;
+  public long getAverageOverdueCheckoutTime() {
+    long claims = claimedOverdueConnectionCount.sum();
+    return claims == 0 ? 0 : accumulatedCheckoutTimeOfOverdueConnections.sum() / claims;
   }
 
-  public synchronized long getAverageCheckoutTime() {
-    return requestCount == 0 ? 0 : accumulatedCheckoutTime / requestCount;
+  public long getAverageCheckoutTime() {
+    long requests = requestCount.sum();
+    return requests == 0 ? 0 : accumulatedCheckoutTime.sum() / requests;
   }
 
-  public synchronized int getIdleConnectionCount() {
+  public int getIdleConnectionCount() {
     return idleConnections.size();
   }
 
-  public synchronized int getActiveConnectionCount() {
+  public int getActiveConnectionCount() {
     return activeConnections.size();
   }
 
   @Override
-  public synchronized String toString() {
+  public String toString() {
     StringBuilder builder = new StringBuilder();
     builder.append("\n===CONFIGURATION==============================================");
     builder.append("\n jdbcDriver                     ").append(dataSource.getDriver());
@@ -96,6 +133,10 @@ public class PoolState {
     builder.append("\n poolPingEnabled                ").append(dataSource.poolPingEnabled);
     builder.append("\n poolPingQuery                  ").append(dataSource.poolPingQuery);
     builder.append("\n poolPingConnectionsNotUsedFor  ").append(dataSource.poolPingConnectionsNotUsedFor);
+    builder.append("\n poolHousekeepingInterval       ").append(dataSource.poolHousekeepingInterval);
+    builder.append("\n poolMinIdleConnections         ").append(dataSource.poolMinimumIdleConnections);
+    builder.append("\n poolMaxIdleTime                ").append(dataSource.poolMaximumIdleTime);
+    builder.append("\n poolMaxLifetime                ").append(dataSource.poolMaximumLifetime);
     builder.append("\n ---STATUS-----------------------------------------------------");
     builder.append("\n activeConnections              ").append(getActiveConnectionCount());
     builder.append("\n idleConnections                ").append(getIdleConnectionCount());
@@ -0,0 +1,118 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.pooled;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A thread parked in {@link PooledDataSource} until a connection is handed over to it, it is signalled that pool
+ * capacity became available, or its wait times out.
+ * <p>
+ * Exactly one of {@link #handOff(PooledConnection)}, {@link #signal()} and {@link #cancel()} succeeds for each
+ * waiter, so a connection can never be handed to a thread that has already given up waiting.
+ */
+final class PoolWaiter {
+
+  private static final Object SIGNALLED = new Object();
+  private static final Object CANCELLED = new Object();
+
+  private final Thread thread = Thread.currentThread();
+  private final AtomicReference<Object> outcome = new AtomicReference<>();
+
+  /**
+   * Hands a connection over to the waiting thread.
+   *
+   * @param conn
+   *          the connection to hand over
+   * @return true if the waiter accepted the connection, false if it was already signalled or cancelled
+   */
+  boolean handOff(PooledConnection conn) {
+    if (outcome.compareAndSet(null, conn)) {
+      LockSupport.unpark(thread);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Wakes the waiting thread up without a connection, so that it retries its checkout.
+   *
+   * @return true if the waiter was woken up, false if it was already served or cancelled
+   */
+  boolean signal() {
+    if (outcome.compareAndSet(null, SIGNALLED)) {
+      LockSupport.unpark(thread);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Gives up waiting.
+   *
+   * @return true if the waiter was cancelled, false if it had already been handed a connection or signalled
+   */
+  boolean cancel() {
+    return outcome.compareAndSet(null, CANCELLED);
+  }
+
+  /**
+   * Returns the connection handed over to this waiter.
+   *
+   * @return the connection, or null if none was handed over
+   */
+  PooledConnection getConnection() {
+    Object value = outcome.get();
+    return value instanceof PooledConnection ? (PooledConnection) value : null;
+  }
+
+  /**
+   * Parks the current thread until this waiter is served or the timeout elapses.
+   *
+   * @param timeToWait
+   *          the maximum time to wait in milliseconds, or zero or less to wait until served
+   * @return the connection handed over, or null if signalled or timed out
+   * @throws InterruptedException
+   *           if the thread was interrupted before being served
+   */
+  PooledConnection await(long timeToWait) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeToWait);
+    while (outcome.get() == null) {
+      if (Thread.interrupted()) {
+        if (cancel()) {
+          throw new InterruptedException();
+        }
+        // served concurrently, keep the connection and preserve the interrupt
+        thread.interrupt();
+        break;
+      }
+      if (timeToWait <= 0) {
+        LockSupport.park(this);
+        continue;
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        cancel();
+        break;
+      }
+      LockSupport.parkNanos(this, remaining);
+    }
+    return getConnection();
+  }
+
+}
@@ -20,6 +20,7 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -38,8 +39,10 @@ class PooledConnection implements InvocationHandler {
   private long checkoutTimestamp;
   private long createdTimestamp;
   private long lastUsedTimestamp;
+  private long lastValidatedTimestamp;
   private int connectionTypeCode;
-  private boolean valid;
+  private volatile boolean valid;
+  private final AtomicBoolean released = new AtomicBoolean();
 
   /**
    * Constructor for SimplePooledConnection that uses the Connection and PooledDataSource passed in.
@@ -66,6 +69,24 @@ class PooledConnection implements InvocationHandler {
     valid = false;
   }
 
+  /**
+   * Marks the real connection as closed or dropped by the pool.
+   *
+   * @return True the first time it is called, false if the real connection was already released
+   */
+  boolean release() {
+    return released.compareAndSet(false, true);
+  }
+
+  /**
+   * Checks whether the connection has been invalidated, without testing the real connection.
+   *
+   * @return True if the connection has been invalidated
+   */
+  public boolean isInvalidated() {
+    return !valid;
+  }
+
   /**
    * Method to see if the connection is usable.
    *
@@ -168,6 +189,34 @@ class PooledConnection implements InvocationHandler {
     return System.currentTimeMillis() - lastUsedTimestamp;
   }
 
+  /**
+   * Getter for the time that the connection was last validated in the background.
+   *
+   * @return - the timestamp
+   */
+  public long getLastValidatedTimestamp() {
+    return lastValidatedTimestamp;
+  }
+
+  /**
+   * Setter for the time that the connection was last validated in the background.
+   *
+   * @param lastValidatedTimestamp
+   *          - the timestamp
+   */
+  public void setLastValidatedTimestamp(long lastValidatedTimestamp) {
+    this.lastValidatedTimestamp = lastValidatedTimestamp;
+  }
+
+  /**
+   * Getter for the time since this connection was last used or validated, whichever is more recent.
+   *
+   * @return - the time since the last use or validation
+   */
+  public long getTimeElapsedSinceLastValidation() {
+    return System.currentTimeMillis() - Math.max(lastUsedTimestamp, lastValidatedTimestamp);
+  }
+
   /**
    * Getter for the age of the connection.
    *
@@ -16,23 +16,36 @@
 package org.apache.ibatis.datasource.pooled;
 
 import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.sql.DataSource;
 
+import org.apache.ibatis.datasource.DataSourceException;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
 /**
- * This is a simple, synchronous, thread-safe database connection pool.
+ * This is a simple, thread-safe database connection pool.
+ * <p>
+ * Checkouts and returns do not take a pool-wide lock: idle connections are kept in a lock-free stack and threads that
+ * find the pool exhausted queue up in arrival order, receiving returned connections directly from the returning thread.
  *
  * @author Clinton Begin
  */
@@ -41,6 +54,8 @@ public class PooledDataSource implements DataSource {
   private static final Log log = LogFactory.getLog(PooledDataSource.class);
 
   private final PoolState state = new PoolState(this);
+  private final PoolMetrics metrics = new PoolMetrics(state);
+  private final List<PoolMetricsListener> metricsListeners = new CopyOnWriteArrayList<>(Collections.singletonList(metrics));
 
   private final UnpooledDataSource dataSource;
 
@@ -53,8 +68,16 @@ public class PooledDataSource implements DataSource {
   protected String poolPingQuery = "NO PING QUERY SET";
   protected boolean poolPingEnabled;
   protected int poolPingConnectionsNotUsedFor;
+  protected int poolHousekeepingInterval;
+  protected int poolMinimumIdleConnections;
+  protected int poolMaximumIdleTime;
+  protected int poolMaximumLifetime;
+  protected int poolValidationTimeout = 5;
 
-  private int expectedConnectionTypeCode;
+  private PoolHousekeeper housekeeper;
+  private String poolJmxName;
+
+  private volatile int expectedConnectionTypeCode;
 
   public PooledDataSource() {
     dataSource = new UnpooledDataSource();
@@ -254,6 +277,98 @@ public class PooledDataSource implements DataSource {
     forceCloseAll();
   }
 
+  /**
+   * The time between two runs of the background housekeeping, which validates idle connections, evicts idle
+   * connections past {@link #setPoolMaximumIdleTime(int)} or {@link #setPoolMaximumLifetime(int)}, and opens
+   * connections up to {@link #setPoolMinimumIdleConnections(int)}. Zero or less disables housekeeping.
+   *
+   * @param milliseconds
+   *          the number of milliseconds between two runs
+   * @since 3.5.10
+   */
+  public void setPoolHousekeepingInterval(int milliseconds) {
+    this.poolHousekeepingInterval = milliseconds;
+    if (housekeeper != null) {
+      housekeeper.cancel();
+      housekeeper = null;
+    }
+    if (milliseconds > 0) {
+      housekeeper = PoolHousekeeper.start(this, milliseconds);
+    }
+  }
+
+  /**
+   * The number of idle connections the housekeeping keeps open, as long as the maximum number of active connections
+   * allows it.
+   *
+   * @param poolMinimumIdleConnections
+   *          The minimum number of idle connections
+   * @since 3.5.10
+   */
+  public void setPoolMinimumIdleConnections(int poolMinimumIdleConnections) {
+    this.poolMinimumIdleConnections = poolMinimumIdleConnections;
+  }
+
+  /**
+   * The time after which the housekeeping closes a connection that has not been used, unless this would leave fewer
+   * than the minimum number of idle connections. Zero or less keeps idle connections open.
+   *
+   * @param milliseconds
+   *          the number of milliseconds of inactivity after which a connection is closed
+   * @since 3.5.10
+   */
+  public void setPoolMaximumIdleTime(int milliseconds) {
+    this.poolMaximumIdleTime = milliseconds;
+  }
+
+  /**
+   * The time after which a connection is closed, either by the housekeeping while idle or when it is returned to the
+   * pool. Zero or less keeps connections open indefinitely.
+   *
+   * @param milliseconds
+   *          the maximum age of a connection in milliseconds
+   * @since 3.5.10
+   */
+  public void setPoolMaximumLifetime(int milliseconds) {
+    this.poolMaximumLifetime = milliseconds;
+  }
+
+  /**
+   * The timeout passed to {@link Connection#isValid(int)} when the housekeeping validates an idle connection and no
+   * ping query is enabled.
+   *
+   * @param seconds
+   *          the validation timeout in seconds
+   * @since 3.5.10
+   */
+  public void setPoolValidationTimeout(int seconds) {
+    this.poolValidationTimeout = seconds;
+  }
+
+  /**
+   * The JMX object name under which the pool metrics are registered as a {@link PoolMetricsMXBean} in the platform
+   * MBean server, e.g. {@code org.apache.ibatis:type=PooledDataSource,name=main}. Null unregisters them.
+   *
+   * @param poolJmxName
+   *          the object name
+   * @since 3.5.10
+   */
+  public void setPoolJmxName(String poolJmxName) {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      if (this.poolJmxName != null) {
+        server.unregisterMBean(new ObjectName(this.poolJmxName));
+      }
+      this.poolJmxName = null;
+      if (poolJmxName != null) {
+        server.registerMBean(metrics, new ObjectName(poolJmxName));
+        this.poolJmxName = poolJmxName;
+      }
+    } catch (JMException e) {
+      throw new DataSourceException("Error registering pool metrics as '" + poolJmxName + "'. Cause: " + e, e);
+    }
+  }
+
   public String getDriver() {
     return dataSource.getDriver();
   }
@@ -325,88 +440,204 @@ public class PooledDataSource implements DataSource {
   }
 
   /**
-   * Closes all active and idle connections in the pool.
+   * Gets the time between two runs of the background housekeeping.
+   *
+   * @return the housekeeping interval in milliseconds
+   * @since 3.5.10
    */
-  public void forceCloseAll() {
-    synchronized (state) {
-      expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
-      for (int i = state.activeConnections.size(); i > 0; i--) {
-        try {
-          PooledConnection conn = state.activeConnections.remove(i - 1);
-          conn.invalidate();
+  public int getPoolHousekeepingInterval() {
+    return poolHousekeepingInterval;
+  }
 
-          Connection realConn = conn.getRealConnection();
-          if (!realConn.getAutoCommit()) {
-            realConn.rollback();
-          }
-          realConn.close();
-        } catch (Exception e) {
-          // ignore
-        }
-      }
-      for (int i = state.idleConnections.size(); i > 0; i--) {
-        try {
-          PooledConnection conn = state.idleConnections.remove(i - 1);
-          conn.invalidate();
+  /**
+   * Gets the number of idle connections the housekeeping keeps open.
+   *
+   * @return the minimum number of idle connections
+   * @since 3.5.10
+   */
+  public int getPoolMinimumIdleConnections() {
+    return poolMinimumIdleConnections;
+  }
 
-          Connection realConn = conn.getRealConnection();
-          if (!realConn.getAutoCommit()) {
-            realConn.rollback();
-          }
-          realConn.close();
-        } catch (Exception e) {
-          // ignore
-        }
-      }
+  /**
+   * Gets the time after which an unused connection is closed by the housekeeping.
+   *
+   * @return the maximum idle time in milliseconds
+   * @since 3.5.10
+   */
+  public int getPoolMaximumIdleTime() {
+    return poolMaximumIdleTime;
+  }
+
+  /**
+   * Gets the time after which a connection is closed.
+   *
+   * @return the maximum lifetime in milliseconds
+   * @since 3.5.10
+   */
+  public int getPoolMaximumLifetime() {
+    return poolMaximumLifetime;
+  }
+
+  /**
+   * Gets the timeout used when the housekeeping validates an idle connection.
+   *
+   * @return the validation timeout in seconds
+   * @since 3.5.10
+   */
+  public int getPoolValidationTimeout() {
+    return poolValidationTimeout;
+  }
+
+  /**
+   * Gets the JMX object name of the pool metrics.
+   *
+   * @return the object name, or null if the metrics are not registered
+   * @since 3.5.10
+   */
+  public String getPoolJmxName() {
+    return poolJmxName;
+  }
+
+  /**
+   * Closes all active and idle connections in the pool.
+   */
+  public void forceCloseAll() {
+    expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
+    for (Iterator<PooledConnection> it = state.activeConnections.iterator(); it.hasNext();) {
+      PooledConnection conn = it.next();
+      it.remove();
+      state.activeCount.decrementAndGet();
+      state.connectionCount.decrementAndGet();
+      closeInvalidated(conn);
+    }
+    PooledConnection conn;
+    while ((conn = state.idleConnections.pollFirst()) != null) {
+      state.idleCount.decrementAndGet();
+      state.connectionCount.decrementAndGet();
+      closeInvalidated(conn);
     }
+    signalWaiters();
     if (log.isDebugEnabled()) {
       log.debug("PooledDataSource forcefully closed/removed all connections.");
     }
   }
 
+  private void closeInvalidated(PooledConnection conn) {
+    conn.invalidate();
+    try {
+      Connection realConn = conn.getRealConnection();
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+    } catch (Exception e) {
+      // ignore
+    }
+    closeRealConnection(conn);
+  }
+
   public PoolState getPoolState() {
     return state;
   }
 
+  /**
+   * Gets the metrics of this pool.
+   *
+   * @return the pool metrics
+   * @since 3.5.10
+   */
+  public PoolMetrics getPoolMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Adds a listener notified of the events pool metrics are built from, e.g. to publish them to a metrics library.
+   *
+   * @param listener
+   *          the listener to add
+   * @since 3.5.10
+   */
+  public void addPoolMetricsListener(PoolMetricsListener listener) {
+    metricsListeners.add(listener);
+  }
+
+  /**
+   * Removes a listener added by {@link #addPoolMetricsListener(PoolMetricsListener)}.
+   *
+   * @param listener
+   *          the listener to remove
+   * @since 3.5.10
+   */
+  public void removePoolMetricsListener(PoolMetricsListener listener) {
+    if (listener != metrics) {
+      metricsListeners.remove(listener);
+    }
+  }
+
   private int assembleConnectionTypeCode(String url, String username, String password) {
     return ("" + url + username + password).hashCode();
   }
 
   protected void pushConnection(PooledConnection conn) throws SQLException {
-
-    synchronized (state) {
-      state.activeConnections.remove(conn);
+    if (conn.isInvalidated() || !state.activeConnections.remove(conn)) {
+      // closed twice, claimed as overdue or closed by forceCloseAll()
+      if (log.isDebugEnabled()) {
+        log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
+      }
+      badConnectionDiscarded();
+      return;
+    }
+    boolean returned = false;
+    try {
       if (conn.isValid()) {
-        if (state.idleConnections.size() < poolMaximumIdleConnections && conn.getConnectionTypeCode() == expectedConnectionTypeCode) {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
-          if (!conn.getRealConnection().getAutoCommit()) {
-            conn.getRealConnection().rollback();
-          }
+        state.accumulatedCheckoutTime.add(conn.getCheckoutTime());
+        if (!conn.getRealConnection().getAutoCommit()) {
+          conn.getRealConnection().rollback();
+        }
+        if (conn.getConnectionTypeCode() == expectedConnectionTypeCode && !isExpired(conn)) {
           PooledConnection newConn = new PooledConnection(conn.getRealConnection(), this);
-          state.idleConnections.add(newConn);
           newConn.setCreatedTimestamp(conn.getCreatedTimestamp());
-          newConn.setLastUsedTimestamp(conn.getLastUsedTimestamp());
+          // idle time counts from now on
+          newConn.setLastUsedTimestamp(System.currentTimeMillis());
+          newConn.setLastValidatedTimestamp(conn.getLastValidatedTimestamp());
           conn.invalidate();
-          if (log.isDebugEnabled()) {
-            log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
-          }
-          state.notifyAll();
-        } else {
-          state.accumulatedCheckoutTime += conn.getCheckoutTime();
-          if (!conn.getRealConnection().getAutoCommit()) {
-            conn.getRealConnection().rollback();
+          if (handOff(newConn)) {
+            // the waiter takes over the active slot of this connection
+            returned = true;
+            if (log.isDebugEnabled()) {
+              log.debug("Handed over connection " + newConn.getRealHashCode() + " to a waiting thread.");
+            }
+            return;
           }
-          conn.getRealConnection().close();
-          if (log.isDebugEnabled()) {
-            log.debug("Closed connection " + conn.getRealHashCode() + ".");
+          if (reserveIdleSlot()) {
+            returned = true;
+            state.activeCount.decrementAndGet();
+            state.idleConnections.offerFirst(newConn);
+            if (log.isDebugEnabled()) {
+              log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
+            }
+            handOffIdleConnections();
+            return;
           }
-          conn.invalidate();
         }
+        conn.getRealConnection().close();
+        connectionClosed(conn);
+        if (log.isDebugEnabled()) {
+          log.debug("Closed connection " + conn.getRealHashCode() + ".");
+        }
+        conn.invalidate();
       } else {
         if (log.isDebugEnabled()) {
           log.debug("A bad connection (" + conn.getRealHashCode() + ") attempted to return to the pool, discarding connection.");
         }
-        state.badConnectionCount++;
+        closeRealConnection(conn);
+        badConnectionDiscarded();
+      }
+    } finally {
+      if (!returned) {
+        // no-op unless the rollback or the close failed
+        closeRealConnection(conn);
+        releaseActiveSlot();
       }
     }
   }
@@ -415,77 +646,62 @@ public class PooledDataSource implements DataSource {
     boolean countedWait = false;
     PooledConnection conn = null;
     long t = System.currentTimeMillis();
+    long start = System.nanoTime();
     int localBadConnectionCount = 0;
 
     while (conn == null) {
-      synchronized (state) {
-        if (!state.idleConnections.isEmpty()) {
-          // Pool has available connection
-          conn = state.idleConnections.remove(0);
-          if (log.isDebugEnabled()) {
-            log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
-          }
-        } else {
-          // Pool does not have available connection
-          if (state.activeConnections.size() < poolMaximumActiveConnections) {
-            // Can create new connection
-            conn = new PooledConnection(dataSource.getConnection(), this);
+      conn = pollIdleConnection();
+      if (conn != null) {
+        // Pool has available connection
+        if (log.isDebugEnabled()) {
+          log.debug("Checked out connection " + conn.getRealHashCode() + " from pool.");
+        }
+      } else if (reserveActiveSlot()) {
+        // Can create new connection
+        try {
+          conn = new PooledConnection(dataSource.getConnection(), this);
+        } catch (SQLException | RuntimeException e) {
+          releaseActiveSlot();
+          throw e;
+        }
+        for (PoolMetricsListener listener : metricsListeners) {
+          listener.connectionOpened();
+        }
+        if (log.isDebugEnabled()) {
+          log.debug("Created connection " + conn.getRealHashCode() + ".");
+        }
+      } else {
+        // Cannot create new connection
+        conn = claimOverdueConnection();
+        if (conn == null) {
+          // Must wait
+          try {
+            if (!countedWait) {
+              state.hadToWaitCount.increment();
+              countedWait = true;
+            }
             if (log.isDebugEnabled()) {
-              log.debug("Created connection " + conn.getRealHashCode() + ".");
+              log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
             }
-          } else {
-            // Cannot create new connection
-            PooledConnection oldestActiveConnection = state.activeConnections.get(0);
-            long longestCheckoutTime = oldestActiveConnection.getCheckoutTime();
-            if (longestCheckoutTime > poolMaximumCheckoutTime) {
-              // Can claim overdue connection
-              state.claimedOverdueConnectionCount++;
-              state.accumulatedCheckoutTimeOfOverdueConnections += longestCheckoutTime;
-              state.accumulatedCheckoutTime += longestCheckoutTime;
-              state.activeConnections.remove(oldestActiveConnection);
-              if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
-                try {
-                  oldestActiveConnection.getRealConnection().rollback();
-                } catch (SQLException e) {
-                  /*
-                     Just log a message for debug and continue to execute the following
-                     statement like nothing happened.
-                     Wrap the bad connection with a new PooledConnection, this will help
-                     to not interrupt current executing thread and give current thread a
-                     chance to join the next competition for another valid/good database
-                     connection. At the end of this loop, bad {@link @conn} will be set as null.
-                   */
-                  log.debug("Bad connection. Could not roll back");
-                }
-              }
-              conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
-              conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
-              conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
-              oldestActiveConnection.invalidate();
-              if (log.isDebugEnabled()) {
-                log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
-              }
-            } else {
-              // Must wait
-              try {
-                if (!countedWait) {
-                  state.hadToWaitCount++;
-                  countedWait = true;
-                }
-                if (log.isDebugEnabled()) {
-                  log.debug("Waiting as long as " + poolTimeToWait + " milliseconds for connection.");
-                }
-                long wt = System.currentTimeMillis();
-                state.wait(poolTimeToWait);
-                state.accumulatedWaitTime += System.currentTimeMillis() - wt;
-              } catch (InterruptedException e) {
-                break;
+            long wt = System.currentTimeMillis();
+            conn = waitForConnection();
+            long waited = System.currentTimeMillis() - wt;
+            state.accumulatedWaitTime.add(waited);
+            if (conn == null && poolTimeToWait > 0 && waited >= poolTimeToWait) {
+              for (PoolMetricsListener listener : metricsListeners) {
+                listener.waitTimedOut();
               }
             }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
           }
         }
-        if (conn != null) {
-          // ping to server and check the connection is valid or not
+      }
+      if (conn != null) {
+        // ping to server and check the connection is valid or not
+        boolean checkedOut = false;
+        try {
           if (conn.isValid()) {
             if (!conn.getRealConnection().getAutoCommit()) {
               conn.getRealConnection().rollback();
@@ -494,13 +710,19 @@ public class PooledDataSource implements DataSource {
             conn.setCheckoutTimestamp(System.currentTimeMillis());
             conn.setLastUsedTimestamp(System.currentTimeMillis());
             state.activeConnections.add(conn);
-            state.requestCount++;
-            state.accumulatedRequestTime += System.currentTimeMillis() - t;
+            state.requestCount.increment();
+            state.accumulatedRequestTime.add(System.currentTimeMillis() - t);
+            checkedOut = true;
+            long waitTime = System.nanoTime() - start;
+            for (PoolMetricsListener listener : metricsListeners) {
+              listener.connectionCheckedOut(waitTime);
+            }
           } else {
             if (log.isDebugEnabled()) {
               log.debug("A bad connection (" + conn.getRealHashCode() + ") was returned from the pool, getting another connection.");
             }
-            state.badConnectionCount++;
+            closeRealConnection(conn);
+            badConnectionDiscarded();
             localBadConnectionCount++;
             conn = null;
             if (localBadConnectionCount > (poolMaximumIdleConnections + poolMaximumLocalBadConnectionTolerance)) {
@@ -510,9 +732,16 @@ public class PooledDataSource implements DataSource {
               throw new SQLException("PooledDataSource: Could not get a good connection to the database.");
             }
           }
+        } finally {
+          if (!checkedOut) {
+            if (conn != null) {
+              // the rollback failed
+              closeRealConnection(conn);
+            }
+            releaseActiveSlot();
+          }
         }
       }
-
     }
 
     if (conn == null) {
@@ -525,6 +754,290 @@ public class PooledDataSource implements DataSource {
     return conn;
   }
 
+  private PooledConnection pollIdleConnection() {
+    PooledConnection conn = state.idleConnections.pollFirst();
+    if (conn != null) {
+      state.idleCount.decrementAndGet();
+      state.activeCount.incrementAndGet();
+    }
+    return conn;
+  }
+
+  private boolean reserveIdleSlot() {
+    for (;;) {
+      int idle = state.idleCount.get();
+      if (idle >= poolMaximumIdleConnections) {
+        return false;
+      }
+      if (state.idleCount.compareAndSet(idle, idle + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Reserves an active slot for a new connection. Idle connections count against the maximum too, so that taking one
+   * out of the pool can never exceed it.
+   */
+  private boolean reserveActiveSlot() {
+    if (!reserveConnectionSlot()) {
+      return false;
+    }
+    state.activeCount.incrementAndGet();
+    return true;
+  }
+
+  private boolean reserveConnectionSlot() {
+    for (;;) {
+      int connections = state.connectionCount.get();
+      if (connections >= poolMaximumActiveConnections) {
+        return false;
+      }
+      if (state.connectionCount.compareAndSet(connections, connections + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases the active slot of a connection that leaves the pool, or that could not be opened.
+   */
+  private void releaseActiveSlot() {
+    state.activeCount.decrementAndGet();
+    releaseConnectionSlot();
+  }
+
+  private void releaseConnectionSlot() {
+    state.connectionCount.decrementAndGet();
+    // a waiter may now open a new connection
+    signalWaiter();
+  }
+
+  private PooledConnection claimOverdueConnection() {
+    PooledConnection oldestActiveConnection = null;
+    long longestCheckoutTime = -1;
+    for (PooledConnection activeConnection : state.activeConnections) {
+      long checkoutTime = activeConnection.getCheckoutTime();
+      if (checkoutTime > longestCheckoutTime) {
+        oldestActiveConnection = activeConnection;
+        longestCheckoutTime = checkoutTime;
+      }
+    }
+    if (oldestActiveConnection == null || longestCheckoutTime <= poolMaximumCheckoutTime
+        || !state.activeConnections.remove(oldestActiveConnection)) {
+      return null;
+    }
+    // Can claim overdue connection
+    state.claimedOverdueConnectionCount.increment();
+    state.accumulatedCheckoutTimeOfOverdueConnections.add(longestCheckoutTime);
+    state.accumulatedCheckoutTime.add(longestCheckoutTime);
+    oldestActiveConnection.invalidate();
+    try {
+      if (!oldestActiveConnection.getRealConnection().getAutoCommit()) {
+        oldestActiveConnection.getRealConnection().rollback();
+      }
+    } catch (SQLException e) {
+      /*
+         Just log a message for debug and continue to execute the following
+         statement like nothing happened.
+         Wrap the bad connection with a new PooledConnection, this will help
+         to not interrupt current executing thread and give current thread a
+         chance to join the next competition for another valid/good database
+         connection. At the end of this loop, bad {@link @conn} will be set as null.
+       */
+      log.debug("Bad connection. Could not roll back");
+    }
+    PooledConnection conn = new PooledConnection(oldestActiveConnection.getRealConnection(), this);
+    conn.setCreatedTimestamp(oldestActiveConnection.getCreatedTimestamp());
+    conn.setLastUsedTimestamp(oldestActiveConnection.getLastUsedTimestamp());
+    conn.setLastValidatedTimestamp(oldestActiveConnection.getLastValidatedTimestamp());
+    if (log.isDebugEnabled()) {
+      log.debug("Claimed overdue connection " + conn.getRealHashCode() + ".");
+    }
+    return conn;
+  }
+
+  /**
+   * Waits up to poolTimeToWait for a connection to be handed over by a returning thread.
+   * <p>
+   * The waiter is queued before the pool is checked again, and returning threads update the pool before looking for
+   * waiters, so a connection or a free slot cannot go unnoticed between the caller's last check and the wait.
+   *
+   * @return the connection handed over, or null if the caller should retry its checkout
+   */
+  private PooledConnection waitForConnection() throws InterruptedException {
+    PoolWaiter waiter = new PoolWaiter();
+    state.waiters.offer(waiter);
+    if (!state.idleConnections.isEmpty() || state.connectionCount.get() < poolMaximumActiveConnections) {
+      if (waiter.cancel()) {
+        state.waiters.remove(waiter);
+        return null;
+      }
+      return waiter.getConnection();
+    }
+    PooledConnection conn = waiter.await(poolTimeToWait);
+    if (conn == null) {
+      state.waiters.remove(waiter);
+    }
+    return conn;
+  }
+
+  private boolean handOff(PooledConnection conn) {
+    PoolWaiter waiter;
+    while ((waiter = state.waiters.poll()) != null) {
+      if (waiter.handOff(conn)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void handOffIdleConnections() {
+    while (!state.waiters.isEmpty()) {
+      PooledConnection conn = pollIdleConnection();
+      if (conn == null) {
+        return;
+      }
+      if (!handOff(conn)) {
+        state.activeCount.decrementAndGet();
+        state.idleCount.incrementAndGet();
+        state.idleConnections.offerFirst(conn);
+      }
+    }
+  }
+
+  private void signalWaiter() {
+    PoolWaiter waiter;
+    while ((waiter = state.waiters.poll()) != null) {
+      if (waiter.signal()) {
+        return;
+      }
+    }
+  }
+
+  private void signalWaiters() {
+    PoolWaiter waiter;
+    while ((waiter = state.waiters.poll()) != null) {
+      waiter.signal();
+    }
+  }
+
+  private void badConnectionDiscarded() {
+    state.badConnectionCount.increment();
+    for (PoolMetricsListener listener : metricsListeners) {
+      listener.badConnectionDiscarded();
+    }
+  }
+
+  private void closeRealConnection(PooledConnection conn) {
+    if (!conn.release()) {
+      return;
+    }
+    try {
+      conn.getRealConnection().close();
+    } catch (Exception e) {
+      // ignore
+    }
+    fireConnectionClosed(conn);
+  }
+
+  private void connectionClosed(PooledConnection conn) {
+    if (conn.release()) {
+      fireConnectionClosed(conn);
+    }
+  }
+
+  private void fireConnectionClosed(PooledConnection conn) {
+    long lifetime = conn.getAge();
+    for (PoolMetricsListener listener : metricsListeners) {
+      listener.connectionClosed(lifetime);
+    }
+  }
+
+  private boolean isExpired(PooledConnection conn) {
+    return poolMaximumLifetime > 0 && conn.getAge() > poolMaximumLifetime;
+  }
+
+  /**
+   * Runs one pass of the background housekeeping. Each idle connection is taken out of the pool while it is
+   * inspected, so it can never be checked out during validation.
+   */
+  void housekeep() {
+    for (PooledConnection conn : new ArrayList<>(state.idleConnections)) {
+      if (!state.idleConnections.removeFirstOccurrence(conn)) {
+        // checked out in the meantime
+        continue;
+      }
+      state.idleCount.decrementAndGet();
+      if (isExpired(conn)) {
+        closeEvicted(conn, "reached its maximum lifetime");
+      } else if (poolMaximumIdleTime > 0 && conn.getTimeElapsedSinceLastUse() > poolMaximumIdleTime
+          && state.idleCount.get() >= poolMinimumIdleConnections) {
+        closeEvicted(conn, "exceeded its maximum idle time");
+      } else if (conn.getTimeElapsedSinceLastValidation() >= poolHousekeepingInterval && !validateIdleConnection(conn)) {
+        badConnectionDiscarded();
+        closeEvicted(conn, "failed validation");
+      } else {
+        returnIdleConnection(conn);
+      }
+    }
+    while (state.idleCount.get() < poolMinimumIdleConnections && reserveConnectionSlot()) {
+      if (!reserveIdleSlot()) {
+        releaseConnectionSlot();
+        return;
+      }
+      PooledConnection conn;
+      try {
+        conn = new PooledConnection(dataSource.getConnection(), this);
+      } catch (SQLException e) {
+        state.idleCount.decrementAndGet();
+        releaseConnectionSlot();
+        log.warn("Could not open an idle connection: " + e.getMessage());
+        return;
+      }
+      for (PoolMetricsListener listener : metricsListeners) {
+        listener.connectionOpened();
+      }
+      state.idleConnections.offerLast(conn);
+      if (log.isDebugEnabled()) {
+        log.debug("Opened idle connection " + conn.getRealHashCode() + ".");
+      }
+      handOffIdleConnections();
+    }
+  }
+
+  private boolean validateIdleConnection(PooledConnection conn) {
+    boolean result;
+    if (poolPingEnabled) {
+      result = executePingQuery(conn);
+    } else {
+      try {
+        result = conn.getRealConnection().isValid(poolValidationTimeout);
+      } catch (SQLException e) {
+        result = false;
+      }
+    }
+    if (result) {
+      conn.setLastValidatedTimestamp(System.currentTimeMillis());
+    }
+    return result;
+  }
+
+  private void returnIdleConnection(PooledConnection conn) {
+    // least recently used end of the stack, so that connections in use are not kept from expiring
+    state.idleCount.incrementAndGet();
+    state.idleConnections.offerLast(conn);
+    handOffIdleConnections();
+  }
+
+  private void closeEvicted(PooledConnection conn, String reason) {
+    closeInvalidated(conn);
+    releaseConnectionSlot();
+    if (log.isDebugEnabled()) {
+      log.debug("Closed idle connection " + conn.getRealHashCode() + " that " + reason + ".");
+    }
+  }
+
   /**
    * Method to check to see if a connection is still usable
    *
@@ -545,33 +1058,35 @@ public class PooledDataSource implements DataSource {
     }
 
     if (result && poolPingEnabled && poolPingConnectionsNotUsedFor >= 0
-        && conn.getTimeElapsedSinceLastUse() > poolPingConnectionsNotUsedFor) {
-      try {
-        if (log.isDebugEnabled()) {
-          log.debug("Testing connection " + conn.getRealHashCode() + " ...");
-        }
-        Connection realConn = conn.getRealConnection();
-        try (Statement statement = realConn.createStatement()) {
-          statement.executeQuery(poolPingQuery).close();
-        }
-        if (!realConn.getAutoCommit()) {
-          realConn.rollback();
-        }
-        result = true;
-        if (log.isDebugEnabled()) {
-          log.debug("Connection " + conn.getRealHashCode() + " is GOOD!");
-        }
-      } catch (Exception e) {
-        log.warn("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
-        try {
-          conn.getRealConnection().close();
-        } catch (Exception e2) {
-          // ignore
-        }
-        result = false;
-        if (log.isDebugEnabled()) {
-          log.debug("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
-        }
+        && conn.getTimeElapsedSinceLastValidation() > poolPingConnectionsNotUsedFor) {
+      result = executePingQuery(conn);
+    }
+    return result;
+  }
+
+  private boolean executePingQuery(PooledConnection conn) {
+    boolean result;
+    try {
+      if (log.isDebugEnabled()) {
+        log.debug("Testing connection " + conn.getRealHashCode() + " ...");
+      }
+      Connection realConn = conn.getRealConnection();
+      try (Statement statement = realConn.createStatement()) {
+        statement.executeQuery(poolPingQuery).close();
+      }
+      if (!realConn.getAutoCommit()) {
+        realConn.rollback();
+      }
+      result = true;
+      if (log.isDebugEnabled()) {
+        log.debug("Connection " + conn.getRealHashCode() + " is GOOD!");
+      }
+    } catch (Exception e) {
+      log.warn("Execution of ping query '" + poolPingQuery + "' failed: " + e.getMessage());
+      closeRealConnection(conn);
+      result = false;
+      if (log.isDebugEnabled()) {
+        log.debug("Connection " + conn.getRealHashCode() + " is BAD: " + e.getMessage());
       }
     }
     return result;
@@ -596,6 +1111,9 @@ public class PooledDataSource implements DataSource {
 
   @Override
   protected void finalize() throws Throwable {
+    if (housekeeper != null) {
+      housekeeper.cancel();
+    }
     forceCloseAll();
     super.finalize();
   }
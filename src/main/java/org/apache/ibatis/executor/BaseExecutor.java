@@ -20,12 +20,14 @@ import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOL
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -34,13 +36,16 @@ import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.PaginationDialect;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.Seek;
 import org.apache.ibatis.transaction.Transaction;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
@@ -50,6 +55,8 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
 public abstract class BaseExecutor implements Executor {
 
   private static final Log log = LogFactory.getLog(BaseExecutor.class);
+  // boxed once, the limit of most queries is out of the Integer cache
+  private static final Integer NO_ROW_LIMIT = RowBounds.NO_ROW_LIMIT;
 
   protected Transaction transaction;
   protected Executor wrapper;
@@ -132,6 +139,22 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameter);
+    BoundSql pagedBoundSql = getPagedBoundSql(ms, rowBounds, boundSql);
+    if (pagedBoundSql != null) {
+      CacheKey key = createCacheKey(ms, parameter, RowBounds.DEFAULT, pagedBoundSql);
+      return query(ms, parameter, RowBounds.DEFAULT, resultHandler, key, pagedBoundSql);
+    }
+    List<BoundSql> chunks = getQueryChunks(rowBounds, boundSql);
+    if (chunks != null) {
+      List<E> list = new ArrayList<>();
+      for (BoundSql chunk : chunks) {
+        List<E> chunkList = query(ms, parameter, rowBounds, resultHandler, createCacheKey(ms, parameter, rowBounds, chunk), chunk);
+        if (chunkList != null) {
+          list.addAll(chunkList);
+        }
+      }
+      return list;
+    }
     CacheKey key = createCacheKey(ms, parameter, rowBounds, boundSql);
     return query(ms, parameter, rowBounds, resultHandler, key, boundSql);
   }
@@ -175,6 +198,15 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameter);
+    if (getQueryChunks(rowBounds, boundSql) != null) {
+      throw new ExecutorException("The statement '" + ms.getId() + "' binds more than "
+          + configuration.getMaxParametersPerStatement()
+          + " parameters and was split into chunks, which cannot be returned as a cursor. Use a list instead.");
+    }
+    BoundSql pagedBoundSql = getPagedBoundSql(ms, rowBounds, boundSql);
+    if (pagedBoundSql != null) {
+      return doQueryCursor(ms, parameter, RowBounds.DEFAULT, pagedBoundSql);
+    }
     return doQueryCursor(ms, parameter, rowBounds, boundSql);
   }
 
@@ -196,12 +228,13 @@ public abstract class BaseExecutor implements Executor {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
-    CacheKey cacheKey = new CacheKey();
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    // the statement id, the row bounds, the sql, the parameters and the environment id
+    CacheKey cacheKey = new CacheKey(parameterMappings.size() + 5);
     cacheKey.update(ms.getId());
     cacheKey.update(rowBounds.getOffset());
-    cacheKey.update(rowBounds.getLimit());
+    cacheKey.update(rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT ? NO_ROW_LIMIT : Integer.valueOf(rowBounds.getLimit()));
     cacheKey.update(boundSql.getSql());
-    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
     // mimic DefaultParameterHandler logic
     for (ParameterMapping parameterMapping : parameterMappings) {
@@ -277,6 +310,50 @@ public abstract class BaseExecutor implements Executor {
   protected abstract <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql)
       throws SQLException;
 
+  /**
+   * Returns the query with its row bounds applied by the database, unless its rows have to be skipped. A query paged
+   * by keyset always is.
+   */
+  static BoundSql getPagedBoundSql(MappedStatement ms, RowBounds rowBounds, BoundSql boundSql) {
+    Configuration configuration = ms.getConfiguration();
+    if (rowBounds instanceof Seek) {
+      PaginationDialect dialect = configuration.getPaginationDialect();
+      if (dialect == null || ms.getStatementType() == StatementType.CALLABLE || ms.hasNestedResultMaps()) {
+        throw new ExecutorException("Cannot page " + ms.getId()
+            + " by keyset. It needs a pagination dialect, and cannot be callable nor have nested result maps.");
+      }
+      return dialect.getPagedBoundSql(configuration, ((Seek) rowBounds).getSeekBoundSql(ms, boundSql), rowBounds);
+    }
+    if (!configuration.isPhysicalPagination()
+        || rowBounds.getOffset() == RowBounds.NO_ROW_OFFSET && rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT
+        || ms.getSqlCommandType() != SqlCommandType.SELECT || ms.getStatementType() == StatementType.CALLABLE
+        || ms.hasNestedResultMaps()) {
+      return null;
+    }
+    PaginationDialect dialect = configuration.getPaginationDialect();
+    return dialect == null ? null : dialect.getPagedBoundSql(configuration, boundSql, rowBounds);
+  }
+
+  /**
+   * Returns the chunks a query was split into, unless row bounds apply to it as a whole.
+   */
+  static List<BoundSql> getQueryChunks(RowBounds rowBounds, BoundSql boundSql) {
+    if (rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT) {
+      return null;
+    }
+    return boundSql.getChunks();
+  }
+
+  /**
+   * Returns the chunks an update was split into, unless it generates keys for its parameter as a whole.
+   */
+  static List<BoundSql> getUpdateChunks(MappedStatement ms, BoundSql boundSql) {
+    if (!(ms.getKeyGenerator() instanceof NoKeyGenerator)) {
+      return null;
+    }
+    return boundSql.getChunks();
+  }
+
   protected void closeStatement(Statement statement) {
     if (statement != null) {
       try {
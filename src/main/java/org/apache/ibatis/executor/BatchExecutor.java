@@ -55,6 +55,19 @@ public class BatchExecutor extends BaseExecutor {
   public int doUpdate(MappedStatement ms, Object parameterObject) throws SQLException {
     final Configuration configuration = ms.getConfiguration();
     final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
+    final List<BoundSql> chunks = getUpdateChunks(ms, handler.getBoundSql());
+    if (chunks != null) {
+      // chunks of the same size share their SQL, so they are added to the same batch
+      for (BoundSql chunk : chunks) {
+        addBatch(ms, parameterObject, configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, chunk));
+      }
+    } else {
+      addBatch(ms, parameterObject, handler);
+    }
+    return BATCH_UPDATE_RETURN_VALUE;
+  }
+
+  private void addBatch(MappedStatement ms, Object parameterObject, StatementHandler handler) throws SQLException {
     final BoundSql boundSql = handler.getBoundSql();
     final String sql = boundSql.getSql();
     final Statement stmt;
@@ -75,7 +88,6 @@ public class BatchExecutor extends BaseExecutor {
       batchResultList.add(new BatchResult(ms, sql, parameterObject));
     }
     handler.batch(stmt);
-    return BATCH_UPDATE_RETURN_VALUE;
   }
 
   @Override
@@ -16,11 +16,13 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.decorators.BlockingCache;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -40,9 +42,31 @@ public class CachingExecutor implements Executor {
 
   private final Executor delegate;
   private final TransactionalCacheManager tcm = new TransactionalCacheManager();
+  private final SingleFlightLoader singleFlightLoader;
+  private final Long singleFlightWaitTimeout;
+  private boolean dirty;
+  private boolean loading;
 
   public CachingExecutor(Executor delegate) {
+    this(delegate, null, null);
+  }
+
+  /**
+   * Creates an executor that lets concurrent sessions missing the same cache entry share one query.
+   *
+   * @param delegate
+   *          the executor running the queries
+   * @param singleFlightLoader
+   *          the loader shared by the sessions, or {@code null} to query on every miss
+   * @param singleFlightWaitTimeout
+   *          how many milliseconds to wait for a concurrent load before querying, or {@code null} to wait until it
+   *          finishes
+   * @since 3.5.10
+   */
+  public CachingExecutor(Executor delegate, SingleFlightLoader singleFlightLoader, Long singleFlightWaitTimeout) {
     this.delegate = delegate;
+    this.singleFlightLoader = singleFlightLoader;
+    this.singleFlightWaitTimeout = singleFlightWaitTimeout;
     delegate.setExecutorWrapper(this);
   }
 
@@ -73,6 +97,7 @@ public class CachingExecutor implements Executor {
   @Override
   public int update(MappedStatement ms, Object parameterObject) throws SQLException {
     flushCacheIfRequired(ms);
+    dirty = true;
     return delegate.update(ms, parameterObject);
   }
 
@@ -85,6 +110,22 @@ public class CachingExecutor implements Executor {
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameterObject);
+    BoundSql pagedBoundSql = BaseExecutor.getPagedBoundSql(ms, rowBounds, boundSql);
+    if (pagedBoundSql != null) {
+      CacheKey key = createCacheKey(ms, parameterObject, RowBounds.DEFAULT, pagedBoundSql);
+      return query(ms, parameterObject, RowBounds.DEFAULT, resultHandler, key, pagedBoundSql);
+    }
+    List<BoundSql> chunks = BaseExecutor.getQueryChunks(rowBounds, boundSql);
+    if (chunks != null) {
+      List<E> list = new ArrayList<>();
+      for (BoundSql chunk : chunks) {
+        List<E> chunkList = query(ms, parameterObject, rowBounds, resultHandler, createCacheKey(ms, parameterObject, rowBounds, chunk), chunk);
+        if (chunkList != null) {
+          list.addAll(chunkList);
+        }
+      }
+      return list;
+    }
     CacheKey key = createCacheKey(ms, parameterObject, rowBounds, boundSql);
     return query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
   }
@@ -100,7 +141,23 @@ public class CachingExecutor implements Executor {
         @SuppressWarnings("unchecked")
         List<E> list = (List<E>) tcm.getObject(cache, key);
         if (list == null) {
-          list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+          if (isSingleFlight(cache)) {
+            list = singleFlightLoader.load(key, singleFlightWaitTimeout, () -> {
+              List<E> loaded;
+              loading = true;
+              try {
+                loaded = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+              } finally {
+                loading = false;
+              }
+              // publish right away so that the sessions waiting for this load can read it
+              cache.putObject(key, loaded);
+              return loaded;
+            }, () -> getCachedList(cache, key));
+          }
+          if (list == null) {
+            list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
+          }
           tcm.putObject(cache, key, list); // issue #578 and #116
         }
         return list;
@@ -118,6 +175,7 @@ public class CachingExecutor implements Executor {
   public void commit(boolean required) throws SQLException {
     delegate.commit(required);
     tcm.commit();
+    dirty = false;
   }
 
   @Override
@@ -128,6 +186,7 @@ public class CachingExecutor implements Executor {
       if (required) {
         tcm.rollback();
       }
+      dirty = false;
     }
   }
 
@@ -161,6 +220,18 @@ public class CachingExecutor implements Executor {
     delegate.clearLocalCache();
   }
 
+  @SuppressWarnings("unchecked")
+  private <E> List<E> getCachedList(Cache cache, CacheKey key) {
+    return (List<E>) tcm.getObject(cache, key);
+  }
+
+  private boolean isSingleFlight(Cache cache) {
+    // a session with uncommitted changes must not hand its view of the database to other sessions,
+    // nested queries of a load must not wait for other sessions (they could be waiting for this one),
+    // and a blocking cache already makes concurrent sessions wait for the first one
+    return singleFlightLoader != null && !dirty && !loading && !(cache instanceof BlockingCache);
+  }
+
   private void flushCacheIfRequired(MappedStatement ms) {
     Cache cache = ms.getCache();
     if (cache != null && ms.isFlushCacheRequired()) {
@@ -48,6 +48,15 @@ public class ReuseExecutor extends BaseExecutor {
   public int doUpdate(MappedStatement ms, Object parameter) throws SQLException {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
+    List<BoundSql> chunks = getUpdateChunks(ms, handler.getBoundSql());
+    if (chunks != null) {
+      int rows = 0;
+      for (BoundSql chunk : chunks) {
+        StatementHandler chunkHandler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, chunk);
+        rows += chunkHandler.update(prepareStatement(chunkHandler, ms.getStatementLog()));
+      }
+      return rows;
+    }
     Statement stmt = prepareStatement(handler, ms.getStatementLog());
     return handler.update(stmt);
   }
@@ -46,6 +46,17 @@ public class SimpleExecutor extends BaseExecutor {
     try {
       Configuration configuration = ms.getConfiguration();
       StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
+      List<BoundSql> chunks = getUpdateChunks(ms, handler.getBoundSql());
+      if (chunks != null) {
+        int rows = 0;
+        for (BoundSql chunk : chunks) {
+          closeStatement(stmt);
+          StatementHandler chunkHandler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, chunk);
+          stmt = prepareStatement(chunkHandler, ms.getStatementLog());
+          rows += chunkHandler.update(stmt);
+        }
+        return rows;
+      }
       stmt = prepareStatement(handler, ms.getStatementLog());
       return handler.update(stmt);
     } finally {
@@ -0,0 +1,114 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.ibatis.cache.CacheKey;
+
+/**
+ * Lets concurrent sessions that miss the same second-level cache entry share a single database query.
+ * <p>
+ * The first session to miss a key becomes its loader. Sessions that miss the same key while the load is in flight
+ * wait for it to finish and then read the entry back from the cache. A waiter that gives up after the wait timeout,
+ * finds the entry already gone or sees the load fail queries on its own, so that a failure of the loading session,
+ * such as a cancelled statement or a rolled back transaction, is not reported by sessions it does not belong to.
+ *
+ * @since 3.5.10
+ */
+public class SingleFlightLoader {
+
+  private final ConcurrentMap<CacheKey, CompletableFuture<Void>> loads = new ConcurrentHashMap<>();
+
+  /**
+   * Loads the entry for the given key, or waits for a concurrent load of it.
+   *
+   * @param <T>
+   *          the type of the entry
+   * @param key
+   *          the cache key
+   * @param waitTimeout
+   *          how many milliseconds to wait for a concurrent load, {@code null} to wait until it finishes
+   * @param loader
+   *          queries the database and publishes the result to the cache
+   * @param reader
+   *          reads the entry from the cache, returning {@code null} on a miss
+   * @return the entry, or {@code null} if it was neither loaded here nor found after a concurrent load
+   * @throws SQLException
+   *           if the query failed here
+   */
+  public <T> T load(CacheKey key, Long waitTimeout, Load<T> loader, Load<T> reader) throws SQLException {
+    CompletableFuture<Void> load = new CompletableFuture<>();
+    CompletableFuture<Void> inFlight = loads.putIfAbsent(key, load);
+    if (inFlight == null) {
+      try {
+        T result = loader.load();
+        load.complete(null);
+        return result;
+      } catch (SQLException | RuntimeException | Error e) {
+        load.completeExceptionally(e);
+        throw e;
+      } finally {
+        loads.remove(key, load);
+      }
+    }
+    return await(inFlight, waitTimeout) ? reader.load() : null;
+  }
+
+  /**
+   * Returns the number of keys being loaded.
+   *
+   * @return the number of loads in flight
+   */
+  public int getLoadsInFlight() {
+    return loads.size();
+  }
+
+  private boolean await(CompletableFuture<Void> load, Long waitTimeout) {
+    try {
+      if (waitTimeout == null) {
+        load.get();
+      } else {
+        load.get(waitTimeout, TimeUnit.MILLISECONDS);
+      }
+      return true;
+    } catch (TimeoutException | ExecutionException e) {
+      // the waiter runs its own query, which reports its own failure if any
+      return false;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ExecutorException("Interrupted while waiting for a concurrent session to load the cache entry.", e);
+    }
+  }
+
+  /**
+   * Loads a cache entry.
+   *
+   * @param <T>
+   *          the type of the entry
+   */
+  @FunctionalInterface
+  public interface Load<T> {
+    T load() throws SQLException;
+  }
+
+}
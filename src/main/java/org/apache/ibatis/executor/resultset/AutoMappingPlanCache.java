@@ -0,0 +1,202 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * Caches, across statement executions, what the mapping of a result map to a result set layout only has to work out
+ * once: the mapped and unmapped column names and the automatic mappings of the unmapped columns.
+ * <p>
+ * The entries are keyed by the result map id, the column prefix and the signature of the result set, made of the label,
+ * JDBC type and class name of each column. The unknown columns are kept with the automatic mappings, so that the
+ * {@code autoMappingUnknownColumnBehavior} still reports them on every execution.
+ * <p>
+ * The cache is cleared when a type handler is registered and by the configuration setters the mappings depend on, and
+ * when it holds {@value #MAX_ENTRIES} entries, as a dynamic SQL may return any number of result set layouts.
+ *
+ * @since 3.5.10
+ * @see org.apache.ibatis.session.Configuration#getAutoMappingPlanCache()
+ */
+public class AutoMappingPlanCache {
+
+  static final int MAX_ENTRIES = 4096;
+
+  private final ConcurrentMap<PlanKey, ColumnNames> columnNames = new ConcurrentHashMap<>();
+  private final ConcurrentMap<PlanKey, AutoMappings> autoMappings = new ConcurrentHashMap<>();
+  private final TypeHandlerRegistry typeHandlerRegistry;
+  private volatile int typeHandlerRegistrations;
+
+  /**
+   * Creates a cache of the automatic mappings resolved with a type handler registry.
+   *
+   * @param typeHandlerRegistry
+   *          the registry whose registrations clear the cache
+   */
+  public AutoMappingPlanCache(TypeHandlerRegistry typeHandlerRegistry) {
+    this.typeHandlerRegistry = typeHandlerRegistry;
+  }
+
+  /**
+   * Removes all the cached column names and automatic mappings.
+   */
+  public void clear() {
+    columnNames.clear();
+    autoMappings.clear();
+  }
+
+  /**
+   * Returns the number of cached automatic mappings, one per result map, column prefix and result set signature.
+   *
+   * @return the number of cached automatic mappings
+   */
+  public int size() {
+    clearIfStale();
+    return autoMappings.size();
+  }
+
+  ColumnNames getColumnNames(String resultMapId, String columnPrefix, String columnSignature,
+      Loader<ColumnNames> loader) throws SQLException {
+    return get(columnNames, new PlanKey(resultMapId, columnPrefix, columnSignature), loader);
+  }
+
+  AutoMappings getAutoMappings(String resultMapId, String columnPrefix, String columnSignature,
+      Loader<AutoMappings> loader) throws SQLException {
+    return get(autoMappings, new PlanKey(resultMapId, columnPrefix, columnSignature), loader);
+  }
+
+  private <T> T get(ConcurrentMap<PlanKey, T> map, PlanKey key, Loader<T> loader) throws SQLException {
+    clearIfStale();
+    T value = map.get(key);
+    if (value == null) {
+      value = loader.load();
+      if (map.size() >= MAX_ENTRIES) {
+        map.clear();
+      }
+      T existing = map.putIfAbsent(key, value);
+      if (existing != null) {
+        value = existing;
+      }
+    }
+    return value;
+  }
+
+  private void clearIfStale() {
+    final int registrations = typeHandlerRegistry.getRegistrationCount();
+    if (registrations != typeHandlerRegistrations) {
+      clear();
+      typeHandlerRegistrations = registrations;
+    }
+  }
+
+  /**
+   * Works out a value on a cache miss.
+   */
+  @FunctionalInterface
+  interface Loader<T> {
+    T load() throws SQLException;
+  }
+
+  /**
+   * The mapped and unmapped column names of a result map and a result set layout.
+   */
+  static class ColumnNames {
+
+    final List<String> mapped;
+    final List<String> unmapped;
+
+    ColumnNames(List<String> mapped, List<String> unmapped) {
+      this.mapped = mapped;
+      this.unmapped = unmapped;
+    }
+
+  }
+
+  /**
+   * The automatic mappings of the unmapped columns of a result map and a result set layout, and the unmapped columns
+   * that could not be mapped.
+   */
+  static class AutoMappings {
+
+    final List<DefaultResultSetHandler.UnMappedColumnAutoMapping> mapped;
+    final List<UnknownColumn> unknown;
+
+    AutoMappings(List<DefaultResultSetHandler.UnMappedColumnAutoMapping> mapped, List<UnknownColumn> unknown) {
+      this.mapped = mapped;
+      this.unknown = unknown;
+    }
+
+  }
+
+  /**
+   * An unmapped column without a property or a type handler, as reported to the unknown column behavior.
+   */
+  static class UnknownColumn {
+
+    final String columnName;
+    final String property;
+    final Class<?> propertyType;
+
+    UnknownColumn(String columnName, String property, Class<?> propertyType) {
+      this.columnName = columnName;
+      this.property = property;
+      this.propertyType = propertyType;
+    }
+
+  }
+
+  private static final class PlanKey {
+
+    private final String resultMapId;
+    private final String columnPrefix;
+    private final String columnSignature;
+    private final int hashCode;
+
+    PlanKey(String resultMapId, String columnPrefix, String columnSignature) {
+      this.resultMapId = resultMapId;
+      this.columnPrefix = columnPrefix;
+      this.columnSignature = columnSignature;
+      // the signature caches its own hash code, it is computed once per result set
+      this.hashCode = (resultMapId.hashCode() * 31 + Objects.hashCode(columnPrefix)) * 31 + columnSignature.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof PlanKey)) {
+        return false;
+      }
+      PlanKey other = (PlanKey) obj;
+      return hashCode == other.hashCode && resultMapId.equals(other.resultMapId)
+          && Objects.equals(columnPrefix, other.columnPrefix) && columnSignature.equals(other.columnSignature);
+    }
+
+  }
+
+}
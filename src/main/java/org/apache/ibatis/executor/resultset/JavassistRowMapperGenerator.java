@@ -0,0 +1,108 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.ClassClassPath;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtNewConstructor;
+import javassist.CtNewMethod;
+import javassist.LoaderClassPath;
+
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Generates the classes of the {@link RowMapperCompiler}. Only loaded when a row mapper is generated, so that
+ * Javassist stays optional.
+ */
+final class JavassistRowMapperGenerator {
+
+  private static final AtomicInteger counter = new AtomicInteger();
+
+  private JavassistRowMapperGenerator() {
+    // Prevent Instantiation of Static Class
+  }
+
+  static RowMapper generate(Class<?> type, List<RowMapperCompiler.Column> columns, List<Method> setters,
+      boolean callSettersOnNulls, boolean returnInstanceForEmptyRow) throws Exception {
+    ClassPool pool = new ClassPool(true);
+    pool.appendClassPath(new ClassClassPath(RowMapper.class));
+    if (type.getClassLoader() != null) {
+      pool.appendClassPath(new LoaderClassPath(type.getClassLoader()));
+    }
+    CtClass rowMapperClass = pool.makeClass(type.getName() + "$$RowMapper$$" + counter.incrementAndGet());
+    rowMapperClass.addInterface(pool.get(RowMapper.class.getName()));
+
+    StringBuilder constructor = new StringBuilder("public ").append(rowMapperClass.getSimpleName())
+        .append("(").append(TypeHandler.class.getName()).append("[] typeHandlers) {");
+    StringBuilder map = new StringBuilder("public Object map(java.sql.ResultSet rs) throws java.sql.SQLException {")
+        .append(type.getName()).append(" o = new ").append(type.getName()).append("();")
+        .append("boolean found = false; Object v;");
+    for (int i = 0; i < columns.size(); i++) {
+      rowMapperClass.addField(CtField.make("private " + TypeHandler.class.getName() + " th" + i + ";", rowMapperClass));
+      constructor.append("th").append(i).append(" = typeHandlers[").append(i).append("];");
+
+      Method setter = setters.get(i);
+      Class<?> parameterType = setter.getParameterTypes()[0];
+      map.append("v = th").append(i).append(".getResult(rs, ").append(columns.get(i).getIndex()).append(");");
+      if (parameterType.isPrimitive()) {
+        map.append("if (v != null) { found = true; o.").append(setter.getName()).append("(").append(unbox(parameterType))
+            .append("); }");
+      } else if (callSettersOnNulls) {
+        map.append("if (v != null) { found = true; } o.").append(setter.getName()).append("((")
+            .append(typeName(parameterType)).append(") v);");
+      } else {
+        map.append("if (v != null) { found = true; o.").append(setter.getName()).append("((")
+            .append(typeName(parameterType)).append(") v); }");
+      }
+    }
+    constructor.append("}");
+    map.append(returnInstanceForEmptyRow ? "return o; }" : "return found ? o : null; }");
+    rowMapperClass.addConstructor(CtNewConstructor.make(constructor.toString(), rowMapperClass));
+    rowMapperClass.addMethod(CtNewMethod.make(map.toString(), rowMapperClass));
+
+    Class<?> generated = rowMapperClass.toClass(type);
+    rowMapperClass.detach();
+    TypeHandler<?>[] typeHandlers = new TypeHandler<?>[columns.size()];
+    for (int i = 0; i < typeHandlers.length; i++) {
+      typeHandlers[i] = columns.get(i).getTypeHandler();
+    }
+    return (RowMapper) generated.getConstructor(TypeHandler[].class).newInstance((Object) typeHandlers);
+  }
+
+  private static String unbox(Class<?> primitiveType) {
+    String wrapper;
+    if (primitiveType == int.class) {
+      wrapper = "Integer";
+    } else if (primitiveType == char.class) {
+      wrapper = "Character";
+    } else {
+      String name = primitiveType.getName();
+      wrapper = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+    return "((java.lang." + wrapper + ") v)." + primitiveType.getName() + "Value()";
+  }
+
+  private static String typeName(Class<?> type) {
+    return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+  }
+
+}
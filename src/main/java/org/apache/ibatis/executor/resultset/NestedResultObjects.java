@@ -0,0 +1,196 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.executor.ExecutorException;
+
+/**
+ * The objects mapped from the rows of a nested result map by their {@link RowKey}, so that the following rows of the
+ * same objects are merged into them.
+ * <p>
+ * When the rows are ordered by parent, the objects of a parent are released as soon as the rows of the next parent
+ * start, which bounds the memory to the object graph of one parent. When the order is assumed rather than declared
+ * with {@code resultOrdered}, the completed parent keys are kept, and a parent that shows up again after other parents
+ * fails the statement rather than being mapped twice. The keys made of a single integral value are kept as their
+ * 64-bit hash, which tells them apart exactly, and the other keys as they are.
+ *
+ * @since 3.5.10
+ * @see org.apache.ibatis.session.Configuration#isAutoResultOrdered()
+ */
+class NestedResultObjects {
+
+  private final Map<RowKey, Object> objects = new HashMap<>();
+  private final String statementId;
+  private final CompletedParents completedParents;
+  private RowKey parentKey;
+
+  /**
+   * Creates the nested result objects of a statement.
+   *
+   * @param statementId
+   *          the id of the mapped statement
+   * @param verifyOrder
+   *          whether a parent showing up again after other parents fails the statement
+   */
+  NestedResultObjects(String statementId, boolean verifyOrder) {
+    this.statementId = statementId;
+    this.completedParents = verifyOrder ? new CompletedParents() : null;
+  }
+
+  Object get(RowKey key) {
+    return objects.get(key);
+  }
+
+  void put(RowKey key, Object value) {
+    objects.put(key, value);
+  }
+
+  /**
+   * Starts the rows of a parent, releasing the objects of the previous parent.
+   *
+   * @param key
+   *          the key of the parent
+   */
+  void startParent(RowKey key) {
+    if (completedParents != null) {
+      if (parentKey != null && parentKey != RowKey.NULL_ROW_KEY) {
+        completedParents.add(parentKey);
+      }
+      if (key != RowKey.NULL_ROW_KEY && completedParents.contains(key)) {
+        throw new ExecutorException("The rows of " + key + " returned by '" + statementId
+            + "' follow the rows of other parents, so they cannot be merged into an object that is already complete. "
+            + "Order the statement by the id columns of its result map or disable the autoResultOrdered setting.");
+      }
+    }
+    objects.clear();
+    parentKey = key;
+  }
+
+  /**
+   * Releases all the objects and parent keys, at the end of a result set.
+   */
+  void clear() {
+    objects.clear();
+    if (completedParents != null) {
+      completedParents.clear();
+    }
+    parentKey = null;
+  }
+
+  /**
+   * The keys of the completed parents.
+   */
+  private static final class CompletedParents {
+
+    private final LongSet hashes = new LongSet();
+    private final Set<RowKey> keys = new HashSet<>();
+
+    boolean contains(RowKey key) {
+      return key.isHashExact() ? hashes.contains(key.longHash()) : keys.contains(key);
+    }
+
+    void add(RowKey key) {
+      if (key.isHashExact()) {
+        hashes.add(key.longHash());
+      } else {
+        keys.add(key);
+      }
+    }
+
+    void clear() {
+      hashes.clear();
+      keys.clear();
+    }
+
+  }
+
+  /**
+   * An open addressing set of 64-bit fingerprints.
+   */
+  private static final class LongSet {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] table = new long[INITIAL_CAPACITY];
+    private int size;
+    private boolean containsZero;
+
+    boolean contains(long value) {
+      if (value == 0L) {
+        return containsZero;
+      }
+      final int mask = table.length - 1;
+      for (int i = index(value, mask); table[i] != 0L; i = (i + 1) & mask) {
+        if (table[i] == value) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    void add(long value) {
+      if (value == 0L) {
+        containsZero = true;
+        return;
+      }
+      final int mask = table.length - 1;
+      int i = index(value, mask);
+      while (table[i] != 0L) {
+        if (table[i] == value) {
+          return;
+        }
+        i = (i + 1) & mask;
+      }
+      table[i] = value;
+      if (++size > table.length >>> 1) {
+        resize();
+      }
+    }
+
+    void clear() {
+      table = new long[INITIAL_CAPACITY];
+      size = 0;
+      containsZero = false;
+    }
+
+    private void resize() {
+      final long[] oldTable = table;
+      table = new long[oldTable.length << 1];
+      final int mask = table.length - 1;
+      for (long value : oldTable) {
+        if (value != 0L) {
+          int i = index(value, mask);
+          while (table[i] != 0L) {
+            i = (i + 1) & mask;
+          }
+          table[i] = value;
+        }
+      }
+    }
+
+    private static int index(long value, int mask) {
+      // the fingerprints are already mixed
+      return (int) value & mask;
+    }
+
+  }
+
+}
@@ -29,6 +29,7 @@ import java.util.Set;
 
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.ObjectTypeHandler;
@@ -43,16 +44,22 @@ public class ResultSetWrapper {
 
   private final ResultSet resultSet;
   private final TypeHandlerRegistry typeHandlerRegistry;
+  private final AutoMappingPlanCache autoMappingPlanCache;
   private final List<String> columnNames = new ArrayList<>();
   private final List<String> classNames = new ArrayList<>();
   private final List<JdbcType> jdbcTypes = new ArrayList<>();
+  private final Map<String, Integer> columnIndexes = new HashMap<>();
   private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
   private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
   private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
+  private final Map<String, int[]> propertyColumnIndexesMap = new HashMap<>();
+  private final Map<String, int[]> idColumnIndexesMap = new HashMap<>();
+  private String columnSignature;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
     super();
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+    this.autoMappingPlanCache = configuration.getAutoMappingPlanCache();
     this.resultSet = rs;
     final ResultSetMetaData metaData = rs.getMetaData();
     final int columnCount = metaData.getColumnCount();
@@ -60,6 +67,11 @@ public class ResultSetWrapper {
       columnNames.add(configuration.isUseColumnLabel() ? metaData.getColumnLabel(i) : metaData.getColumnName(i));
       jdbcTypes.add(JdbcType.forCode(metaData.getColumnType(i)));
       classNames.add(metaData.getColumnClassName(i));
+      final String columnName = columnNames.get(i - 1);
+      if (columnName != null) {
+        // like the column label lookups of the driver, the first of the columns with the same name wins
+        columnIndexes.putIfAbsent(columnName.toUpperCase(Locale.ENGLISH), i);
+      }
     }
   }
 
@@ -88,6 +100,101 @@ public class ResultSetWrapper {
     return null;
   }
 
+  /**
+   * Gets the signature of the result set, made of the label, JDBC type and class name of each column, which identifies
+   * the result sets that can share the same mappings.
+   *
+   * @return the column signature
+   */
+  public String getColumnSignature() {
+    if (columnSignature == null) {
+      final StringBuilder signature = new StringBuilder();
+      for (int i = 0; i < columnNames.size(); i++) {
+        signature.append(columnNames.get(i)).append('/').append(jdbcTypes.get(i)).append('/').append(classNames.get(i))
+            .append(':');
+      }
+      columnSignature = signature.toString();
+    }
+    return columnSignature;
+  }
+
+  /**
+   * Gets the index of a column, resolved once per result set so that the values can be read by index instead of having
+   * the driver look up the column label on every row.
+   *
+   * @param columnName
+   *          the column name, compared case insensitively
+   * @return the index of the column starting at 1, or 0 if the result set has no such column
+   */
+  public int getColumnIndex(String columnName) {
+    Integer columnIndex = columnIndexes.get(columnName.toUpperCase(Locale.ENGLISH));
+    return columnIndex == null ? 0 : columnIndex;
+  }
+
+  /**
+   * Gets the indexes of the columns of the property mappings of a result map.
+   *
+   * @param resultMap
+   *          the result map
+   * @param columnPrefix
+   *          the column prefix
+   * @return the column index of each property mapping, or 0 for the mappings without a mapped column
+   * @throws SQLException
+   *           if the mapped column names could not be loaded
+   * @see ResultMap#getPropertyResultMappings()
+   */
+  public int[] getPropertyColumnIndexes(ResultMap resultMap, String columnPrefix) throws SQLException {
+    int[] indexes = propertyColumnIndexesMap.get(getMapKey(resultMap, columnPrefix));
+    if (indexes == null) {
+      indexes = getMappedColumnIndexes(resultMap, columnPrefix, resultMap.getPropertyResultMappings());
+      propertyColumnIndexesMap.put(getMapKey(resultMap, columnPrefix), indexes);
+    }
+    return indexes;
+  }
+
+  /**
+   * Gets the indexes of the columns of the id mappings of a result map.
+   *
+   * @param resultMap
+   *          the result map
+   * @param columnPrefix
+   *          the column prefix
+   * @return the column index of each id mapping, or 0 for the mappings without a mapped column
+   * @throws SQLException
+   *           if the mapped column names could not be loaded
+   * @see ResultMap#getIdResultMappings()
+   */
+  public int[] getIdColumnIndexes(ResultMap resultMap, String columnPrefix) throws SQLException {
+    int[] indexes = idColumnIndexesMap.get(getMapKey(resultMap, columnPrefix));
+    if (indexes == null) {
+      indexes = getMappedColumnIndexes(resultMap, columnPrefix, resultMap.getIdResultMappings());
+      idColumnIndexesMap.put(getMapKey(resultMap, columnPrefix), indexes);
+    }
+    return indexes;
+  }
+
+  private int[] getMappedColumnIndexes(ResultMap resultMap, String columnPrefix, List<ResultMapping> resultMappings)
+      throws SQLException {
+    final List<String> mappedColumnNames = getMappedColumnNames(resultMap, columnPrefix);
+    final int[] indexes = new int[resultMappings.size()];
+    for (int i = 0; i < indexes.length; i++) {
+      final ResultMapping resultMapping = resultMappings.get(i);
+      String column = resultMapping.getColumn();
+      if (column == null || resultMapping.getNestedResultMapId() != null) {
+        // the user added a column attribute to a nested result map, it is not read
+        continue;
+      }
+      if (columnPrefix != null && !columnPrefix.isEmpty() && !column.isEmpty()) {
+        column = columnPrefix + column;
+      }
+      final String upperColumn = column.toUpperCase(Locale.ENGLISH);
+      if (mappedColumnNames.contains(upperColumn)) {
+        indexes[i] = columnIndexes.get(upperColumn);
+      }
+    }
+    return indexes;
+  }
+
   /**
    * Gets the type handler to use when reading the result set.
    * Tries to get from the TypeHandlerRegistry by searching for the property type.
@@ -145,6 +252,13 @@ public class ResultSetWrapper {
   }
 
   private void loadMappedAndUnmappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
+    final AutoMappingPlanCache.ColumnNames names = autoMappingPlanCache.getColumnNames(resultMap.getId(), columnPrefix,
+        getColumnSignature(), () -> findMappedAndUnmappedColumnNames(resultMap, columnPrefix));
+    mappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), names.mapped);
+    unMappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), names.unmapped);
+  }
+
+  private AutoMappingPlanCache.ColumnNames findMappedAndUnmappedColumnNames(ResultMap resultMap, String columnPrefix) {
     List<String> mappedColumnNames = new ArrayList<>();
     List<String> unmappedColumnNames = new ArrayList<>();
     final String upperColumnPrefix = columnPrefix == null ? null : columnPrefix.toUpperCase(Locale.ENGLISH);
@@ -157,8 +271,9 @@ public class ResultSetWrapper {
         unmappedColumnNames.add(columnName);
       }
     }
-    mappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), mappedColumnNames);
-    unMappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), unmappedColumnNames);
+    // shared by the result sets with the same signature
+    return new AutoMappingPlanCache.ColumnNames(Collections.unmodifiableList(mappedColumnNames),
+        Collections.unmodifiableList(unmappedColumnNames));
   }
 
   public List<String> getMappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
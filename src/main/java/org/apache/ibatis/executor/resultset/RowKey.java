@@ -0,0 +1,140 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import org.apache.ibatis.reflection.ArrayUtil;
+import org.apache.ibatis.util.HashUtil;
+
+/**
+ * The identity of the object a row of a nested result map is mapped to: the result map, the column prefix and the
+ * values of its key columns, one slot per key column, plus the key of the parent object for a nested object.
+ * <p>
+ * Unlike a {@link org.apache.ibatis.cache.CacheKey}, the column names are implied by the result map and the slots,
+ * the key of a nested object references the key of its parent instead of copying it, and a 64-bit hash is computed
+ * once. The hash is injective for a single integral key column, which makes it a compact fingerprint of a parent key;
+ * other keys may share their hash with another key.
+ *
+ * @since 3.5.10
+ */
+final class RowKey {
+
+  static final RowKey NULL_ROW_KEY = new RowKey(null, null, null, null, 0L);
+
+  private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+  private final String resultMapId;
+  private final String columnPrefix;
+  private final Object[] values;
+  private final RowKey parent;
+  private final long hash;
+
+  /**
+   * Creates the key of a row.
+   *
+   * @param resultMapId
+   *          the id of the result map
+   * @param columnPrefix
+   *          the column prefix
+   * @param values
+   *          the values of the key columns, {@code null} for the columns without a value
+   */
+  RowKey(String resultMapId, String columnPrefix, Object[] values) {
+    this(resultMapId, columnPrefix, values, null, hash(resultMapId, columnPrefix, values));
+  }
+
+  private RowKey(String resultMapId, String columnPrefix, Object[] values, RowKey parent, long hash) {
+    this.resultMapId = resultMapId;
+    this.columnPrefix = columnPrefix;
+    this.values = values;
+    this.parent = parent;
+    this.hash = hash;
+  }
+
+  /**
+   * Combines the key of a nested object with the key of its parent object.
+   *
+   * @param parentKey
+   *          the key of the parent object
+   * @return the combined key, or {@link #NULL_ROW_KEY} if either key is the null key
+   */
+  RowKey withParent(RowKey parentKey) {
+    if (this == NULL_ROW_KEY || parentKey == NULL_ROW_KEY) {
+      return NULL_ROW_KEY;
+    }
+    return new RowKey(resultMapId, columnPrefix, values, parentKey, HashUtil.mix(hash * MULTIPLIER + parentKey.hash));
+  }
+
+  long longHash() {
+    return hash;
+  }
+
+  /**
+   * Returns whether the 64-bit hash tells this key apart from any other key of the same result map and column prefix,
+   * which is the case for the key of a parent object made of a single integral value.
+   */
+  boolean isHashExact() {
+    return parent == null && values != null && values.length == 1 && (values[0] instanceof Long
+        || values[0] instanceof Integer || values[0] instanceof Short || values[0] instanceof Byte);
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (hash ^ (hash >>> 32));
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof RowKey)) {
+      return false;
+    }
+    final RowKey other = (RowKey) obj;
+    if (hash != other.hash || this == NULL_ROW_KEY || other == NULL_ROW_KEY || !resultMapId.equals(other.resultMapId)
+        || !Objects.equals(columnPrefix, other.columnPrefix) || values.length != other.values.length
+        || !Objects.equals(parent, other.parent)) {
+      return false;
+    }
+    for (int i = 0; i < values.length; i++) {
+      if (!ArrayUtil.equals(values[i], other.values[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    if (this == NULL_ROW_KEY) {
+      return "RowKey[null]";
+    }
+    return "RowKey[" + resultMapId + ":" + columnPrefix + ":" + Arrays.deepToString(values)
+        + (parent == null ? "" : " < " + parent) + "]";
+  }
+
+  private static long hash(String resultMapId, String columnPrefix, Object[] values) {
+    long h = resultMapId.hashCode() * MULTIPLIER + Objects.hashCode(columnPrefix);
+    for (Object value : values) {
+      h = h * MULTIPLIER + HashUtil.longHashCode(value);
+    }
+    return HashUtil.mix(h);
+  }
+
+}
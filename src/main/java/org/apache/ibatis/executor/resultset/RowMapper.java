@@ -0,0 +1,39 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps the current row of a result set to an object, as generated by the {@link RowMapperCompiler}.
+ *
+ * @since 3.5.10
+ */
+public interface RowMapper {
+
+  /**
+   * Maps the current row.
+   *
+   * @param rs
+   *          the result set, positioned on the row
+   * @return the object, or {@code null} if the row has no value and empty rows do not return an instance
+   * @throws SQLException
+   *           if a column could not be read
+   */
+  Object map(ResultSet rs) throws SQLException;
+
+}
@@ -0,0 +1,282 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.property.PropertyNamer;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Generates and caches the {@link RowMapper} of each simple result map and result set layout, which reads the columns
+ * by index with their resolved type handlers and calls the constructor and setters of the result type directly instead
+ * of going through the object factory and a meta object.
+ * <p>
+ * The classes are generated with Javassist. A result type that is not a public class with a public no-argument
+ * constructor and public setters for its mapped properties, or a missing Javassist, leaves the result map to the
+ * reflective mapping.
+ * <p>
+ * Generated classes cannot be unloaded, so one class is generated per result type and mapped column layout, shared by
+ * all the result set signatures that map the same columns to the same properties, and no more than
+ * {@value #MAX_GENERATED_CLASSES} classes are generated; the further layouts keep to the reflective mapping. The
+ * lookup of a row mapper by its key is dropped and rebuilt from the layouts when it grows past
+ * {@value #MAX_KEYS} keys.
+ *
+ * @since 3.5.10
+ * @see org.apache.ibatis.session.Configuration#isCompiledRowMappers()
+ */
+public class RowMapperCompiler {
+
+  private static final Log log = LogFactory.getLog(RowMapperCompiler.class);
+
+  static final int MAX_KEYS = 4096;
+  static final int MAX_GENERATED_CLASSES = 1024;
+
+  private final ConcurrentMap<String, Optional<RowMapper>> rowMappers = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Layout, Optional<RowMapper>> layouts = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the row mapper for the given key, generating it on the first call.
+   *
+   * @param key
+   *          the result map and result set layout, and anything else the mapping depends on
+   * @param type
+   *          the result type
+   * @param reflectorFactory
+   *          the reflector factory
+   * @param columns
+   *          the columns to map, read on the first call only
+   * @param callSettersOnNulls
+   *          whether setters are called with null values
+   * @param returnInstanceForEmptyRow
+   *          whether a row without values returns an instance
+   * @return the row mapper, or {@code null} if the result type cannot be mapped by a generated class
+   * @throws SQLException
+   *           if the columns could not be read
+   */
+  public RowMapper getRowMapper(String key, Class<?> type, ReflectorFactory reflectorFactory, ColumnSource columns,
+      boolean callSettersOnNulls, boolean returnInstanceForEmptyRow) throws SQLException {
+    Optional<RowMapper> rowMapper = rowMappers.get(key);
+    if (rowMapper == null) {
+      rowMapper = getRowMapper(new Layout(type, columns.get(), callSettersOnNulls, returnInstanceForEmptyRow),
+          reflectorFactory);
+      if (rowMappers.size() >= MAX_KEYS) {
+        rowMappers.clear();
+      }
+      Optional<RowMapper> existing = rowMappers.putIfAbsent(key, rowMapper);
+      if (existing != null) {
+        rowMapper = existing;
+      }
+    }
+    return rowMapper.orElse(null);
+  }
+
+  /**
+   * Returns the number of classes generated so far.
+   *
+   * @return the number of generated row mapper classes
+   */
+  public int getGeneratedClassCount() {
+    return (int) layouts.values().stream().filter(Optional::isPresent).count();
+  }
+
+  private Optional<RowMapper> getRowMapper(Layout layout, ReflectorFactory reflectorFactory) {
+    Optional<RowMapper> rowMapper = layouts.get(layout);
+    if (rowMapper == null) {
+      if (layouts.size() >= MAX_GENERATED_CLASSES) {
+        if (log.isDebugEnabled()) {
+          log.debug("Not generating a row mapper for " + layout.type.getName() + ", the limit of "
+              + MAX_GENERATED_CLASSES + " column layouts has been reached.");
+        }
+        return Optional.empty();
+      }
+      rowMapper = Optional.ofNullable(compile(layout.type, reflectorFactory, layout.columns, layout.callSettersOnNulls,
+          layout.returnInstanceForEmptyRow));
+      Optional<RowMapper> existing = layouts.putIfAbsent(layout, rowMapper);
+      if (existing != null) {
+        rowMapper = existing;
+      }
+    }
+    return rowMapper;
+  }
+
+  private RowMapper compile(Class<?> type, ReflectorFactory reflectorFactory, List<Column> columns,
+      boolean callSettersOnNulls, boolean returnInstanceForEmptyRow) {
+    if (!isInstantiable(type)) {
+      return null;
+    }
+    MetaClass metaClass = MetaClass.forClass(type, reflectorFactory);
+    List<Method> setters = new ArrayList<>(columns.size());
+    for (Column column : columns) {
+      Method setter = findSetter(type, metaClass, column.property);
+      if (setter == null) {
+        return null;
+      }
+      setters.add(setter);
+    }
+    try {
+      return JavassistRowMapperGenerator.generate(type, columns, setters, callSettersOnNulls, returnInstanceForEmptyRow);
+    } catch (Throwable e) {
+      // the result type may be in a package or a class loader the generated class cannot be defined in
+      if (log.isDebugEnabled()) {
+        log.debug("Could not generate a row mapper for " + type.getName() + ". Cause: " + e);
+      }
+      return null;
+    }
+  }
+
+  private boolean isInstantiable(Class<?> type) {
+    if (!Modifier.isPublic(type.getModifiers()) || Modifier.isAbstract(type.getModifiers()) || type.isInterface()
+        || type.isArray() || type.isPrimitive() || Map.class.isAssignableFrom(type)
+        || Collection.class.isAssignableFrom(type)
+        || (type.getEnclosingClass() != null && !Modifier.isStatic(type.getModifiers()))) {
+      return false;
+    }
+    try {
+      return Modifier.isPublic(type.getConstructor().getModifiers());
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private Method findSetter(Class<?> type, MetaClass metaClass, String property) {
+    if (property.indexOf('.') >= 0 || property.indexOf('[') >= 0 || !metaClass.hasSetter(property)) {
+      return null;
+    }
+    Class<?> setterType = metaClass.getSetterType(property);
+    Method found = null;
+    for (Method method : type.getMethods()) {
+      if (method.getParameterCount() == 1 && PropertyNamer.isSetter(method.getName())
+          && property.equals(PropertyNamer.methodToProperty(method.getName()))) {
+        if (method.getParameterTypes()[0].equals(setterType)) {
+          return method;
+        }
+        found = found == null ? method : null;
+      }
+    }
+    return found;
+  }
+
+  /**
+   * A column the generated row mapper sets a property from.
+   */
+  public static class Column {
+
+    private final int index;
+    private final String property;
+    private final TypeHandler<?> typeHandler;
+
+    public Column(int index, String property, TypeHandler<?> typeHandler) {
+      this.index = index;
+      this.property = property;
+      this.typeHandler = typeHandler;
+    }
+
+    public int getIndex() {
+      return index;
+    }
+
+    public String getProperty() {
+      return property;
+    }
+
+    public TypeHandler<?> getTypeHandler() {
+      return typeHandler;
+    }
+
+  }
+
+  /**
+   * What a generated row mapper depends on: the result type, the columns it reads, the properties it sets and how.
+   */
+  private static final class Layout {
+
+    private final Class<?> type;
+    private final List<Column> columns;
+    private final boolean callSettersOnNulls;
+    private final boolean returnInstanceForEmptyRow;
+    private final int hashCode;
+
+    private Layout(Class<?> type, List<Column> columns, boolean callSettersOnNulls, boolean returnInstanceForEmptyRow) {
+      this.type = type;
+      this.columns = columns;
+      this.callSettersOnNulls = callSettersOnNulls;
+      this.returnInstanceForEmptyRow = returnInstanceForEmptyRow;
+      int hash = type.hashCode();
+      for (Column column : columns) {
+        hash = 31 * hash + column.index;
+        hash = 31 * hash + Objects.hashCode(column.property);
+        hash = 31 * hash + System.identityHashCode(column.typeHandler);
+      }
+      hash = 31 * hash + Boolean.hashCode(callSettersOnNulls);
+      this.hashCode = 31 * hash + Boolean.hashCode(returnInstanceForEmptyRow);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Layout)) {
+        return false;
+      }
+      Layout other = (Layout) obj;
+      if (hashCode != other.hashCode || type != other.type || callSettersOnNulls != other.callSettersOnNulls
+          || returnInstanceForEmptyRow != other.returnInstanceForEmptyRow || columns.size() != other.columns.size()) {
+        return false;
+      }
+      for (int i = 0; i < columns.size(); i++) {
+        Column column = columns.get(i);
+        Column otherColumn = other.columns.get(i);
+        // type handlers are shared instances, the generated class holds them
+        if (column.index != otherColumn.index || !Objects.equals(column.property, otherColumn.property)
+            || column.typeHandler != otherColumn.typeHandler) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+  }
+
+  /**
+   * Reads the columns to map.
+   */
+  @FunctionalInterface
+  public interface ColumnSource {
+    List<Column> get() throws SQLException;
+  }
+
+}
@@ -40,6 +40,7 @@ public class BoundSql {
   private final Object parameterObject;
   private final Map<String, Object> additionalParameters;
   private final MetaObject metaParameters;
+  private List<BoundSql> chunks;
 
   public BoundSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings, Object parameterObject) {
     this.sql = sql;
@@ -49,6 +50,16 @@ public class BoundSql {
     this.metaParameters = configuration.newMetaObject(additionalParameters);
   }
 
+  private BoundSql(BoundSql boundSql, String sql, List<ParameterMapping> parameterMappings) {
+    this.sql = sql;
+    this.parameterMappings = parameterMappings;
+    this.parameterObject = boundSql.parameterObject;
+    this.additionalParameters = new HashMap<>(boundSql.additionalParameters);
+    MetaObject meta = boundSql.metaParameters;
+    this.metaParameters = MetaObject.forObject(additionalParameters, meta.getObjectFactory(), meta.getObjectWrapperFactory(),
+        meta.getReflectorFactory());
+  }
+
   public String getSql() {
     return sql;
   }
@@ -73,4 +84,37 @@ public class BoundSql {
   public Object getAdditionalParameter(String name) {
     return metaParameters.getValue(name);
   }
+
+  /**
+   * Returns a copy of this statement that runs another SQL with the same parameter object and a copy of the same
+   * additional parameters.
+   *
+   * @param sql
+   *          the SQL to run
+   * @param parameterMappings
+   *          the parameter mappings of the SQL
+   * @return the copy
+   * @since 3.5.10
+   */
+  public BoundSql withSql(String sql, List<ParameterMapping> parameterMappings) {
+    return new BoundSql(this, sql, parameterMappings);
+  }
+
+  /**
+   * Returns the statements this one was split into because it binds more parameters than allowed.
+   *
+   * @return the chunks to run instead of this statement, or {@code null} if it was not split
+   * @since 3.5.10
+   * @see Configuration#getMaxParametersPerStatement()
+   */
+  public List<BoundSql> getChunks() {
+    return chunks;
+  }
+
+  /**
+   * @since 3.5.10
+   */
+  public void setChunks(List<BoundSql> chunks) {
+    this.chunks = chunks;
+  }
 }
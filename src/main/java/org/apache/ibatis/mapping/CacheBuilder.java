@@ -24,12 +24,16 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.ThreadSafeCache;
 import org.apache.ibatis.cache.decorators.BlockingCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
@@ -42,6 +46,7 @@ public class CacheBuilder {
   private Class<? extends Cache> implementation;
   private final List<Class<? extends Cache>> decorators;
   private Integer size;
+  private Long maxWeight;
   private Long clearInterval;
   private boolean readWrite;
   private Properties properties;
@@ -69,6 +74,11 @@ public class CacheBuilder {
     return this;
   }
 
+  public CacheBuilder maxWeight(Long maxWeight) {
+    this.maxWeight = maxWeight;
+    return this;
+  }
+
   public CacheBuilder clearInterval(Long clearInterval) {
     this.clearInterval = clearInterval;
     return this;
@@ -94,18 +104,37 @@ public class CacheBuilder {
     Cache cache = newBaseCacheInstance(implementation, id);
     setCacheProperties(cache);
     // issue #352, do not apply decorators to custom caches
-    if (PerpetualCache.class.equals(cache.getClass())) {
+    if (isBuiltInBaseCache(cache)) {
+      // the weighted cache is only as thread-safe as the base cache it decorates
+      boolean threadSafe = cache instanceof ThreadSafeCache;
+      WeightedCache weightedCache = null;
+      if (maxWeight != null) {
+        weightedCache = new WeightedCache(cache);
+        weightedCache.setMaxWeight(maxWeight);
+        cache = weightedCache;
+      }
       for (Class<? extends Cache> decorator : decorators) {
         cache = newCacheDecoratorInstance(decorator, cache);
         setCacheProperties(cache);
+        threadSafe &= cache instanceof ThreadSafeCache;
+      }
+      if (weightedCache != null && cache != weightedCache) {
+        // evictions by weight must also drop the keys tracked by the eviction policy
+        weightedCache.setEvictionCache(cache);
       }
-      cache = setStandardDecorators(cache);
+      cache = setStandardDecorators(cache, threadSafe);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       cache = new LoggingCache(cache);
     }
     return cache;
   }
 
+  private boolean isBuiltInBaseCache(Cache cache) {
+    Class<?> type = cache.getClass();
+    return PerpetualCache.class.equals(type) || ConcurrentPerpetualCache.class.equals(type)
+        || OffHeapCache.class.equals(type);
+  }
+
   private void setDefaultImplementations() {
     if (implementation == null) {
       implementation = PerpetualCache.class;
@@ -115,7 +144,7 @@ public class CacheBuilder {
     }
   }
 
-  private Cache setStandardDecorators(Cache cache) {
+  private Cache setStandardDecorators(Cache cache, boolean threadSafe) {
     try {
       MetaObject metaCache = SystemMetaObject.forObject(cache);
       if (size != null && metaCache.hasSetter("size")) {
@@ -127,9 +156,12 @@ public class CacheBuilder {
       }
       if (readWrite) {
         cache = new SerializedCache(cache);
+        setCacheProperties(cache);
       }
       cache = new LoggingCache(cache);
-      cache = new SynchronizedCache(cache);
+      if (!threadSafe) {
+        cache = new SynchronizedCache(cache);
+      }
       if (blocking) {
         cache = new BlockingCache(cache);
       }
@@ -0,0 +1,53 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Static SQL text whose {@code #{...}} placeholders are parsed once, when the statement is built.
+ * <p>
+ * Applied to a context created for compiled dynamic SQL, it appends the text with each placeholder already replaced
+ * by {@code ?}. Any other context gets the original text.
+ *
+ * @since 3.5.10
+ */
+public class CompiledTextSqlNode implements SqlNode {
+  private final String text;
+  private final String sql;
+  private final List<ParameterPlaceholder> placeholders;
+
+  public CompiledTextSqlNode(String text) {
+    List<ParameterPlaceholder> parsed = new ArrayList<>();
+    this.text = text;
+    this.sql = ParameterPlaceholder.parse(text, parsed, true);
+    this.placeholders = Collections.unmodifiableList(parsed);
+  }
+
+  @Override
+  public boolean apply(DynamicContext context) {
+    if (context.isCompiled()) {
+      context.addParameterPlaceholders(placeholders);
+      context.appendSql(sql);
+    } else {
+      context.appendSql(text);
+    }
+    return true;
+  }
+
+}
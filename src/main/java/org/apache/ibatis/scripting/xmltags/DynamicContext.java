@@ -15,7 +15,9 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.StringJoiner;
 
@@ -40,9 +42,28 @@ public class DynamicContext {
 
   private final ContextMap bindings;
   private final StringJoiner sqlBuilder = new StringJoiner(" ");
+  private final List<ParameterPlaceholder> placeholders;
+  private final List<Object> shape;
+  private ForEachSplit forEachSplit;
   private int uniqueNumber = 0;
 
   public DynamicContext(Configuration configuration, Object parameterObject) {
+    this(configuration, parameterObject, false, false);
+  }
+
+  /**
+   * Creates a context that, when {@code compiled}, replaces the {@code #{...}} placeholders of the SQL with {@code ?}
+   * as it is appended, collecting them in order.
+   * <p>
+   * When {@code recordShape} is set, the context also records the decisions that shape the SQL: the outcome of each
+   * test, each foreach iteration and the text produced by each {@code ${...}}. A context that records its shape
+   * without being compiled only probes it, keeping no SQL.
+   *
+   * @since 3.5.10
+   */
+  DynamicContext(Configuration configuration, Object parameterObject, boolean compiled, boolean recordShape) {
+    this.placeholders = compiled ? new ArrayList<>() : null;
+    this.shape = recordShape ? new ArrayList<>() : null;
     if (parameterObject != null && !(parameterObject instanceof Map)) {
       MetaObject metaObject = configuration.newMetaObject(parameterObject);
       boolean existsTypeHandler = configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass());
@@ -54,6 +75,17 @@ public class DynamicContext {
     bindings.put(DATABASE_ID_KEY, configuration.getDatabaseId());
   }
 
+  /**
+   * Creates a context that keeps no bindings of its own, for subclasses that delegate them to another context.
+   *
+   * @since 3.5.10
+   */
+  DynamicContext() {
+    this.bindings = null;
+    this.placeholders = null;
+    this.shape = null;
+  }
+
   public Map<String, Object> getBindings() {
     return bindings;
   }
@@ -63,7 +95,9 @@ public class DynamicContext {
   }
 
   public void appendSql(String sql) {
-    sqlBuilder.add(sql);
+    if (!isProbe()) {
+      sqlBuilder.add(parseParameters(sql));
+    }
   }
 
   public String getSql() {
@@ -74,6 +108,67 @@ public class DynamicContext {
     return uniqueNumber++;
   }
 
+  /**
+   * Returns whether this context collects the placeholders of the SQL as it is appended.
+   */
+  boolean isCompiled() {
+    return placeholders != null;
+  }
+
+  /**
+   * Replaces the placeholders of the given SQL with {@code ?} when this context is compiled. Contexts that buffer
+   * the SQL call this as it is appended, so that the placeholders keep the order of the final SQL.
+   */
+  String parseParameters(String sql) {
+    return placeholders == null || sql == null ? sql : ParameterPlaceholder.parse(sql, placeholders, shape != null);
+  }
+
+  void addParameterPlaceholders(List<ParameterPlaceholder> parsedPlaceholders) {
+    placeholders.addAll(parsedPlaceholders);
+  }
+
+  List<ParameterPlaceholder> getParameterPlaceholders() {
+    return placeholders;
+  }
+
+  /**
+   * Returns the number of placeholders collected so far, or {@code 0} if this context is not compiled.
+   */
+  int getParameterCount() {
+    return placeholders == null ? 0 : placeholders.size();
+  }
+
+  /**
+   * Returns the split of the top-level foreach items this context applies, if any.
+   */
+  ForEachSplit getForEachSplit() {
+    return forEachSplit;
+  }
+
+  void setForEachSplit(ForEachSplit forEachSplit) {
+    this.forEachSplit = forEachSplit;
+  }
+
+  /**
+   * Returns whether this context only records the shape of the SQL, so that appended SQL may be skipped.
+   */
+  boolean isProbe() {
+    return shape != null && placeholders == null;
+  }
+
+  /**
+   * Records a decision that shapes the SQL, if this context records them.
+   */
+  void recordShape(Object decision) {
+    if (shape != null) {
+      shape.add(decision);
+    }
+  }
+
+  List<Object> getShape() {
+    return shape;
+  }
+
   static class ContextMap extends HashMap<String, Object> {
     private static final long serialVersionUID = 2977601501966151582L;
     private final MetaObject parameterMetaObject;
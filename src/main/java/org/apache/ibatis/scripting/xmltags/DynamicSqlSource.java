@@ -15,8 +15,13 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.ibatis.builder.SqlSourceBuilder;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.session.Configuration;
 
@@ -27,14 +32,44 @@ public class DynamicSqlSource implements SqlSource {
 
   private final Configuration configuration;
   private final SqlNode rootSqlNode;
+  private final SqlSourceBuilder compiledSqlSourceBuilder;
+  private final SqlShapeCache shapeCache;
 
   public DynamicSqlSource(Configuration configuration, SqlNode rootSqlNode) {
     this.configuration = configuration;
     this.rootSqlNode = rootSqlNode;
+    Integer shapeCacheSize = configuration.getDynamicSqlShapeCacheSize();
+    this.shapeCache = shapeCacheSize != null && shapeCacheSize > 0 ? new SqlShapeCache(shapeCacheSize) : null;
+    this.compiledSqlSourceBuilder = new SqlSourceBuilder(configuration);
+  }
+
+  /**
+   * Returns the cache of the SQL built for each shape of this source.
+   *
+   * @return the shape cache, or {@code null} if disabled
+   * @since 3.5.10
+   */
+  public SqlShapeCache getShapeCache() {
+    return shapeCache;
   }
 
   @Override
   public BoundSql getBoundSql(Object parameterObject) {
+    BoundSql boundSql = buildBoundSql(parameterObject);
+    Integer maxParameters = configuration.getMaxParametersPerStatement();
+    if (maxParameters != null && boundSql.getParameterMappings().size() > maxParameters) {
+      boundSql.setChunks(split(parameterObject, maxParameters));
+    }
+    return boundSql;
+  }
+
+  private BoundSql buildBoundSql(Object parameterObject) {
+    if (shapeCache != null) {
+      return getShapedBoundSql(parameterObject);
+    }
+    if (configuration.isCompiledDynamicSql()) {
+      return getCompiledBoundSql(parameterObject);
+    }
     DynamicContext context = new DynamicContext(configuration, parameterObject);
     rootSqlNode.apply(context);
     SqlSourceBuilder sqlSourceParser = new SqlSourceBuilder(configuration);
@@ -45,4 +80,94 @@ public class DynamicSqlSource implements SqlSource {
     return boundSql;
   }
 
+  private BoundSql getCompiledBoundSql(Object parameterObject) {
+    DynamicContext context = new DynamicContext(configuration, parameterObject, true, false);
+    rootSqlNode.apply(context);
+    return getCompiledBoundSql(context, parameterObject);
+  }
+
+  private BoundSql getCompiledBoundSql(DynamicContext context, Object parameterObject) {
+    Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
+    Map<String, Object> bindings = context.getBindings();
+    BoundSql boundSql = new BoundSql(configuration, getSql(context),
+        getParameterMappings(context.getParameterPlaceholders(), parameterType, bindings), parameterObject);
+    bindings.forEach(boundSql::setAdditionalParameter);
+    return boundSql;
+  }
+
+  /**
+   * Splits the items of the top-level foreach declared with {@code split="true"} that binds the most parameters into
+   * chunks, so that each chunk binds at most the given number of parameters.
+   */
+  private List<BoundSql> split(Object parameterObject, int maxParameters) {
+    ForEachSplit split = new ForEachSplit();
+    DynamicContext context = new DynamicContext(configuration, parameterObject, true, false);
+    context.setForEachSplit(split);
+    rootSqlNode.apply(context);
+    int chunkSize = split.getChunkSize(context.getParameterCount(), maxParameters);
+    if (chunkSize < 1) {
+      return null;
+    }
+    split.checkSplittable(context.getSql());
+    List<BoundSql> chunks = new ArrayList<>();
+    for (int from = 0; from < split.getItems(); from += chunkSize) {
+      DynamicContext chunkContext = new DynamicContext(configuration, parameterObject, true, false);
+      chunkContext.setForEachSplit(split.chunk(from, chunkSize));
+      rootSqlNode.apply(chunkContext);
+      chunks.add(getCompiledBoundSql(chunkContext, parameterObject));
+    }
+    return chunks;
+  }
+
+  private BoundSql getShapedBoundSql(Object parameterObject) {
+    Class<?> parameterType = parameterObject == null ? Object.class : parameterObject.getClass();
+    DynamicContext context = new DynamicContext(configuration, parameterObject, false, true);
+    rootSqlNode.apply(context);
+    SqlShapeCache.SqlShape shape = shapeCache.getShape(parameterType, context.getShape());
+    if (shape == null) {
+      context = new DynamicContext(configuration, parameterObject, true, true);
+      rootSqlNode.apply(context);
+      shape = buildShape(context, parameterType);
+      shapeCache.putShape(parameterType, context.getShape(), shape);
+    }
+    Map<String, Object> bindings = context.getBindings();
+    List<ParameterMapping> parameterMappings = shape.getParameterMappings();
+    if (parameterMappings == null) {
+      parameterMappings = getParameterMappings(shape.getPlaceholders(), parameterType, bindings);
+    }
+    BoundSql boundSql = new BoundSql(configuration, shape.getSql(), parameterMappings, parameterObject);
+    bindings.forEach(boundSql::setAdditionalParameter);
+    return boundSql;
+  }
+
+  private SqlShapeCache.SqlShape buildShape(DynamicContext context, Class<?> parameterType) {
+    Map<String, Object> bindings = context.getBindings();
+    List<ParameterPlaceholder> placeholders = context.getParameterPlaceholders();
+    for (ParameterPlaceholder placeholder : placeholders) {
+      if (!placeholder.isReusable(bindings)) {
+        // some parameter mappings depend on the bindings, so they are built on each call
+        return new SqlShapeCache.SqlShape(getSql(context), placeholders, null);
+      }
+    }
+    return new SqlShapeCache.SqlShape(getSql(context), placeholders,
+        getParameterMappings(placeholders, parameterType, bindings));
+  }
+
+  private String getSql(DynamicContext context) {
+    String sql = ParameterPlaceholder.unescape(context.getSql());
+    if (configuration.isShrinkWhitespacesInSql()) {
+      sql = SqlSourceBuilder.removeExtraWhitespaces(sql);
+    }
+    return sql;
+  }
+
+  private List<ParameterMapping> getParameterMappings(List<ParameterPlaceholder> placeholders, Class<?> parameterType,
+      Map<String, Object> bindings) {
+    List<ParameterMapping> parameterMappings = new ArrayList<>(placeholders.size());
+    for (ParameterPlaceholder placeholder : placeholders) {
+      parameterMappings.add(placeholder.getParameterMapping(compiledSqlSourceBuilder, parameterType, bindings));
+    }
+    return parameterMappings;
+  }
+
 }
@@ -0,0 +1,356 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import ognl.ASTAnd;
+import ognl.ASTChain;
+import ognl.ASTConst;
+import ognl.ASTEq;
+import ognl.ASTGreater;
+import ognl.ASTGreaterEq;
+import ognl.ASTLessEq;
+import ognl.ASTMethod;
+import ognl.ASTNot;
+import ognl.ASTNotEq;
+import ognl.ASTOr;
+import ognl.ASTProperty;
+import ognl.Node;
+import ognl.OgnlException;
+import ognl.OgnlOps;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.util.MapUtil;
+
+/**
+ * Compiles common OGNL expressions into chains of method handles, avoiding the creation of an OGNL context and the
+ * interpretation of the parsed tree on each evaluation.
+ * <p>
+ * Constants, property paths, no-argument method calls, {@code and}, {@code or}, {@code not} and comparisons are
+ * compiled, using the OGNL operators so that the results stay the same. Anything else, including a property that is
+ * neither a public getter nor a map entry, is evaluated by OGNL.
+ *
+ * @since 3.5.10
+ */
+final class ExpressionCompiler {
+
+  private static final Object UNSUPPORTED = new Object();
+  private static final CompiledExpression NOT_COMPILED = bindings -> UNSUPPORTED;
+  private static final MethodHandle NO_MEMBER = MethodHandles.dropArguments(
+      MethodHandles.constant(Object.class, UNSUPPORTED), 0, Object.class);
+  private static final MethodType MEMBER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private static final Map<String, CompiledExpression> expressionCache = new ConcurrentHashMap<>();
+  private static final ClassValue<ConcurrentMap<String, MethodHandle>> getters = new MemberCache();
+  private static final ClassValue<ConcurrentMap<String, MethodHandle>> methods = new MemberCache();
+
+  private ExpressionCompiler() {
+    // Prevent Instantiation of Static Class
+  }
+
+  /**
+   * Evaluates the expression against the bindings of a dynamic context, compiling it on first use.
+   *
+   * @param expression
+   *          the OGNL expression
+   * @param root
+   *          the bindings of a dynamic context, or any other root, which is left to OGNL
+   * @return the value of the expression
+   */
+  static Object getValue(String expression, Object root) {
+    if (root instanceof DynamicContext.ContextMap) {
+      CompiledExpression compiled = MapUtil.computeIfAbsent(expressionCache, expression, ExpressionCompiler::compile);
+      try {
+        @SuppressWarnings("unchecked")
+        Object value = compiled.evaluate((Map<String, Object>) root);
+        if (value != UNSUPPORTED) {
+          return value;
+        }
+      } catch (RuntimeException e) {
+        // OGNL reports it the same way as without compilation
+      }
+    }
+    return OgnlCache.getValue(expression, root);
+  }
+
+  private static CompiledExpression compile(String expression) {
+    try {
+      CompiledExpression compiled = compile((Node) OgnlCache.parseExpression(expression));
+      return compiled == null ? NOT_COMPILED : compiled;
+    } catch (OgnlException e) {
+      return NOT_COMPILED;
+    }
+  }
+
+  private static CompiledExpression compile(Node node) {
+    if (node instanceof ASTConst) {
+      Object value = ((ASTConst) node).getValue();
+      return bindings -> value;
+    } else if (node instanceof ASTProperty) {
+      String name = getPropertyName(node);
+      return name == null ? null : bindings -> getRootProperty(bindings, name);
+    } else if (node instanceof ASTChain) {
+      return compileChain(node);
+    } else if (node instanceof ASTAnd || node instanceof ASTOr) {
+      CompiledExpression[] children = compileChildren(node);
+      if (children == null) {
+        return null;
+      }
+      boolean and = node instanceof ASTAnd;
+      return bindings -> {
+        Object result = null;
+        for (int i = 0; i < children.length; i++) {
+          result = children[i].evaluate(bindings);
+          if (result == UNSUPPORTED || (i < children.length - 1 && OgnlOps.booleanValue(result) != and)) {
+            break;
+          }
+        }
+        return result;
+      };
+    } else if (node instanceof ASTNot) {
+      CompiledExpression[] children = compileChildren(node);
+      if (children == null || children.length != 1) {
+        return null;
+      }
+      return bindings -> {
+        Object value = children[0].evaluate(bindings);
+        return value == UNSUPPORTED ? UNSUPPORTED : !OgnlOps.booleanValue(value);
+      };
+    }
+    return compileComparison(node);
+  }
+
+  private static CompiledExpression compileComparison(Node node) {
+    Comparison comparison;
+    if (node instanceof ASTEq) {
+      comparison = OgnlOps::equal;
+    } else if (node instanceof ASTNotEq) {
+      comparison = (left, right) -> !OgnlOps.equal(left, right);
+    } else if (node instanceof ASTGreater) {
+      comparison = OgnlOps::greater;
+    } else if (node instanceof ASTGreaterEq) {
+      comparison = (left, right) -> !OgnlOps.less(left, right);
+    } else if (node instanceof ASTLessEq) {
+      comparison = (left, right) -> !OgnlOps.greater(left, right);
+    } else if ("ASTLess".equals(node.getClass().getSimpleName())) {
+      // ASTLess is not public
+      comparison = OgnlOps::less;
+    } else {
+      return null;
+    }
+    CompiledExpression[] children = compileChildren(node);
+    if (children == null || children.length != 2) {
+      return null;
+    }
+    CompiledExpression left = children[0];
+    CompiledExpression right = children[1];
+    return bindings -> {
+      Object leftValue = left.evaluate(bindings);
+      if (leftValue == UNSUPPORTED) {
+        return UNSUPPORTED;
+      }
+      Object rightValue = right.evaluate(bindings);
+      return rightValue == UNSUPPORTED ? UNSUPPORTED : comparison.compare(leftValue, rightValue);
+    };
+  }
+
+  private static CompiledExpression compileChain(Node node) {
+    int length = node.jjtGetNumChildren();
+    String rootName = length > 1 && node.jjtGetChild(0) instanceof ASTProperty ? getPropertyName(node.jjtGetChild(0)) : null;
+    if (rootName == null) {
+      return null;
+    }
+    String[] names = new String[length - 1];
+    boolean[] methodCalls = new boolean[length - 1];
+    for (int i = 1; i < length; i++) {
+      Node child = node.jjtGetChild(i);
+      if (child instanceof ASTMethod && child.jjtGetNumChildren() == 0) {
+        names[i - 1] = ((ASTMethod) child).getMethodName();
+        methodCalls[i - 1] = true;
+      } else if (child instanceof ASTProperty) {
+        names[i - 1] = getPropertyName(child);
+      }
+      if (names[i - 1] == null) {
+        return null;
+      }
+    }
+    return bindings -> {
+      Object value = getRootProperty(bindings, rootName);
+      for (int i = 0; i < names.length && value != UNSUPPORTED; i++) {
+        value = methodCalls[i] ? invokeMethod(value, names[i]) : getProperty(value, names[i]);
+      }
+      return value;
+    };
+  }
+
+  private static CompiledExpression[] compileChildren(Node node) {
+    CompiledExpression[] children = new CompiledExpression[node.jjtGetNumChildren()];
+    for (int i = 0; i < children.length; i++) {
+      children[i] = compile(node.jjtGetChild(i));
+      if (children[i] == null) {
+        return null;
+      }
+    }
+    return children;
+  }
+
+  private static String getPropertyName(Node node) {
+    if (((ASTProperty) node).isIndexedAccess() || node.jjtGetNumChildren() != 1
+        || !(node.jjtGetChild(0) instanceof ASTConst)) {
+      return null;
+    }
+    Object name = ((ASTConst) node.jjtGetChild(0)).getValue();
+    return name instanceof String ? (String) name : null;
+  }
+
+  private static Object getRootProperty(Map<String, Object> bindings, String name) {
+    // same lookup as DynamicContext.ContextAccessor
+    Object result = bindings.get(name);
+    if (result != null || bindings.containsKey(name)) {
+      return result;
+    }
+    Object parameterObject = bindings.get(DynamicContext.PARAMETER_OBJECT_KEY);
+    if (parameterObject instanceof Map) {
+      return ((Map<?, ?>) parameterObject).get(name);
+    }
+    return null;
+  }
+
+  private static Object getProperty(Object target, String name) {
+    if (target == null || target instanceof Collection || target instanceof Iterator
+        || target instanceof Enumeration || target.getClass().isArray()) {
+      return UNSUPPORTED;
+    }
+    if (target instanceof Map) {
+      // OGNL resolves these names to the map itself rather than to its entries
+      if ("size".equals(name) || "isEmpty".equals(name) || "keys".equals(name) || "keySet".equals(name)
+          || "values".equals(name)) {
+        return UNSUPPORTED;
+      }
+      return ((Map<?, ?>) target).get(name);
+    }
+    return invoke(MapUtil.computeIfAbsent(getters.get(target.getClass()), name,
+        property -> findGetter(target.getClass(), property)), target);
+  }
+
+  private static Object invokeMethod(Object target, String name) {
+    if (target == null) {
+      return UNSUPPORTED;
+    }
+    return invoke(MapUtil.computeIfAbsent(methods.get(target.getClass()), name,
+        method -> findMethod(target.getClass(), method)), target);
+  }
+
+  @UsesJava7 // invokeExact is signature polymorphic, which the API signature check does not resolve
+  private static Object invoke(MethodHandle handle, Object target) {
+    try {
+      return handle.invokeExact(target);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      return UNSUPPORTED;
+    }
+  }
+
+  private static MethodHandle findGetter(Class<?> type, String property) {
+    if (property.isEmpty() || (property.length() > 1 && Character.isUpperCase(property.charAt(1)))) {
+      // left to OGNL, which follows the JavaBeans naming rules for these
+      return NO_MEMBER;
+    }
+    String suffix = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+    Method getter = findPublicMethod(type, "get" + suffix);
+    Method isGetter = findPublicMethod(type, "is" + suffix);
+    if (isGetter != null && isGetter.getReturnType() != boolean.class) {
+      isGetter = null;
+    }
+    if (getter != null && getter.getReturnType() == void.class) {
+      getter = null;
+    }
+    if ((getter == null) == (isGetter == null)) {
+      return NO_MEMBER;
+    }
+    return toHandle(getter == null ? isGetter : getter);
+  }
+
+  private static MethodHandle findMethod(Class<?> type, String name) {
+    Method method = findPublicMethod(type, name);
+    return method == null ? NO_MEMBER : toHandle(method);
+  }
+
+  private static MethodHandle toHandle(Method method) {
+    try {
+      return MethodHandles.publicLookup().unreflect(method).asType(MEMBER_TYPE);
+    } catch (IllegalAccessException e) {
+      return NO_MEMBER;
+    }
+  }
+
+  /**
+   * Finds a public no-argument method declared by a public type, so that it can be invoked on instances of
+   * non-public implementations such as {@code Arrays.asList()}.
+   */
+  private static Method findPublicMethod(Class<?> type, String name) {
+    if (type == null) {
+      return null;
+    }
+    if (Modifier.isPublic(type.getModifiers())) {
+      try {
+        Method method = type.getMethod(name);
+        if (Modifier.isPublic(method.getDeclaringClass().getModifiers()) && !Modifier.isStatic(method.getModifiers())) {
+          return method;
+        }
+      } catch (NoSuchMethodException e) {
+        return null;
+      }
+    }
+    for (Class<?> interfaceType : type.getInterfaces()) {
+      Method method = findPublicMethod(interfaceType, name);
+      if (method != null) {
+        return method;
+      }
+    }
+    return findPublicMethod(type.getSuperclass(), name);
+  }
+
+  @FunctionalInterface
+  private interface CompiledExpression {
+    Object evaluate(Map<String, Object> bindings);
+  }
+
+  @FunctionalInterface
+  private interface Comparison {
+    boolean compare(Object left, Object right);
+  }
+
+  private static class MemberCache extends ClassValue<ConcurrentMap<String, MethodHandle>> {
+    @Override
+    protected ConcurrentMap<String, MethodHandle> computeValue(Class<?> type) {
+      return new ConcurrentHashMap<>();
+    }
+  }
+
+}
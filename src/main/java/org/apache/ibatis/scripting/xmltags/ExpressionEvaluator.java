@@ -28,8 +28,24 @@ import org.apache.ibatis.builder.BuilderException;
  */
 public class ExpressionEvaluator {
 
+  private final boolean compiled;
+
+  public ExpressionEvaluator() {
+    this(false);
+  }
+
+  /**
+   * Creates an evaluator that, when {@code compiled}, compiles common expressions into method handle chains instead
+   * of interpreting them with OGNL on each evaluation.
+   *
+   * @since 3.5.10
+   */
+  public ExpressionEvaluator(boolean compiled) {
+    this.compiled = compiled;
+  }
+
   public boolean evaluateBoolean(String expression, Object parameterObject) {
-    Object value = OgnlCache.getValue(expression, parameterObject);
+    Object value = getValue(expression, parameterObject);
     if (value instanceof Boolean) {
       return (Boolean) value;
     }
@@ -51,7 +67,7 @@ public class ExpressionEvaluator {
    * @since 3.5.9
    */
   public Iterable<?> evaluateIterable(String expression, Object parameterObject, boolean nullable) {
-    Object value = OgnlCache.getValue(expression, parameterObject);
+    Object value = getValue(expression, parameterObject);
     if (value == null) {
       if (nullable) {
         return null;
@@ -80,4 +96,8 @@ public class ExpressionEvaluator {
     throw new BuilderException("Error evaluating expression '" + expression + "'.  Return value (" + value + ") was not iterable.");
   }
 
+  private Object getValue(String expression, Object parameterObject) {
+    return compiled ? ExpressionCompiler.getValue(expression, parameterObject) : OgnlCache.getValue(expression, parameterObject);
+  }
+
 }
@@ -0,0 +1,175 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.builder.BuilderException;
+
+/**
+ * Splits the items of the top-level foreach that binds the most parameters of a statement, so that the statement can
+ * be run in chunks that each bind at most a given number of parameters.
+ * <p>
+ * A split first records the foreach nodes applied to a context, and then creates a chunk for each window of items.
+ * Only the foreach nodes declared with {@code split="true"} are recorded, and the ones nested in another foreach are
+ * neither recorded nor split. While recording, each of them marks where its SQL starts and ends, so that the split can
+ * check that running the chunks separately returns the same rows as the whole statement: the foreach must be the
+ * whole list of a plain IN condition, or the rows of an INSERT ... VALUES statement.
+ *
+ * @since 3.5.10
+ */
+final class ForEachSplit {
+
+  private static final char MARK_START = '\uE000';
+  private static final char MARK_END = '\uE001';
+  private static final Pattern MARK = Pattern.compile(MARK_START + "\\d+" + MARK_END);
+  private static final Pattern IN = Pattern.compile(".*\\bIN ?\\(?");
+  private static final Pattern NOT_IN = Pattern.compile(".*\\bNOT IN ?\\(?");
+  private static final Pattern VALUES = Pattern.compile(".*\\bVALUES");
+  // a split list must be combined with the rest of the statement with AND, and its rows must not be merged
+  private static final Pattern NOT_SPLITTABLE = Pattern.compile("\\b(OR|NOT IN|NOT EXISTS|ALL|ANY|SOME|DISTINCT"
+      + "|GROUP BY|HAVING|ORDER BY|LIMIT|OFFSET|FETCH|TOP|UNION|INTERSECT|EXCEPT|MINUS)\\b"
+      + "|\\b(NOT|COUNT|SUM|AVG|MIN|MAX) ?\\(");
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private final ForEachSqlNode chunkedNode;
+  private final int from;
+  private final int to;
+
+  private ForEachSqlNode node;
+  private int mark = -1;
+  private int marks;
+  private int items;
+  private int parameters;
+  private int maxItemParameters;
+
+  ForEachSplit() {
+    this(null, 0, Integer.MAX_VALUE);
+  }
+
+  private ForEachSplit(ForEachSqlNode chunkedNode, int from, int to) {
+    this.chunkedNode = chunkedNode;
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * Returns whether the item at the given position of the foreach is applied.
+   */
+  boolean includes(ForEachSqlNode node, int position) {
+    return node != chunkedNode || position >= from && position < to;
+  }
+
+  /**
+   * Returns whether this split records the foreach nodes, rather than applying a chunk.
+   */
+  boolean isRecording() {
+    return chunkedNode == null;
+  }
+
+  /**
+   * Returns the next mark of a foreach, to append before and after its SQL while recording.
+   */
+  int nextMark() {
+    return marks++;
+  }
+
+  static String marker(int mark) {
+    return MARK_START + String.valueOf(mark) + MARK_END;
+  }
+
+  /**
+   * Records a foreach applied to the context, with the number of parameters bound by its items.
+   */
+  void record(ForEachSqlNode node, int mark, int items, int parameters, int maxItemParameters) {
+    if (isRecording() && parameters > this.parameters) {
+      this.node = node;
+      this.mark = mark;
+      this.items = items;
+      this.parameters = parameters;
+      this.maxItemParameters = maxItemParameters;
+    }
+  }
+
+  /**
+   * Returns the number of items of each chunk, so that a statement binding {@code totalParameters} binds at most
+   * {@code maxParameters}, or a number lower than one if the statement cannot be split.
+   */
+  int getChunkSize(int totalParameters, int maxParameters) {
+    if (node == null) {
+      return 0;
+    }
+    return Math.min(items, (maxParameters - totalParameters + parameters) / maxItemParameters);
+  }
+
+  int getItems() {
+    return items;
+  }
+
+  ForEachSplit chunk(int from, int size) {
+    return new ForEachSplit(node, from, from + size);
+  }
+
+  /**
+   * Checks that the recorded foreach can be split, given the SQL of the statement with the marks of its foreach nodes.
+   *
+   * @throws BuilderException
+   *           if running the chunks separately could return other rows than the whole statement
+   */
+  void checkSplittable(String markedSql) {
+    String marker = marker(mark);
+    int start = markedSql.indexOf(marker);
+    int end = markedSql.indexOf(marker, start + marker.length());
+    String before = normalize(markedSql.substring(0, start));
+    String list = normalize(markedSql.substring(start + marker.length(), end));
+    String after = normalize(markedSql.substring(end + marker.length()));
+    int parenthesis = list.indexOf('(');
+    if (parenthesis > 0) {
+      // the open attribute of the foreach may start with the column, e.g. "ID IN ("
+      before = normalize(before + " " + list.substring(0, parenthesis));
+      list = list.substring(parenthesis);
+    }
+    String statement = normalize(before + " " + list + " " + after);
+    if (!isInList(before, list, after, statement) && !isInsertedRows(before, after, statement)) {
+      throw new BuilderException("A foreach with split=\"true\" must be the whole list of an IN condition only"
+          + " combined with AND, in a statement that neither merges, orders nor limits its rows, or the rows of an"
+          + " INSERT ... VALUES statement. The statement cannot be split: " + statement);
+    }
+  }
+
+  private static boolean isInList(String before, String list, String after, String statement) {
+    if (!IN.matcher(before).matches() || NOT_IN.matcher(before).matches()) {
+      return false;
+    }
+    boolean enclosed = before.endsWith("(") ? after.startsWith(")") : list.startsWith("(") && list.endsWith(")");
+    if (!enclosed || !(statement.startsWith("SELECT ") || statement.startsWith("UPDATE ")
+        || statement.startsWith("DELETE "))) {
+      return false;
+    }
+    return !NOT_SPLITTABLE.matcher(statement).find();
+  }
+
+  private static boolean isInsertedRows(String before, String after, String statement) {
+    return statement.startsWith("INSERT ") && VALUES.matcher(before).matches() && after.isEmpty();
+  }
+
+  private static String normalize(String sql) {
+    String unmarked = MARK.matcher(sql).replaceAll(" ");
+    return WHITESPACE.matcher(unmarked).replaceAll(" ").trim().toUpperCase(Locale.ENGLISH);
+  }
+
+}
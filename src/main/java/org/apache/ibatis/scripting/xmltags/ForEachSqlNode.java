@@ -15,8 +15,10 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 import org.apache.ibatis.parsing.GenericTokenParser;
 import org.apache.ibatis.session.Configuration;
@@ -30,12 +32,15 @@ public class ForEachSqlNode implements SqlNode {
   private final ExpressionEvaluator evaluator;
   private final String collectionExpression;
   private final Boolean nullable;
+  private final boolean split;
   private final SqlNode contents;
   private final String open;
   private final String close;
   private final String separator;
   private final String item;
   private final String index;
+  private final Pattern itemPattern;
+  private final Pattern indexPattern;
   private final Configuration configuration;
 
   /**
@@ -50,15 +55,28 @@ public class ForEachSqlNode implements SqlNode {
    * @since 3.5.9
    */
   public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, Boolean nullable, String index, String item, String open, String close, String separator) {
-    this.evaluator = new ExpressionEvaluator();
+    this(configuration, contents, collectionExpression, nullable, false, index, item, open, close, separator);
+  }
+
+  /**
+   * @param split
+   *          whether the items may be split into chunks when the statement binds more than
+   *          {@link Configuration#getMaxParametersPerStatement()} parameters
+   * @since 3.5.10
+   */
+  public ForEachSqlNode(Configuration configuration, SqlNode contents, String collectionExpression, Boolean nullable, boolean split, String index, String item, String open, String close, String separator) {
+    this.evaluator = new ExpressionEvaluator(configuration.isCompiledExpressions());
     this.collectionExpression = collectionExpression;
     this.nullable = nullable;
+    this.split = split;
     this.contents = contents;
     this.open = open;
     this.close = close;
     this.separator = separator;
     this.index = index;
     this.item = item;
+    this.itemPattern = Pattern.compile("^\\s*" + item + "(?![^.,:\\s])");
+    this.indexPattern = index == null ? null : Pattern.compile("^\\s*" + index + "(?![^.,:\\s])");
     this.configuration = configuration;
   }
 
@@ -68,42 +86,98 @@ public class ForEachSqlNode implements SqlNode {
     final Iterable<?> iterable = evaluator.evaluateIterable(collectionExpression, bindings,
       Optional.ofNullable(nullable).orElseGet(configuration::isNullableOnForEach));
     if (iterable == null || !iterable.iterator().hasNext()) {
+      context.recordShape(Boolean.FALSE);
       return true;
     }
+    ForEachSplit split = this.split ? context.getForEachSplit() : null;
+    int mark = split != null && split.isRecording() ? split.nextMark() : -1;
+    if (mark >= 0) {
+      context.appendSql(ForEachSplit.marker(mark));
+    }
+    boolean positional = configuration.isPositionalForEachBinding();
+    int positionalNumber = positional ? context.getUniqueNumber() : 0;
+    PositionalBindings itemBindings = null;
+    PositionalBindings indexBindings = null;
+    if (positional) {
+      itemBindings = item == null ? null : new PositionalBindings(context, itemizeItem(item, positionalNumber));
+      indexBindings = index == null ? null : new PositionalBindings(context, itemizeItem(index, positionalNumber));
+    }
     boolean first = true;
     applyOpen(context);
     int i = 0;
+    int items = 0;
+    int parameters = 0;
+    int maxItemParameters = 0;
     for (Object o : iterable) {
+      if (split != null && !split.includes(this, i)) {
+        i++;
+        continue;
+      }
       DynamicContext oldContext = context;
       if (first || separator == null) {
         context = new PrefixedContext(context, "");
       } else {
         context = new PrefixedContext(context, separator);
       }
-      int uniqueNumber = context.getUniqueNumber();
+      context.recordShape(Boolean.TRUE);
+      Object indexValue = i;
+      Object itemValue = o;
       // Issue #709
       if (o instanceof Map.Entry) {
         @SuppressWarnings("unchecked")
         Map.Entry<Object, Object> mapEntry = (Map.Entry<Object, Object>) o;
-        applyIndex(context, mapEntry.getKey(), uniqueNumber);
-        applyItem(context, mapEntry.getValue(), uniqueNumber);
+        indexValue = mapEntry.getKey();
+        itemValue = mapEntry.getValue();
+      }
+      String itemName;
+      String indexName;
+      if (positional) {
+        applyIndex(context, indexValue);
+        applyItem(context, itemValue);
+        indexName = indexBindings == null ? null : indexBindings.add(indexValue);
+        itemName = itemBindings == null ? itemizeItem(item, positionalNumber) : itemBindings.add(itemValue);
       } else {
-        applyIndex(context, i, uniqueNumber);
-        applyItem(context, o, uniqueNumber);
+        int uniqueNumber = context.getUniqueNumber();
+        applyIndex(context, indexValue, uniqueNumber);
+        applyItem(context, itemValue, uniqueNumber);
+        indexName = itemizeItem(index, uniqueNumber);
+        itemName = itemizeItem(item, uniqueNumber);
       }
-      contents.apply(new FilteredDynamicContext(configuration, context, index, item, uniqueNumber));
+      int itemParameters = context.getParameterCount();
+      contents.apply(new FilteredDynamicContext(context, itemName, indexName));
+      itemParameters = context.getParameterCount() - itemParameters;
+      parameters += itemParameters;
+      maxItemParameters = Math.max(maxItemParameters, itemParameters);
+      items++;
       if (first) {
         first = !((PrefixedContext) context).isPrefixApplied();
       }
       context = oldContext;
       i++;
     }
+    context.recordShape(Boolean.FALSE);
     applyClose(context);
     context.getBindings().remove(item);
     context.getBindings().remove(index);
+    if (mark >= 0) {
+      context.appendSql(ForEachSplit.marker(mark));
+      split.record(this, mark, items, parameters, maxItemParameters);
+    }
     return true;
   }
 
+  private void applyIndex(DynamicContext context, Object o) {
+    if (index != null) {
+      context.bind(index, o);
+    }
+  }
+
+  private void applyItem(DynamicContext context, Object o) {
+    if (item != null) {
+      context.bind(item, o);
+    }
+  }
+
   private void applyIndex(DynamicContext context, Object o, int i) {
     if (index != null) {
       context.bind(index, o);
@@ -134,18 +208,15 @@ public class ForEachSqlNode implements SqlNode {
     return ITEM_PREFIX + item + "_" + i;
   }
 
-  private static class FilteredDynamicContext extends DynamicContext {
+  private class FilteredDynamicContext extends DynamicContext {
     private final DynamicContext delegate;
-    private final int index;
-    private final String itemIndex;
-    private final String item;
+    private final String itemName;
+    private final String indexName;
 
-    public FilteredDynamicContext(Configuration configuration,DynamicContext delegate, String itemIndex, String item, int i) {
-      super(configuration, null);
+    public FilteredDynamicContext(DynamicContext delegate, String itemName, String indexName) {
       this.delegate = delegate;
-      this.index = i;
-      this.itemIndex = itemIndex;
-      this.item = item;
+      this.itemName = itemName;
+      this.indexName = indexName;
     }
 
     @Override
@@ -165,15 +236,54 @@ public class ForEachSqlNode implements SqlNode {
 
     @Override
     public void appendSql(String sql) {
+      delegate.appendSql(delegate.isProbe() ? sql : itemize(sql));
+    }
+
+    @Override
+    boolean isCompiled() {
+      return delegate.isCompiled();
+    }
+
+    @Override
+    String parseParameters(String sql) {
+      return delegate.parseParameters(itemize(sql));
+    }
+
+    @Override
+    void addParameterPlaceholders(List<ParameterPlaceholder> placeholders) {
+      delegate.addParameterPlaceholders(placeholders);
+    }
+
+    @Override
+    boolean isProbe() {
+      return delegate.isProbe();
+    }
+
+    @Override
+    void recordShape(Object decision) {
+      delegate.recordShape(decision);
+    }
+
+    @Override
+    int getParameterCount() {
+      return delegate.getParameterCount();
+    }
+
+    @Override
+    ForEachSplit getForEachSplit() {
+      // nested foreach nodes are not split
+      return null;
+    }
+
+    private String itemize(String sql) {
       GenericTokenParser parser = new GenericTokenParser("#{", "}", content -> {
-        String newContent = content.replaceFirst("^\\s*" + item + "(?![^.,:\\s])", itemizeItem(item, index));
-        if (itemIndex != null && newContent.equals(content)) {
-          newContent = content.replaceFirst("^\\s*" + itemIndex + "(?![^.,:\\s])", itemizeItem(itemIndex, index));
+        String newContent = itemPattern.matcher(content).replaceFirst(itemName);
+        if (indexPattern != null && newContent.equals(content)) {
+          newContent = indexPattern.matcher(content).replaceFirst(indexName);
         }
         return "#{" + newContent + "}";
       });
-
-      delegate.appendSql(parser.parse(sql));
+      return parser.parse(sql);
     }
 
     @Override
@@ -190,7 +300,6 @@ public class ForEachSqlNode implements SqlNode {
     private boolean prefixApplied;
 
     public PrefixedContext(DynamicContext delegate, String prefix) {
-      super(configuration, null);
       this.delegate = delegate;
       this.prefix = prefix;
       this.prefixApplied = false;
@@ -219,6 +328,41 @@ public class ForEachSqlNode implements SqlNode {
       delegate.appendSql(sql);
     }
 
+    @Override
+    boolean isCompiled() {
+      return delegate.isCompiled();
+    }
+
+    @Override
+    String parseParameters(String sql) {
+      return delegate.parseParameters(sql);
+    }
+
+    @Override
+    void addParameterPlaceholders(List<ParameterPlaceholder> placeholders) {
+      delegate.addParameterPlaceholders(placeholders);
+    }
+
+    @Override
+    boolean isProbe() {
+      return delegate.isProbe();
+    }
+
+    @Override
+    void recordShape(Object decision) {
+      delegate.recordShape(decision);
+    }
+
+    @Override
+    int getParameterCount() {
+      return delegate.getParameterCount();
+    }
+
+    @Override
+    ForEachSplit getForEachSplit() {
+      return delegate.getForEachSplit();
+    }
+
     @Override
     public String getSql() {
       return delegate.getSql();
@@ -15,6 +15,8 @@
  */
 package org.apache.ibatis.scripting.xmltags;
 
+import org.apache.ibatis.session.Configuration;
+
 /**
  * @author Clinton Begin
  */
@@ -24,14 +26,27 @@ public class IfSqlNode implements SqlNode {
   private final SqlNode contents;
 
   public IfSqlNode(SqlNode contents, String test) {
+    this(contents, test, new ExpressionEvaluator());
+  }
+
+  /**
+   * @since 3.5.10
+   */
+  public IfSqlNode(Configuration configuration, SqlNode contents, String test) {
+    this(contents, test, new ExpressionEvaluator(configuration.isCompiledExpressions()));
+  }
+
+  private IfSqlNode(SqlNode contents, String test, ExpressionEvaluator evaluator) {
     this.test = test;
     this.contents = contents;
-    this.evaluator = new ExpressionEvaluator();
+    this.evaluator = evaluator;
   }
 
   @Override
   public boolean apply(DynamicContext context) {
-    if (evaluator.evaluateBoolean(test, context.getBindings())) {
+    boolean matched = evaluator.evaluateBoolean(test, context.getBindings());
+    context.recordShape(matched);
+    if (matched) {
       contents.apply(context);
       return true;
     }
@@ -0,0 +1,169 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.ArrayTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+import org.apache.ibatis.type.TypeHandlerRegistry;
+
+/**
+ * Matches a column against the values of a collection.
+ * <p>
+ * With an {@link ArrayBinding array binding}, which depends on the SQL the database accepts, a collection whose values
+ * share a class is bound as a single {@link java.sql.Array} by the {@link ArrayTypeHandler}, so that the SQL stays the
+ * same whatever the number of values and the driver can reuse its prepared statement. Otherwise, and when the class
+ * has no standard SQL type name (enums, UUIDs, ...) or is bound by a custom type handler, each value gets its own
+ * placeholder and is bound by its own type handler.
+ *
+ * @since 3.5.10
+ */
+public class InListSqlNode implements SqlNode {
+  public static final String VALUES_PREFIX = "__inls_";
+
+  /**
+   * The SQL that matches a column against the elements of an array bound to a single placeholder.
+   */
+  public enum ArrayBinding {
+    /**
+     * {@code column = ANY(?)}, for PostgreSQL and H2.
+     */
+    ANY,
+    /**
+     * {@code column IN (UNNEST(?))}, for HSQLDB.
+     */
+    UNNEST
+  }
+
+  private final ExpressionEvaluator evaluator;
+  private final String column;
+  private final String collectionExpression;
+  private final Boolean nullable;
+  private final ArrayBinding arrayBinding;
+  private final Configuration configuration;
+
+  public InListSqlNode(Configuration configuration, String column, String collectionExpression, Boolean nullable) {
+    this(configuration, column, collectionExpression, nullable, null);
+  }
+
+  /**
+   * Creates a node that binds the collection as an array when its values allow it.
+   *
+   * @param configuration
+   *          the configuration
+   * @param column
+   *          the column to match
+   * @param collectionExpression
+   *          the expression of the collection
+   * @param nullable
+   *          whether the collection may be {@code null}, or {@code null} for the configured default
+   * @param arrayBinding
+   *          the SQL that matches the column against an array, or {@code null} to bind each value
+   */
+  public InListSqlNode(Configuration configuration, String column, String collectionExpression, Boolean nullable,
+      ArrayBinding arrayBinding) {
+    this.evaluator = new ExpressionEvaluator(configuration.isCompiledExpressions());
+    this.column = column;
+    this.collectionExpression = collectionExpression;
+    this.nullable = nullable;
+    this.arrayBinding = arrayBinding;
+    this.configuration = configuration;
+  }
+
+  @Override
+  public boolean apply(DynamicContext context) {
+    Iterable<?> iterable = evaluator.evaluateIterable(collectionExpression, context.getBindings(),
+        Optional.ofNullable(nullable).orElseGet(configuration::isNullableOnForEach));
+    if (iterable == null) {
+      context.recordShape(Boolean.FALSE);
+      return true;
+    }
+    String name = VALUES_PREFIX + context.getUniqueNumber();
+    Object[] array = toArray(iterable);
+    boolean typed = arrayBinding != null && isArrayElementType(array.getClass().getComponentType());
+    if (typed && arrayBinding == ArrayBinding.ANY) {
+      applyArray(context, name, array, column + " = ANY(", ")");
+    } else if (typed && arrayBinding == ArrayBinding.UNNEST) {
+      applyArray(context, name, array, column + " IN (UNNEST(", "))");
+    } else {
+      PositionalBindings values = new PositionalBindings(context, name);
+      StringJoiner sql = new StringJoiner(", ", column + " IN (", ")");
+      // an empty list matches no rows
+      sql.setEmptyValue(column + " IN (NULL)");
+      for (Object value : array) {
+        sql.add("#{" + values.add(value) + "}");
+      }
+      context.recordShape(values.size());
+      context.appendSql(sql.toString());
+    }
+    return true;
+  }
+
+  private void applyArray(DynamicContext context, String name, Object[] array, String open, String close) {
+    context.bind(name, array);
+    context.recordShape(Boolean.TRUE);
+    context.appendSql(open + "#{" + name + ", typeHandler=" + ArrayTypeHandler.class.getName() + "}" + close);
+  }
+
+  /**
+   * Checks that the driver can be told the SQL type of the elements and that they are bound the same way as they would
+   * be by their own placeholders.
+   */
+  private boolean isArrayElementType(Class<?> type) {
+    // without a typed element, or one mapped to JAVA_OBJECT, the type of the array elements cannot be told to the driver
+    if (!ArrayTypeHandler.hasStandardTypeName(type)) {
+      return false;
+    }
+    TypeHandler<?> typeHandler = configuration.getTypeHandlerRegistry().getTypeHandler(type);
+    return typeHandler != null && typeHandler.getClass() == DefaultTypeHandlers.REGISTRY.getTypeHandler(type).getClass();
+  }
+
+  /**
+   * Copies the values to an array of their common class, so that the {@link ArrayTypeHandler} resolves the SQL type
+   * of its elements.
+   */
+  private static Object[] toArray(Iterable<?> iterable) {
+    List<Object> values = new ArrayList<>();
+    Class<?> type = null;
+    for (Object o : iterable) {
+      Object value = valueOf(o);
+      values.add(value);
+      if (value != null) {
+        type = type == null || type == value.getClass() ? value.getClass() : Object.class;
+      }
+    }
+    return values.toArray((Object[]) Array.newInstance(type == null ? Object.class : type, values.size()));
+  }
+
+  private static Object valueOf(Object o) {
+    return o instanceof Map.Entry ? ((Map.Entry<?, ?>) o).getValue() : o;
+  }
+
+  /**
+   * The type handlers registered by default, created on first use.
+   */
+  private static final class DefaultTypeHandlers {
+    private static final TypeHandlerRegistry REGISTRY = new TypeHandlerRegistry();
+  }
+
+}
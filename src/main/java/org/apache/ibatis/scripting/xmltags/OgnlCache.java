@@ -49,7 +49,7 @@ public final class OgnlCache {
     }
   }
 
-  private static Object parseExpression(String expression) throws OgnlException {
+  static Object parseExpression(String expression) throws OgnlException {
     Object node = expressionCache.get(expression);
     if (node == null) {
       node = Ognl.parseExpression(expression);
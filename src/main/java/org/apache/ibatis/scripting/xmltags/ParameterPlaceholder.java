@@ -0,0 +1,167 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.ibatis.builder.ParameterExpression;
+import org.apache.ibatis.builder.SqlSourceBuilder;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.reflection.property.PropertyTokenizer;
+import org.apache.ibatis.util.MapUtil;
+
+/**
+ * A {@code #{...}} placeholder found while compiling dynamic SQL.
+ * <p>
+ * Placeholders parsed ahead of time keep the parameter mapping built for each parameter type, so it is reused as long
+ * as the property is read from the parameter object rather than from a binding of the generated SQL.
+ *
+ * @since 3.5.10
+ */
+final class ParameterPlaceholder {
+
+  private static final String OPEN_TOKEN = "#{";
+  private static final String CLOSE_TOKEN = "}";
+  private static final String ESCAPED_OPEN_TOKEN = "\\" + OPEN_TOKEN;
+
+  private final String content;
+  private final String propertyName;
+  private final String indexedPropertyName;
+  private final ConcurrentMap<Class<?>, ParameterMapping> parameterMappings;
+
+  private ParameterPlaceholder(String content, boolean reusable) {
+    this.content = content;
+    String property = reusable ? parseProperty(content) : null;
+    if (property == null) {
+      this.propertyName = null;
+      this.indexedPropertyName = null;
+      this.parameterMappings = null;
+    } else {
+      PropertyTokenizer tokenizer = new PropertyTokenizer(property);
+      this.propertyName = tokenizer.getName();
+      this.indexedPropertyName = tokenizer.getIndexedName();
+      this.parameterMappings = new ConcurrentHashMap<>();
+    }
+  }
+
+  /**
+   * Replaces the placeholders of the given SQL with {@code ?} and collects them in order.
+   * <p>
+   * Unlike the final parse of the SQL, escaped placeholders keep their backslash so that parsing the result again
+   * leaves it unchanged. {@link #unescape(String)} removes it once the SQL is complete.
+   *
+   * @param sql
+   *          the SQL to parse
+   * @param placeholders
+   *          the list the placeholders are added to
+   * @param reusable
+   *          whether the placeholders are parsed ahead of time and will be resolved many times
+   * @return the SQL with each placeholder replaced by {@code ?}
+   */
+  static String parse(String sql, List<ParameterPlaceholder> placeholders, boolean reusable) {
+    int start = sql.indexOf(OPEN_TOKEN);
+    if (start == -1) {
+      return sql;
+    }
+    StringBuilder builder = new StringBuilder(sql.length());
+    StringBuilder expression = new StringBuilder();
+    int offset = 0;
+    do {
+      if (start > 0 && sql.charAt(start - 1) == '\\') {
+        builder.append(sql, offset, start + OPEN_TOKEN.length());
+        offset = start + OPEN_TOKEN.length();
+      } else {
+        expression.setLength(0);
+        builder.append(sql, offset, start);
+        offset = start + OPEN_TOKEN.length();
+        int end = sql.indexOf(CLOSE_TOKEN, offset);
+        while (end > offset && sql.charAt(end - 1) == '\\') {
+          expression.append(sql, offset, end - 1).append(CLOSE_TOKEN);
+          offset = end + CLOSE_TOKEN.length();
+          end = sql.indexOf(CLOSE_TOKEN, offset);
+        }
+        if (end == -1) {
+          builder.append(sql, start, sql.length());
+          offset = sql.length();
+        } else {
+          expression.append(sql, offset, end);
+          placeholders.add(new ParameterPlaceholder(expression.toString(), reusable));
+          builder.append('?');
+          offset = end + CLOSE_TOKEN.length();
+        }
+      }
+      start = sql.indexOf(OPEN_TOKEN, offset);
+    } while (start > -1);
+    builder.append(sql, offset, sql.length());
+    return builder.toString();
+  }
+
+  /**
+   * Removes the backslash that {@link #parse(String, List, boolean)} kept in front of escaped placeholders.
+   *
+   * @param sql
+   *          the parsed SQL
+   * @return the SQL as the final parse would have produced it
+   */
+  static String unescape(String sql) {
+    return sql.contains(ESCAPED_OPEN_TOKEN) ? sql.replace(ESCAPED_OPEN_TOKEN, OPEN_TOKEN) : sql;
+  }
+
+  /**
+   * Returns the parameter mapping of this placeholder.
+   *
+   * @param sqlSourceBuilder
+   *          the builder used to build a parameter mapping
+   * @param parameterType
+   *          the type of the parameter object
+   * @param bindings
+   *          the bindings of the generated SQL
+   * @return the parameter mapping
+   */
+  ParameterMapping getParameterMapping(SqlSourceBuilder sqlSourceBuilder, Class<?> parameterType, Map<String, Object> bindings) {
+    if (!isReusable(bindings)) {
+      return sqlSourceBuilder.buildParameterMapping(content, parameterType, bindings);
+    }
+    return MapUtil.computeIfAbsent(parameterMappings, parameterType,
+        type -> sqlSourceBuilder.buildParameterMapping(content, type, Collections.emptyMap()));
+  }
+
+  /**
+   * Returns whether the parameter mapping depends only on the parameter type, that is the property is not read from
+   * the given bindings.
+   *
+   * @param bindings
+   *          the bindings of the generated SQL
+   * @return {@code true} if the parameter mapping can be reused for the same parameter type
+   */
+  boolean isReusable(Map<String, Object> bindings) {
+    return parameterMappings != null && !bindings.containsKey(propertyName) && !bindings.containsKey(indexedPropertyName);
+  }
+
+  private static String parseProperty(String content) {
+    try {
+      return new ParameterExpression(content).get("property");
+    } catch (RuntimeException e) {
+      // Resolved on every call, which reports the error.
+      return null;
+    }
+  }
+
+}
@@ -0,0 +1,88 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binds a list of values under a single name, exposing each of them by its position, so that a value is read by a
+ * property such as {@code name.42}. This avoids an entry in the bindings for every value of large collections.
+ *
+ * @since 3.5.10
+ */
+final class PositionalBindings extends AbstractMap<String, Object> {
+
+  private final String name;
+  private final List<Object> values = new ArrayList<>();
+
+  PositionalBindings(DynamicContext context, String name) {
+    this.name = name;
+    context.bind(name, this);
+  }
+
+  /**
+   * Adds a value and returns the property that reads it from the bindings.
+   */
+  String add(Object value) {
+    values.add(value);
+    return name + "." + (values.size() - 1);
+  }
+
+  @Override
+  public Object get(Object key) {
+    int position = position(key);
+    return position < 0 ? null : values.get(position);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return position(key) >= 0;
+  }
+
+  @Override
+  public int size() {
+    return values.size();
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    Map<String, Object> map = new LinkedHashMap<>();
+    for (int i = 0; i < values.size(); i++) {
+      map.put(String.valueOf(i), values.get(i));
+    }
+    return map.entrySet();
+  }
+
+  private int position(Object key) {
+    if (key instanceof String) {
+      try {
+        int position = Integer.parseInt((String) key);
+        if (position >= 0 && position < values.size()) {
+          return position;
+        }
+      } catch (NumberFormatException e) {
+        // not a position
+      }
+    }
+    return -1;
+  }
+
+}
@@ -0,0 +1,166 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.scripting.xmltags;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ibatis.mapping.ParameterMapping;
+
+/**
+ * Keeps the SQL generated by a {@link DynamicSqlSource} for each shape it takes.
+ * <p>
+ * A shape is the parameter type together with the decisions taken while applying the dynamic SQL: which tests
+ * matched, how many times each foreach iterated and what each {@code ${...}} produced. Calls with the same shape
+ * generate the same SQL, so it is built once and reused. Once full, the oldest shape is evicted first.
+ *
+ * @since 3.5.10
+ */
+public class SqlShapeCache {
+
+  private final int maxSize;
+  private final ConcurrentMap<ShapeKey, SqlShape> shapes = new ConcurrentHashMap<>();
+  private final Queue<ShapeKey> keys = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public SqlShapeCache(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Returns the number of calls that reused the SQL of a known shape.
+   *
+   * @return the number of hits
+   */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of calls that had to build their SQL.
+   *
+   * @return the number of misses
+   */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Returns the number of shapes kept.
+   *
+   * @return the number of shapes
+   */
+  public int getSize() {
+    return size.get();
+  }
+
+  /**
+   * Returns the number of shapes kept before the oldest is evicted.
+   *
+   * @return the maximum number of shapes
+   */
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  SqlShape getShape(Class<?> parameterType, List<Object> decisions) {
+    SqlShape shape = shapes.get(new ShapeKey(parameterType, decisions));
+    if (shape == null) {
+      misses.increment();
+    } else {
+      hits.increment();
+    }
+    return shape;
+  }
+
+  void putShape(Class<?> parameterType, List<Object> decisions, SqlShape shape) {
+    ShapeKey key = new ShapeKey(parameterType, decisions);
+    if (shapes.putIfAbsent(key, shape) == null) {
+      keys.add(key);
+      if (size.incrementAndGet() > maxSize) {
+        ShapeKey oldestKey = keys.poll();
+        if (oldestKey != null) {
+          shapes.remove(oldestKey);
+          size.decrementAndGet();
+        }
+      }
+    }
+  }
+
+  static final class SqlShape {
+    private final String sql;
+    private final List<ParameterPlaceholder> placeholders;
+    private final List<ParameterMapping> parameterMappings;
+
+    SqlShape(String sql, List<ParameterPlaceholder> placeholders, List<ParameterMapping> parameterMappings) {
+      this.sql = sql;
+      this.placeholders = placeholders;
+      this.parameterMappings = parameterMappings;
+    }
+
+    String getSql() {
+      return sql;
+    }
+
+    List<ParameterPlaceholder> getPlaceholders() {
+      return placeholders;
+    }
+
+    /**
+     * Returns the parameter mappings, or {@code null} if some depend on the bindings of each call.
+     */
+    List<ParameterMapping> getParameterMappings() {
+      return parameterMappings;
+    }
+  }
+
+  private static final class ShapeKey {
+    private final Class<?> parameterType;
+    private final List<Object> decisions;
+    private final int hashCode;
+
+    ShapeKey(Class<?> parameterType, List<Object> decisions) {
+      this.parameterType = parameterType;
+      this.decisions = decisions;
+      this.hashCode = 31 * parameterType.hashCode() + decisions.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ShapeKey)) {
+        return false;
+      }
+      ShapeKey other = (ShapeKey) o;
+      return hashCode == other.hashCode && parameterType.equals(other.parameterType) && decisions.equals(other.decisions);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+}
@@ -110,7 +110,42 @@ public class TrimSqlNode implements SqlNode {
 
     @Override
     public void appendSql(String sql) {
-      sqlBuffer.append(sql);
+      sqlBuffer.append(delegate.parseParameters(sql));
+    }
+
+    @Override
+    boolean isCompiled() {
+      return delegate.isCompiled();
+    }
+
+    @Override
+    String parseParameters(String sql) {
+      return delegate.parseParameters(sql);
+    }
+
+    @Override
+    void addParameterPlaceholders(List<ParameterPlaceholder> placeholders) {
+      delegate.addParameterPlaceholders(placeholders);
+    }
+
+    @Override
+    boolean isProbe() {
+      return delegate.isProbe();
+    }
+
+    @Override
+    void recordShape(Object decision) {
+      delegate.recordShape(decision);
+    }
+
+    @Override
+    int getParameterCount() {
+      return delegate.getParameterCount();
+    }
+
+    @Override
+    ForEachSplit getForEachSplit() {
+      return delegate.getForEachSplit();
     }
 
     @Override
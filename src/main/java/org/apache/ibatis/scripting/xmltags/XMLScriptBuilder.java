@@ -18,6 +18,7 @@ package org.apache.ibatis.scripting.xmltags;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 import org.apache.ibatis.builder.BaseBuilder;
@@ -36,6 +37,7 @@ public class XMLScriptBuilder extends BaseBuilder {
 
   private final XNode context;
   private boolean isDynamic;
+  private int forEachDepth;
   private final Class<?> parameterType;
   private final Map<String, NodeHandler> nodeHandlerMap = new HashMap<>();
 
@@ -56,6 +58,7 @@ public class XMLScriptBuilder extends BaseBuilder {
     nodeHandlerMap.put("where", new WhereHandler());
     nodeHandlerMap.put("set", new SetHandler());
     nodeHandlerMap.put("foreach", new ForEachHandler());
+    nodeHandlerMap.put("inlist", new InListHandler());
     nodeHandlerMap.put("if", new IfHandler());
     nodeHandlerMap.put("choose", new ChooseHandler());
     nodeHandlerMap.put("when", new IfHandler());
@@ -85,6 +88,8 @@ public class XMLScriptBuilder extends BaseBuilder {
         if (textSqlNode.isDynamic()) {
           contents.add(textSqlNode);
           isDynamic = true;
+        } else if (isCompilable(data)) {
+          contents.add(new CompiledTextSqlNode(data));
         } else {
           contents.add(new StaticTextSqlNode(data));
         }
@@ -101,6 +106,11 @@ public class XMLScriptBuilder extends BaseBuilder {
     return new MixedSqlNode(contents);
   }
 
+  private boolean isCompilable(String data) {
+    // foreach rewrites the item placeholders of its body, so its text stays as it is
+    return configuration.isCompiledDynamicSql() && forEachDepth == 0 && data.contains("#{");
+  }
+
   private interface NodeHandler {
     void handleNode(XNode nodeToHandle, List<SqlNode> targetContents);
   }
@@ -169,7 +179,13 @@ public class XMLScriptBuilder extends BaseBuilder {
 
     @Override
     public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
-      MixedSqlNode mixedSqlNode = parseDynamicTags(nodeToHandle);
+      forEachDepth++;
+      MixedSqlNode mixedSqlNode;
+      try {
+        mixedSqlNode = parseDynamicTags(nodeToHandle);
+      } finally {
+        forEachDepth--;
+      }
       String collection = nodeToHandle.getStringAttribute("collection");
       Boolean nullable = nodeToHandle.getBooleanAttribute("nullable");
       String item = nodeToHandle.getStringAttribute("item");
@@ -177,11 +193,38 @@ public class XMLScriptBuilder extends BaseBuilder {
       String open = nodeToHandle.getStringAttribute("open");
       String close = nodeToHandle.getStringAttribute("close");
       String separator = nodeToHandle.getStringAttribute("separator");
-      ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, nullable, index, item, open, close, separator);
+      boolean split = nodeToHandle.getBooleanAttribute("split", false);
+      ForEachSqlNode forEachSqlNode = new ForEachSqlNode(configuration, mixedSqlNode, collection, nullable, split, index, item, open, close, separator);
       targetContents.add(forEachSqlNode);
     }
   }
 
+  private class InListHandler implements NodeHandler {
+    public InListHandler() {
+      // Prevent Synthetic Access
+    }
+
+    @Override
+    public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
+      String column = nodeToHandle.getStringAttribute("column");
+      String collection = nodeToHandle.getStringAttribute("collection");
+      Boolean nullable = nodeToHandle.getBooleanAttribute("nullable");
+      InListSqlNode.ArrayBinding arrayBinding = resolveArrayBinding(nodeToHandle.getStringAttribute("array"));
+      targetContents.add(new InListSqlNode(configuration, column, collection, nullable, arrayBinding));
+    }
+  }
+
+  private static InListSqlNode.ArrayBinding resolveArrayBinding(String alias) {
+    if (alias == null) {
+      return null;
+    }
+    try {
+      return InListSqlNode.ArrayBinding.valueOf(alias.toUpperCase(Locale.ENGLISH));
+    } catch (IllegalArgumentException e) {
+      throw new BuilderException("Unknown array binding '" + alias + "' of <inlist>. Use 'any' or 'unnest'.", e);
+    }
+  }
+
   private class IfHandler implements NodeHandler {
     public IfHandler() {
       // Prevent Synthetic Access
@@ -191,7 +234,7 @@ public class XMLScriptBuilder extends BaseBuilder {
     public void handleNode(XNode nodeToHandle, List<SqlNode> targetContents) {
       MixedSqlNode mixedSqlNode = parseDynamicTags(nodeToHandle);
       String test = nodeToHandle.getStringAttribute("test");
-      IfSqlNode ifSqlNode = new IfSqlNode(mixedSqlNode, test);
+      IfSqlNode ifSqlNode = new IfSqlNode(configuration, mixedSqlNode, test);
       targetContents.add(ifSqlNode);
     }
   }
@@ -15,8 +15,10 @@
  */
 package org.apache.ibatis.session;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -25,6 +27,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -37,23 +41,28 @@ import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
 import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.CachingExecutor;
-import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ReuseExecutor;
 import org.apache.ibatis.executor.SimpleExecutor;
+import org.apache.ibatis.executor.SingleFlightLoader;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.AutoMappingPlanCache;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
+import org.apache.ibatis.executor.resultset.RowMapperCompiler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.io.VFS;
@@ -72,6 +81,8 @@ import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMap;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
 import org.apache.ibatis.mapping.VendorDatabaseIdProvider;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.plugin.Interceptor;
@@ -94,6 +105,7 @@ import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeAliasRegistry;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
+import org.apache.ibatis.util.MapUtil;
 
 /**
  * @author Clinton Begin
@@ -115,6 +127,13 @@ public class Configuration {
   protected boolean returnInstanceForEmptyRow;
   protected boolean shrinkWhitespacesInSql;
   protected boolean nullableOnForEach;
+  protected boolean singleFlightCacheLoading;
+  protected boolean compiledDynamicSql;
+  protected boolean compiledExpressions;
+  protected boolean positionalForEachBinding;
+  protected boolean physicalPagination;
+  protected boolean compiledRowMappers;
+  protected boolean autoResultOrdered;
 
   protected String logPrefix;
   protected Class<? extends Log> logImpl;
@@ -125,6 +144,11 @@ public class Configuration {
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
   protected Integer defaultFetchSize;
+  protected Long singleFlightCacheWaitTimeout;
+  protected Integer dynamicSqlShapeCacheSize;
+  protected Integer maxParametersPerStatement;
+  protected PaginationDialect paginationDialect;
+  protected Executor asyncExecutor;
   protected ResultSetType defaultResultSetType;
   protected ExecutorType defaultExecutorType = ExecutorType.SIMPLE;
   protected AutoMappingBehavior autoMappingBehavior = AutoMappingBehavior.PARTIAL;
@@ -149,7 +173,10 @@ public class Configuration {
 
   protected final MapperRegistry mapperRegistry = new MapperRegistry(this);
   protected final InterceptorChain interceptorChain = new InterceptorChain();
+  protected final SingleFlightLoader singleFlightLoader = new SingleFlightLoader();
+  protected final RowMapperCompiler rowMapperCompiler = new RowMapperCompiler();
   protected final TypeHandlerRegistry typeHandlerRegistry = new TypeHandlerRegistry(this);
+  protected final AutoMappingPlanCache autoMappingPlanCache = new AutoMappingPlanCache(typeHandlerRegistry);
   protected final TypeAliasRegistry typeAliasRegistry = new TypeAliasRegistry();
   protected final LanguageDriverRegistry languageRegistry = new LanguageDriverRegistry();
 
@@ -160,6 +187,7 @@ public class Configuration {
   protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
   protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
+  protected final Map<String, MappedStatement> countStatements = new ConcurrentHashMap<>();
 
   protected final Set<String> loadedResources = new HashSet<>();
   protected final Map<String, XNode> sqlFragments = new StrictMap<>("XML fragments parsed from previous mappers");
@@ -190,10 +218,13 @@ public class Configuration {
     typeAliasRegistry.registerAlias("UNPOOLED", UnpooledDataSourceFactory.class);
 
     typeAliasRegistry.registerAlias("PERPETUAL", PerpetualCache.class);
+    typeAliasRegistry.registerAlias("CONCURRENT", ConcurrentPerpetualCache.class);
+    typeAliasRegistry.registerAlias("OFFHEAP", OffHeapCache.class);
     typeAliasRegistry.registerAlias("FIFO", FifoCache.class);
     typeAliasRegistry.registerAlias("LRU", LruCache.class);
     typeAliasRegistry.registerAlias("SOFT", SoftCache.class);
     typeAliasRegistry.registerAlias("WEAK", WeakCache.class);
+    typeAliasRegistry.registerAlias("TINYLFU", TinyLfuCache.class);
 
     typeAliasRegistry.registerAlias("DB_VENDOR", VendorDatabaseIdProvider.class);
 
@@ -320,6 +351,319 @@ public class Configuration {
     return nullableOnForEach;
   }
 
+  /**
+   * Returns whether concurrent sessions missing the same second-level cache entry share one query.
+   *
+   * <p>Default is {@code false}.
+   *
+   * @return {@code true} if cache loads are shared
+   * @since 3.5.10
+   */
+  public boolean isSingleFlightCacheLoading() {
+    return singleFlightCacheLoading;
+  }
+
+  /**
+   * Sets whether concurrent sessions missing the same second-level cache entry share one query.
+   *
+   * @param singleFlightCacheLoading
+   *          {@code true} to share cache loads
+   * @since 3.5.10
+   */
+  public void setSingleFlightCacheLoading(boolean singleFlightCacheLoading) {
+    this.singleFlightCacheLoading = singleFlightCacheLoading;
+  }
+
+  /**
+   * Returns how many milliseconds a session waits for a concurrent session loading the same cache entry before it
+   * queries on its own.
+   *
+   * @return the wait timeout, or {@code null} to wait until the load finishes
+   * @since 3.5.10
+   */
+  public Long getSingleFlightCacheWaitTimeout() {
+    return singleFlightCacheWaitTimeout;
+  }
+
+  /**
+   * Sets how many milliseconds a session waits for a concurrent session loading the same cache entry before it
+   * queries on its own.
+   *
+   * @param singleFlightCacheWaitTimeout
+   *          the wait timeout, or {@code null} to wait until the load finishes
+   * @since 3.5.10
+   */
+  public void setSingleFlightCacheWaitTimeout(Long singleFlightCacheWaitTimeout) {
+    this.singleFlightCacheWaitTimeout = singleFlightCacheWaitTimeout;
+  }
+
+  /**
+   * Returns whether the static text of dynamic SQL is parsed once, when the statement is built.
+   *
+   * <p>Default is {@code false}.
+   *
+   * @return {@code true} if dynamic SQL is compiled
+   * @since 3.5.10
+   */
+  public boolean isCompiledDynamicSql() {
+    return compiledDynamicSql;
+  }
+
+  /**
+   * Sets whether the static text of dynamic SQL is parsed once, when the statement is built, instead of on every
+   * execution. Applies to statements built after it is set.
+   *
+   * @param compiledDynamicSql
+   *          {@code true} to compile dynamic SQL
+   * @since 3.5.10
+   */
+  public void setCompiledDynamicSql(boolean compiledDynamicSql) {
+    this.compiledDynamicSql = compiledDynamicSql;
+  }
+
+  /**
+   * Returns whether the test and collection expressions of dynamic SQL are compiled instead of interpreted by OGNL.
+   *
+   * <p>Default is {@code false}.
+   *
+   * @return {@code true} if expressions are compiled
+   * @since 3.5.10
+   */
+  public boolean isCompiledExpressions() {
+    return compiledExpressions;
+  }
+
+  /**
+   * Sets whether the test and collection expressions of dynamic SQL are compiled into method handle chains. Expressions
+   * that cannot be compiled are still evaluated by OGNL. Applies to statements built after it is set.
+   *
+   * @param compiledExpressions
+   *          {@code true} to compile expressions
+   * @since 3.5.10
+   */
+  public void setCompiledExpressions(boolean compiledExpressions) {
+    this.compiledExpressions = compiledExpressions;
+  }
+
+  /**
+   * Returns how many shapes of its SQL each dynamic statement keeps.
+   *
+   * @return the maximum number of shapes per statement, or {@code null} if the SQL is built on every call
+   * @since 3.5.10
+   */
+  public Integer getDynamicSqlShapeCacheSize() {
+    return dynamicSqlShapeCacheSize;
+  }
+
+  /**
+   * Sets how many shapes of its SQL each dynamic statement keeps. Calls that take the same decisions (matched tests,
+   * foreach iterations and {@code ${...}} values) with the same parameter type then reuse the SQL and parameter
+   * mappings built for the first one. Applies to statements built after it is set.
+   *
+   * @param dynamicSqlShapeCacheSize
+   *          the maximum number of shapes per statement, or {@code null} to build the SQL on every call
+   * @since 3.5.10
+   */
+  public void setDynamicSqlShapeCacheSize(Integer dynamicSqlShapeCacheSize) {
+    this.dynamicSqlShapeCacheSize = dynamicSqlShapeCacheSize;
+  }
+
+  /**
+   * Returns whether the items of a foreach are bound by their position instead of by a name per item.
+   *
+   * <p>Default is {@code false}.
+   *
+   * @return {@code true} if the items are bound by their position
+   * @since 3.5.10
+   */
+  public boolean isPositionalForEachBinding() {
+    return positionalForEachBinding;
+  }
+
+  /**
+   * Sets whether the items of a foreach are bound by their position. All the items are then bound under a single
+   * name, and a parameter such as {@code #{item.id}} reads the property {@code __frch_item_0.42.id} instead of
+   * {@code __frch_item_42.id}.
+   *
+   * @param positionalForEachBinding
+   *          {@code true} to bind the items by their position
+   * @since 3.5.10
+   */
+  public void setPositionalForEachBinding(boolean positionalForEachBinding) {
+    this.positionalForEachBinding = positionalForEachBinding;
+  }
+
+  /**
+   * Returns the maximum number of parameters a dynamic statement binds before it is split.
+   *
+   * @return the maximum number of parameters, or {@code null} if statements are never split
+   * @since 3.5.10
+   */
+  public Integer getMaxParametersPerStatement() {
+    return maxParametersPerStatement;
+  }
+
+  /**
+   * Sets the maximum number of parameters a dynamic statement binds. A statement that binds more is split into chunks
+   * of the items of its largest top-level foreach declared with {@code split="true"}, which the executor runs as
+   * separate statements (or batch entries) and whose results it concatenates. The foreach must be the whole list of an
+   * IN condition only combined with AND, in a statement that neither merges, orders nor limits its rows, or the rows of
+   * an INSERT ... VALUES statement. Queries with row bounds and updates that generate keys are not split, and a split
+   * query cannot be returned as a cursor.
+   *
+   * @param maxParametersPerStatement
+   *          the maximum number of parameters, or {@code null} to never split statements
+   * @since 3.5.10
+   */
+  public void setMaxParametersPerStatement(Integer maxParametersPerStatement) {
+    this.maxParametersPerStatement = maxParametersPerStatement;
+  }
+
+  /**
+   * Returns whether the row bounds of a query are applied by the database.
+   *
+   * <p>Default is {@code false}.
+   *
+   * @return {@code true} if the row bounds are applied by the database
+   * @since 3.5.10
+   */
+  public boolean isPhysicalPagination() {
+    return physicalPagination;
+  }
+
+  /**
+   * Sets whether the row bounds of a query are applied by the database. The executor then appends the offset and limit
+   * clauses of the {@link #getPaginationDialect() pagination dialect} to the query instead of skipping the rows of
+   * the result set. Callable statements, queries with nested result maps, queries of an unknown database and queries
+   * that do not end in the body of a single {@code SELECT} keep skipping rows.
+   *
+   * @param physicalPagination
+   *          {@code true} to apply the row bounds in the database
+   * @since 3.5.10
+   */
+  public void setPhysicalPagination(boolean physicalPagination) {
+    this.physicalPagination = physicalPagination;
+  }
+
+  /**
+   * Returns the pagination dialect. When not set, it is chosen from the {@link #getDatabaseId() database id}.
+   *
+   * @return the pagination dialect, or {@code null} if the database is unknown
+   * @since 3.5.10
+   */
+  public PaginationDialect getPaginationDialect() {
+    return paginationDialect != null ? paginationDialect : PaginationDialect.forDatabaseId(databaseId);
+  }
+
+  /**
+   * Sets the pagination dialect.
+   *
+   * @param paginationDialect
+   *          the pagination dialect, or {@code null} to choose it from the database id
+   * @since 3.5.10
+   */
+  public void setPaginationDialect(PaginationDialect paginationDialect) {
+    this.paginationDialect = paginationDialect;
+  }
+
+  /**
+   * Returns the executor that runs the mapper methods returning a {@code CompletableFuture} or a
+   * {@code CompletionStage}.
+   *
+   * @return the executor, or {@code null} if the asynchronous mapper methods are not enabled
+   * @since 3.5.10
+   */
+  public Executor getAsyncExecutor() {
+    return asyncExecutor;
+  }
+
+  /**
+   * Sets the executor that runs the mapper methods returning a {@code CompletableFuture} or a
+   * {@code CompletionStage}. Each call runs in a session of its own, opened from this configuration, which is
+   * committed when the statement succeeds and rolled back when it fails. It does not join the transaction of the session
+   * the mapper was got from. As the calls block on JDBC, the executor should be sized for the data source rather than
+   * for the processors; without one, calling such a method fails with a {@code BindingException}.
+   * <p>
+   * The session is opened by a {@code DefaultSqlSessionFactory} over this configuration, not by the factory the mapper
+   * was got from, so a {@code SqlSessionManager} or a factory managed by a container (for example Spring, with its
+   * transaction synchronization) takes no part in the call.
+   *
+   * @param asyncExecutor
+   *          the executor, or {@code null} to disable the asynchronous mapper methods
+   * @since 3.5.10
+   */
+  public void setAsyncExecutor(Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Returns whether the rows of simple result maps are mapped by generated classes.
+   *
+   * @return {@code true} if the row mappers are generated
+   * @since 3.5.10
+   */
+  public boolean isCompiledRowMappers() {
+    return compiledRowMappers;
+  }
+
+  /**
+   * Sets whether the rows of simple result maps are mapped by generated classes, which read the columns by index and call
+   * the constructor and setters of the result type directly. Result maps with a discriminator, a constructor, nested
+   * results or nested queries, as well as custom object factories and object wrapper factories, keep to the reflective
+   * mapping.
+   *
+   * @param compiledRowMappers
+   *          {@code true} to generate the row mappers
+   * @since 3.5.10
+   */
+  public void setCompiledRowMappers(boolean compiledRowMappers) {
+    this.compiledRowMappers = compiledRowMappers;
+  }
+
+  /**
+   * Returns whether the statements with nested result maps are processed as ordered by parent.
+   *
+   * @return {@code true} if the statements are processed as ordered by parent
+   * @since 3.5.10
+   */
+  public boolean isAutoResultOrdered() {
+    return autoResultOrdered;
+  }
+
+  /**
+   * Sets whether the statements with nested result maps are processed as ordered by parent even without
+   * {@code resultOrdered}, releasing the objects of each parent once the rows of the next parent start. A parent whose
+   * rows follow the rows of other parents fails the statement with an {@link org.apache.ibatis.executor.ExecutorException}.
+   *
+   * @param autoResultOrdered
+   *          {@code true} to process the statements as ordered by parent
+   * @since 3.5.10
+   */
+  public void setAutoResultOrdered(boolean autoResultOrdered) {
+    this.autoResultOrdered = autoResultOrdered;
+  }
+
+  /**
+   * Returns the compiler that generates and caches the row mappers of simple result maps.
+   *
+   * @return the row mapper compiler
+   * @since 3.5.10
+   */
+  public RowMapperCompiler getRowMapperCompiler() {
+    return rowMapperCompiler;
+  }
+
+  /**
+   * Returns the cache of the column names and automatic mappings of each result map and result set layout, shared by
+   * all the statement executions.
+   *
+   * @return the auto-mapping plan cache
+   * @since 3.5.10
+   */
+  public AutoMappingPlanCache getAutoMappingPlanCache() {
+    return autoMappingPlanCache;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -358,6 +702,7 @@ public class Configuration {
 
   public void setMapUnderscoreToCamelCase(boolean mapUnderscoreToCamelCase) {
     this.mapUnderscoreToCamelCase = mapUnderscoreToCamelCase;
+    autoMappingPlanCache.clear();
   }
 
   public void addLoadedResource(String resource) {
@@ -590,6 +935,7 @@ public class Configuration {
 
   public void setReflectorFactory(ReflectorFactory reflectorFactory) {
     this.reflectorFactory = reflectorFactory;
+    autoMappingPlanCache.clear();
   }
 
   public ObjectFactory getObjectFactory() {
@@ -598,6 +944,7 @@ public class Configuration {
 
   public void setObjectFactory(ObjectFactory objectFactory) {
     this.objectFactory = objectFactory;
+    autoMappingPlanCache.clear();
   }
 
   public ObjectWrapperFactory getObjectWrapperFactory() {
@@ -606,6 +953,7 @@ public class Configuration {
 
   public void setObjectWrapperFactory(ObjectWrapperFactory objectWrapperFactory) {
     this.objectWrapperFactory = objectWrapperFactory;
+    autoMappingPlanCache.clear();
   }
 
   /**
@@ -670,27 +1018,27 @@ public class Configuration {
     return parameterHandler;
   }
 
-  public ResultSetHandler newResultSetHandler(Executor executor, MappedStatement mappedStatement, RowBounds rowBounds, ParameterHandler parameterHandler,
+  public ResultSetHandler newResultSetHandler(org.apache.ibatis.executor.Executor executor, MappedStatement mappedStatement, RowBounds rowBounds, ParameterHandler parameterHandler,
       ResultHandler resultHandler, BoundSql boundSql) {
     ResultSetHandler resultSetHandler = new DefaultResultSetHandler(executor, mappedStatement, parameterHandler, resultHandler, boundSql, rowBounds);
     resultSetHandler = (ResultSetHandler) interceptorChain.pluginAll(resultSetHandler);
     return resultSetHandler;
   }
 
-  public StatementHandler newStatementHandler(Executor executor, MappedStatement mappedStatement, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
+  public StatementHandler newStatementHandler(org.apache.ibatis.executor.Executor executor, MappedStatement mappedStatement, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) {
     StatementHandler statementHandler = new RoutingStatementHandler(executor, mappedStatement, parameterObject, rowBounds, resultHandler, boundSql);
     statementHandler = (StatementHandler) interceptorChain.pluginAll(statementHandler);
     return statementHandler;
   }
 
-  public Executor newExecutor(Transaction transaction) {
+  public org.apache.ibatis.executor.Executor newExecutor(Transaction transaction) {
     return newExecutor(transaction, defaultExecutorType);
   }
 
-  public Executor newExecutor(Transaction transaction, ExecutorType executorType) {
+  public org.apache.ibatis.executor.Executor newExecutor(Transaction transaction, ExecutorType executorType) {
     executorType = executorType == null ? defaultExecutorType : executorType;
     executorType = executorType == null ? ExecutorType.SIMPLE : executorType;
-    Executor executor;
+    org.apache.ibatis.executor.Executor executor;
     if (ExecutorType.BATCH == executorType) {
       executor = new BatchExecutor(this, transaction);
     } else if (ExecutorType.REUSE == executorType) {
@@ -699,9 +1047,11 @@ public class Configuration {
       executor = new SimpleExecutor(this, transaction);
     }
     if (cacheEnabled) {
-      executor = new CachingExecutor(executor);
+      executor = singleFlightCacheLoading
+          ? new CachingExecutor(executor, singleFlightLoader, singleFlightCacheWaitTimeout)
+          : new CachingExecutor(executor);
     }
-    executor = (Executor) interceptorChain.pluginAll(executor);
+    executor = (org.apache.ibatis.executor.Executor) interceptorChain.pluginAll(executor);
     return executor;
   }
 
@@ -844,6 +1194,53 @@ public class Configuration {
     return mappedStatements.get(id);
   }
 
+  /**
+   * Returns the statement that counts the rows the given query returns without row bounds.
+   *
+   * @param id
+   *          the id of the query
+   * @return the count statement, whose id is the id of the query followed by {@code !count}
+   * @since 3.5.10
+   */
+  public MappedStatement getCountStatement(String id) {
+    MappedStatement ms = getMappedStatement(id);
+    return MapUtil.computeIfAbsent(countStatements, ms.getId(), k -> buildCountStatement(ms));
+  }
+
+  private MappedStatement buildCountStatement(MappedStatement ms) {
+    String id = ms.getId() + "!count";
+    SqlSource sqlSource = parameterObject -> {
+      BoundSql boundSql = ms.getBoundSql(parameterObject);
+      BoundSql countBoundSql = getCountBoundSql(boundSql);
+      if (boundSql.getChunks() != null) {
+        // each chunk is counted, like each is queried
+        List<BoundSql> countChunks = new ArrayList<>(boundSql.getChunks().size());
+        for (BoundSql chunk : boundSql.getChunks()) {
+          countChunks.add(getCountBoundSql(chunk));
+        }
+        countBoundSql.setChunks(countChunks);
+      }
+      return countBoundSql;
+    };
+    ResultMap resultMap = new ResultMap.Builder(this, id + "-Inline", Long.class, new ArrayList<>()).build();
+    return new MappedStatement.Builder(this, id, sqlSource, SqlCommandType.SELECT)
+        .resource(ms.getResource())
+        .statementType(ms.getStatementType())
+        .parameterMap(ms.getParameterMap())
+        .resultMaps(Collections.singletonList(resultMap))
+        .timeout(ms.getTimeout())
+        .cache(ms.getCache())
+        .flushCacheRequired(ms.isFlushCacheRequired())
+        .useCache(ms.isUseCache())
+        .databaseId(ms.getDatabaseId())
+        .lang(ms.getLang())
+        .build();
+  }
+
+  private static BoundSql getCountBoundSql(BoundSql boundSql) {
+    return boundSql.withSql(PaginationDialect.getCountSql(boundSql.getSql()), boundSql.getParameterMappings());
+  }
+
   public Map<String, XNode> getSqlFragments() {
     return sqlFragments;
   }
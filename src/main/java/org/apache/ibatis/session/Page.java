@@ -0,0 +1,60 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A page of rows fetched with a {@link Seek}, and the bounds of the page that follows it.
+ *
+ * @param <T>
+ *          the type of the rows
+ * @since 3.5.10
+ */
+public class Page<T> implements Iterable<T> {
+
+  private final List<T> items;
+  private final Seek next;
+
+  public Page(List<T> items, Seek next) {
+    this.items = items;
+    this.next = next;
+  }
+
+  public List<T> getItems() {
+    return items;
+  }
+
+  /**
+   * Returns the bounds of the next page. A full page always has a next page, which may turn out to be empty.
+   *
+   * @return the bounds of the next page, or {@code null} if this page is the last one
+   */
+  public Seek getNext() {
+    return next;
+  }
+
+  public boolean hasNext() {
+    return next != null;
+  }
+
+  @Override
+  public Iterator<T> iterator() {
+    return items.iterator();
+  }
+
+}
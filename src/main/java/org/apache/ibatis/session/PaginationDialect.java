@@ -0,0 +1,184 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
+
+/**
+ * The SQL clauses a database uses to skip and limit the rows of a query, so that row bounds are applied by the
+ * database instead of by skipping rows of the result set.
+ *
+ * <p>The clauses are only appended to a single {@code SELECT} that ends in its body. A query that already limits its
+ * rows, locks them, or combines several queries with {@code UNION} is not paged by the database.
+ *
+ * @since 3.5.10
+ * @see Configuration#isPhysicalPagination()
+ */
+public enum PaginationDialect {
+
+  /**
+   * {@code LIMIT ? OFFSET ?}, for MySQL, MariaDB, PostgreSQL, H2, HSQLDB and SQLite.
+   */
+  LIMIT_OFFSET(" LIMIT ? OFFSET ?", false),
+
+  /**
+   * {@code OFFSET ? ROWS FETCH NEXT ? ROWS ONLY} from SQL:2008, for Oracle 12c, SQL Server 2012, DB2 and Derby. SQL
+   * Server only accepts it after an {@code ORDER BY}.
+   */
+  OFFSET_FETCH(" OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", true);
+
+  public static final String OFFSET_PARAMETER = "__page_offset";
+  public static final String LIMIT_PARAMETER = "__page_limit";
+
+  private static final Log log = LogFactory.getLog(PaginationDialect.class);
+
+  private static final Set<String> UNPAGEABLE_KEYWORDS = new HashSet<>(Arrays.asList("LIMIT", "OFFSET", "FETCH",
+      "TOP", "FOR", "LOCK", "OPTION", "UNION", "INTERSECT", "EXCEPT", "MINUS"));
+
+  private final String clauses;
+  private final boolean offsetFirst;
+
+  PaginationDialect(String clauses, boolean offsetFirst) {
+    this.clauses = clauses;
+    this.offsetFirst = offsetFirst;
+  }
+
+  /**
+   * Returns a copy of the statement that only returns the rows within the given bounds.
+   *
+   * @param configuration
+   *          the configuration
+   * @param boundSql
+   *          the statement
+   * @param rowBounds
+   *          the bounds of the rows
+   * @return the paged statement, or {@code null} if the statement does not end in the body of a {@code SELECT}
+   */
+  public BoundSql getPagedBoundSql(Configuration configuration, BoundSql boundSql, RowBounds rowBounds) {
+    String sql = getSelectBody(boundSql.getSql());
+    if (sql == null) {
+      if (log.isDebugEnabled()) {
+        log.debug("Not paging in the database a query that does not end in the body of a SELECT: " + boundSql.getSql());
+      }
+      return null;
+    }
+    List<ParameterMapping> parameterMappings = new ArrayList<>(boundSql.getParameterMappings());
+    ParameterMapping offset = new ParameterMapping.Builder(configuration, OFFSET_PARAMETER, int.class).build();
+    ParameterMapping limit = new ParameterMapping.Builder(configuration, LIMIT_PARAMETER, int.class).build();
+    parameterMappings.add(offsetFirst ? offset : limit);
+    parameterMappings.add(offsetFirst ? limit : offset);
+    BoundSql pagedBoundSql = boundSql.withSql(sql + clauses, parameterMappings);
+    pagedBoundSql.setAdditionalParameter(OFFSET_PARAMETER, rowBounds.getOffset());
+    pagedBoundSql.setAdditionalParameter(LIMIT_PARAMETER, rowBounds.getLimit());
+    return pagedBoundSql;
+  }
+
+  /**
+   * Returns the SQL that counts the rows the given query returns.
+   *
+   * @param sql
+   *          the query
+   * @return the count query
+   */
+  public static String getCountSql(String sql) {
+    return "SELECT COUNT(*) FROM (" + trimSemicolons(sql) + ") total_count";
+  }
+
+  /**
+   * Returns the query without its trailing semicolons if it is a single {@code SELECT} that clauses can be appended to.
+   */
+  static String getSelectBody(String sql) {
+    String body = trimSemicolons(sql);
+    boolean first = true;
+    int depth = 0;
+    for (int i = 0; i < body.length(); i++) {
+      char c = body.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        i = body.indexOf(c, i + 1);
+      } else if (body.startsWith("--", i)) {
+        i = body.indexOf('\n', i);
+      } else if (body.startsWith("/*", i)) {
+        i = body.indexOf("*/", i);
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (c == ';') {
+        return null;
+      } else if (Character.isLetterOrDigit(c) || c == '_') {
+        int start = i;
+        while (i + 1 < body.length() && (Character.isLetterOrDigit(body.charAt(i + 1)) || body.charAt(i + 1) == '_')) {
+          i++;
+        }
+        if (depth == 0 && (start == 0 || body.charAt(start - 1) != '.')) {
+          String word = body.substring(start, i + 1).toUpperCase(Locale.ENGLISH);
+          if (first ? !word.equals("SELECT") && !word.equals("WITH") : UNPAGEABLE_KEYWORDS.contains(word)) {
+            return null;
+          }
+          first = false;
+        }
+      }
+      if (i < 0) {
+        // an unterminated quote or comment
+        return null;
+      }
+    }
+    return first ? null : body;
+  }
+
+  static String trimSemicolons(String sql) {
+    String trimmed = sql.trim();
+    while (trimmed.endsWith(";")) {
+      trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+    }
+    return trimmed;
+  }
+
+  /**
+   * Returns the dialect of the database with the given id, as set by the
+   * {@link org.apache.ibatis.mapping.DatabaseIdProvider}.
+   *
+   * @param databaseId
+   *          the database id, like {@code postgresql} or {@code oracle}
+   * @return the dialect, or {@code null} if the database is unknown
+   */
+  public static PaginationDialect forDatabaseId(String databaseId) {
+    if (databaseId == null) {
+      return null;
+    }
+    String vendor = databaseId.toLowerCase(Locale.ENGLISH);
+    if (vendor.startsWith("mysql") || vendor.startsWith("mariadb") || vendor.startsWith("postgres")
+        || vendor.equals("h2") || vendor.startsWith("hsql") || vendor.startsWith("sqlite")) {
+      return LIMIT_OFFSET;
+    }
+    if (vendor.startsWith("oracle") || vendor.equals("sqlserver") || vendor.equals("mssql") || vendor.startsWith("db2")
+        || vendor.equals("derby")) {
+      return OFFSET_FETCH;
+    }
+    return null;
+  }
+
+}
@@ -0,0 +1,61 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.List;
+
+/**
+ * A query run by {@link SqlSessionFactory#selectAll(List, java.util.concurrent.Executor)}.
+ *
+ * @since 3.5.10
+ */
+public class QuerySpec {
+
+  private final String statement;
+  private final Object parameter;
+  private final RowBounds rowBounds;
+
+  public QuerySpec(String statement) {
+    this(statement, null);
+  }
+
+  public QuerySpec(String statement, Object parameter) {
+    this(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  public QuerySpec(String statement, Object parameter, RowBounds rowBounds) {
+    this.statement = statement;
+    this.parameter = parameter;
+    this.rowBounds = rowBounds;
+  }
+
+  public String getStatement() {
+    return statement;
+  }
+
+  public Object getParameter() {
+    return parameter;
+  }
+
+  public RowBounds getRowBounds() {
+    return rowBounds;
+  }
+
+  <E> List<E> selectList(SqlSession sqlSession) {
+    return sqlSession.selectList(statement, parameter, rowBounds);
+  }
+
+}
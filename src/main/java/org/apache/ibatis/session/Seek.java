@@ -0,0 +1,207 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultFlag;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaObject;
+
+/**
+ * Row bounds that page a query by its key instead of by an offset, so that every page costs the same however deep it
+ * is.
+ *
+ * <p>The key of a query is made of the id mappings of its result map. A page holds the rows whose key follows the key
+ * of the last row of the previous page, in key order, which the query must therefore not change. A mapper method that
+ * takes a {@code Seek} and returns a {@link Page} gets the continuation of the next page along with its rows.
+ *
+ * <p>The predicates and the limit are appended to the query by the executor, with the
+ * {@link Configuration#getPaginationDialect() pagination dialect} of the database.
+ *
+ * @since 3.5.10
+ */
+public class Seek extends RowBounds {
+
+  public static final String KEY_PARAMETER_PREFIX = "__seek_key_";
+
+  private final boolean descending;
+  private final Object[] keys;
+
+  /**
+   * Creates the bounds of the first page in ascending key order.
+   *
+   * @param limit
+   *          the number of rows of a page
+   */
+  public Seek(int limit) {
+    this(limit, false);
+  }
+
+  /**
+   * Creates the bounds of the first page.
+   *
+   * @param limit
+   *          the number of rows of a page
+   * @param descending
+   *          {@code true} to page in descending key order
+   */
+  public Seek(int limit, boolean descending) {
+    this(limit, descending, null);
+  }
+
+  private Seek(int limit, boolean descending, Object[] keys) {
+    super(NO_ROW_OFFSET, limit);
+    if (limit <= 0) {
+      throw new IllegalArgumentException("The limit of a page must be positive but was " + limit);
+    }
+    this.descending = descending;
+    this.keys = keys;
+  }
+
+  /**
+   * Returns the bounds of the page that follows the given key, as sent back by a client.
+   *
+   * @param keys
+   *          the values of the id mappings of the last row of the previous page
+   * @return the bounds of the next page
+   */
+  public Seek after(Object... keys) {
+    return new Seek(getLimit(), descending, keys.clone());
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  /**
+   * Returns the key the page follows.
+   *
+   * @return the key, empty for the first page
+   */
+  public List<Object> getKeys() {
+    return keys == null ? Collections.emptyList() : Collections.unmodifiableList(Arrays.asList(keys));
+  }
+
+  /**
+   * Returns the query restricted to the rows that follow the key of this page, in key order.
+   *
+   * @param ms
+   *          the query
+   * @param boundSql
+   *          the statement of the query
+   * @return the restricted statement, without a limit
+   */
+  public BoundSql getSeekBoundSql(MappedStatement ms, BoundSql boundSql) {
+    List<ResultMapping> keyMappings = getKeyMappings(ms);
+    if (keys != null && keys.length != keyMappings.size()) {
+      throw new ExecutorException("The key of " + ms.getId() + " has " + keyMappings.size() + " columns but "
+          + keys.length + " values were given.");
+    }
+    StringBuilder sql = new StringBuilder("SELECT * FROM (")
+        .append(PaginationDialect.trimSemicolons(boundSql.getSql())).append(") seek_page");
+    List<ParameterMapping> parameterMappings = new ArrayList<>(boundSql.getParameterMappings());
+    if (keys != null) {
+      List<ParameterMapping> keyParameterMappings = getKeyParameterMappings(ms.getConfiguration(), keyMappings);
+      sql.append(" WHERE ");
+      for (int i = 0; i < keys.length; i++) {
+        sql.append(i == 0 ? "(" : " OR (");
+        for (int j = 0; j <= i; j++) {
+          if (j > 0) {
+            sql.append(" AND ");
+          }
+          sql.append(keyMappings.get(j).getColumn()).append(j < i ? " = ?" : descending ? " < ?" : " > ?");
+          parameterMappings.add(keyParameterMappings.get(j));
+        }
+        sql.append(')');
+      }
+    }
+    sql.append(" ORDER BY ");
+    for (int i = 0; i < keyMappings.size(); i++) {
+      if (i > 0) {
+        sql.append(", ");
+      }
+      sql.append(keyMappings.get(i).getColumn()).append(descending ? " DESC" : "");
+    }
+    BoundSql seekBoundSql = boundSql.withSql(sql.toString(), parameterMappings);
+    if (keys != null) {
+      for (int i = 0; i < keys.length; i++) {
+        seekBoundSql.setAdditionalParameter(KEY_PARAMETER_PREFIX + i, keys[i]);
+      }
+    }
+    return seekBoundSql;
+  }
+
+  /**
+   * Returns the rows of this page, and the bounds of the next page unless this page is not full.
+   *
+   * @param <T>
+   *          the type of the rows
+   * @param ms
+   *          the query
+   * @param rows
+   *          the rows of this page
+   * @return the page
+   */
+  public <T> Page<T> toPage(MappedStatement ms, List<T> rows) {
+    if (rows.size() < getLimit()) {
+      return new Page<>(rows, null);
+    }
+    List<ResultMapping> keyMappings = getKeyMappings(ms);
+    MetaObject lastRow = ms.getConfiguration().newMetaObject(rows.get(rows.size() - 1));
+    Object[] nextKeys = new Object[keyMappings.size()];
+    for (int i = 0; i < nextKeys.length; i++) {
+      nextKeys[i] = lastRow.getValue(keyMappings.get(i).getProperty());
+    }
+    return new Page<>(rows, new Seek(getLimit(), descending, nextKeys));
+  }
+
+  private static List<ResultMapping> getKeyMappings(MappedStatement ms) {
+    List<ResultMapping> keyMappings = new ArrayList<>();
+    if (!ms.getResultMaps().isEmpty()) {
+      for (ResultMapping resultMapping : ms.getResultMaps().get(0).getResultMappings()) {
+        if (resultMapping.getFlags().contains(ResultFlag.ID) && resultMapping.getColumn() != null
+            && resultMapping.getProperty() != null) {
+          keyMappings.add(resultMapping);
+        }
+      }
+    }
+    if (keyMappings.isEmpty()) {
+      throw new ExecutorException("Cannot page " + ms.getId() + " by keyset because its result map has no id mapping.");
+    }
+    return keyMappings;
+  }
+
+  private static List<ParameterMapping> getKeyParameterMappings(Configuration configuration,
+      List<ResultMapping> keyMappings) {
+    List<ParameterMapping> keyParameterMappings = new ArrayList<>(keyMappings.size());
+    for (int i = 0; i < keyMappings.size(); i++) {
+      ResultMapping keyMapping = keyMappings.get(i);
+      keyParameterMappings.add(
+          new ParameterMapping.Builder(configuration, KEY_PARAMETER_PREFIX + i, keyMapping.getJavaType())
+              .jdbcType(keyMapping.getJdbcType()).typeHandler(keyMapping.getTypeHandler()).build());
+    }
+    return keyParameterMappings;
+  }
+
+}
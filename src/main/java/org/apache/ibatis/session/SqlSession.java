@@ -77,6 +77,30 @@ public interface SqlSession extends Closeable {
    */
   <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * Count the rows the statement returns without row bounds, as the total of a paginated list.
+   * @param statement Unique identifier matching the statement to use.
+   * @return Number of rows
+   * @since 3.5.10
+   */
+  default long selectCount(String statement) {
+    return selectCount(statement, null);
+  }
+
+  /**
+   * Count the rows the statement returns for the parameter without row bounds, as the total of a paginated list.
+   * <p>
+   * The default implementation selects the rows and counts them, so that existing implementations keep compiling;
+   * {@code DefaultSqlSession} runs a count query instead.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return Number of rows
+   * @since 3.5.10
+   */
+  default long selectCount(String statement, Object parameter) {
+    return selectList(statement, parameter).size();
+  }
+
   /**
    * The selectMap is a special case in that it is designed to convert a list
    * of results into a Map based on one of the properties in the resulting
@@ -16,6 +16,10 @@
 package org.apache.ibatis.session;
 
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Creates an {@link SqlSession} out of a connection or a DataSource
@@ -42,4 +46,44 @@ public interface SqlSessionFactory {
 
   Configuration getConfiguration();
 
+  /**
+   * Runs independent queries concurrently, each in its own session and therefore on its own connection, so that they
+   * take as long as the slowest of them instead of their sum. The sessions do not share a transaction nor a local
+   * cache.
+   *
+   * @param queries
+   *          the queries to run
+   * @param executor
+   *          the executor the queries run on, such as a thread pool no larger than the data source
+   * @return the results of the queries, in the order of the queries. It completes exceptionally as soon as a query
+   *         fails.
+   * @since 3.5.10
+   */
+  default CompletableFuture<List<List<Object>>> selectAll(List<QuerySpec> queries, Executor executor) {
+    List<CompletableFuture<List<Object>>> futures = new ArrayList<>(queries.size());
+    for (QuerySpec query : queries) {
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        try (SqlSession sqlSession = openSession()) {
+          return query.selectList(sqlSession);
+        }
+      }, executor));
+    }
+    CompletableFuture<List<List<Object>>> result = new CompletableFuture<>();
+    for (CompletableFuture<List<Object>> future : futures) {
+      future.whenComplete((list, e) -> {
+        if (e != null) {
+          result.completeExceptionally(e);
+        }
+      });
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenRun(() -> {
+      List<List<Object>> results = new ArrayList<>(futures.size());
+      for (CompletableFuture<List<Object>> future : futures) {
+        results.add(future.join());
+      }
+      result.complete(results);
+    });
+    return result;
+  }
+
 }
@@ -211,6 +211,16 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.selectList(statement, parameter, rowBounds);
   }
 
+  @Override
+  public long selectCount(String statement) {
+    return sqlSessionProxy.selectCount(statement);
+  }
+
+  @Override
+  public long selectCount(String statement, Object parameter) {
+    return sqlSessionProxy.selectCount(statement, parameter);
+  }
+
   @Override
   public void select(String statement, ResultHandler handler) {
     sqlSessionProxy.select(statement, handler);
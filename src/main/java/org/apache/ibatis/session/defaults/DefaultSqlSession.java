@@ -156,6 +156,29 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public long selectCount(String statement) {
+    return selectCount(statement, null);
+  }
+
+  @Override
+  public long selectCount(String statement, Object parameter) {
+    try {
+      MappedStatement ms = configuration.getCountStatement(statement);
+      List<Long> list = executor.query(ms, wrapCollection(parameter), RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      long count = 0L;
+      // a query split into chunks returns the count of each chunk
+      for (Long chunkCount : list) {
+        count += chunkCount == null ? 0L : chunkCount;
+      }
+      return count;
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error counting rows.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
   @Override
   public void select(String statement, Object parameter, ResultHandler handler) {
     select(statement, parameter, RowBounds.DEFAULT, handler);
@@ -96,6 +96,19 @@ public class ArrayTypeHandler extends BaseTypeHandler<Object> {
     }
   }
 
+  /**
+   * Checks whether the elements of the given class are bound with a standard SQL type name, rather than as
+   * {@code JAVA_OBJECT} which most drivers cannot create an array of.
+   *
+   * @param type
+   *          the class of the array elements
+   * @return true if the class has a standard SQL type name
+   * @since 3.5.10
+   */
+  public static boolean hasStandardTypeName(Class<?> type) {
+    return STANDARD_MAPPING.containsKey(type);
+  }
+
   protected String resolveTypeName(Class<?> type) {
     return STANDARD_MAPPING.getOrDefault(type, JdbcType.JAVA_OBJECT.name());
   }
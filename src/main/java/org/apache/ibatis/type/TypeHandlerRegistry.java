@@ -42,6 +42,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.ibatis.binding.MapperMethod.ParamMap;
 import org.apache.ibatis.io.ResolverUtil;
@@ -63,6 +64,8 @@ public final class TypeHandlerRegistry {
 
   private Class<? extends TypeHandler> defaultEnumTypeHandler = EnumTypeHandler.class;
 
+  private final AtomicInteger registrationCount = new AtomicInteger();
+
   /**
    * The default constructor.
    */
@@ -187,6 +190,7 @@ public final class TypeHandlerRegistry {
    */
   public void setDefaultEnumTypeHandler(Class<? extends TypeHandler> typeHandler) {
     this.defaultEnumTypeHandler = typeHandler;
+    registrationCount.incrementAndGet();
   }
 
   public boolean hasTypeHandler(Class<?> javaType) {
@@ -398,6 +402,7 @@ public final class TypeHandlerRegistry {
       typeHandlerMap.put(javaType, map);
     }
     allTypeHandlersMap.put(handler.getClass(), handler);
+    registrationCount.incrementAndGet();
   }
 
   //
@@ -484,4 +489,15 @@ public final class TypeHandlerRegistry {
     return Collections.unmodifiableCollection(allTypeHandlersMap.values());
   }
 
+  /**
+   * Gets a number that changes whenever a type handler is registered or the default enum type handler is changed, so
+   * that the type handlers resolved from this registry can be resolved again.
+   *
+   * @return the registration count
+   * @since 3.5.10
+   */
+  public int getRegistrationCount() {
+    return registrationCount.get();
+  }
+
 }
@@ -0,0 +1,83 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.util;
+
+import java.util.Date;
+import java.util.UUID;
+
+import org.apache.ibatis.reflection.ArrayUtil;
+
+/**
+ * 64-bit hashes of the values of a key, which are told apart far more often than by their 32-bit {@code hashCode()}.
+ *
+ * @since 3.5.10
+ */
+public class HashUtil {
+
+  private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private HashUtil() {
+    super();
+  }
+
+  /**
+   * Returns a 64-bit hash of {@code obj} that is consistent with {@link ArrayUtil#equals(Object, Object)}. The value of
+   * an integral number is its own hash, strings are hashed with FNV-1a, and the other objects that do not have an
+   * exact 64-bit hash fall back to {@link ArrayUtil#hashCode(Object)}.
+   *
+   * @param obj
+   *          the object to hash, may be an array or {@code null}
+   * @return the hash, 0 if {@code obj} is {@code null}
+   */
+  public static long longHashCode(Object obj) {
+    if (obj == null) {
+      return 0L;
+    } else if (obj instanceof Long || obj instanceof Integer || obj instanceof Short || obj instanceof Byte) {
+      return ((Number) obj).longValue();
+    } else if (obj instanceof String) {
+      final String string = (String) obj;
+      long h = FNV_OFFSET_BASIS;
+      for (int i = 0; i < string.length(); i++) {
+        h = (h ^ string.charAt(i)) * FNV_PRIME;
+      }
+      return h;
+    } else if (obj instanceof Double) {
+      return Double.doubleToLongBits((Double) obj);
+    } else if (obj instanceof Date) {
+      return ((Date) obj).getTime();
+    } else if (obj instanceof UUID) {
+      final UUID uuid = (UUID) obj;
+      return uuid.getMostSignificantBits() * MULTIPLIER + uuid.getLeastSignificantBits();
+    }
+    return ArrayUtil.hashCode(obj);
+  }
+
+  /**
+   * Spreads every bit of a hash over the others with the finalizer of MurmurHash3, a bijection.
+   *
+   * @param h
+   *          the hash
+   * @return the mixed hash
+   */
+  public static long mix(long h) {
+    h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+    h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+    return h ^ (h >>> 33);
+  }
+
+}
@@ -33,6 +33,7 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.ibatis.builder.mapper.CustomMapper;
 import org.apache.ibatis.builder.typehandler.CustomIntegerTypeHandler;
@@ -57,6 +58,7 @@ import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.LocalCacheScope;
+import org.apache.ibatis.session.PaginationDialect;
 import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
 import org.apache.ibatis.type.BaseTypeHandler;
 import org.apache.ibatis.type.EnumOrdinalTypeHandler;
@@ -104,6 +106,18 @@ class XmlConfigBuilderTest {
       assertThat(config.isShrinkWhitespacesInSql()).isFalse();
       assertThat(config.getDefaultSqlProviderType()).isNull();
       assertThat(config.isNullableOnForEach()).isFalse();
+      assertThat(config.isSingleFlightCacheLoading()).isFalse();
+      assertThat(config.getSingleFlightCacheWaitTimeout()).isNull();
+      assertThat(config.isCompiledDynamicSql()).isFalse();
+      assertThat(config.isCompiledExpressions()).isFalse();
+      assertThat(config.getDynamicSqlShapeCacheSize()).isNull();
+      assertThat(config.isPositionalForEachBinding()).isFalse();
+      assertThat(config.getMaxParametersPerStatement()).isNull();
+      assertThat(config.isPhysicalPagination()).isFalse();
+      assertThat(config.getPaginationDialect()).isNull();
+      assertThat(config.getAsyncExecutor()).isNull();
+      assertThat(config.isCompiledRowMappers()).isFalse();
+      assertThat(config.isAutoResultOrdered()).isFalse();
     }
   }
 
@@ -202,6 +216,18 @@ class XmlConfigBuilderTest {
       assertThat(config.isShrinkWhitespacesInSql()).isTrue();
       assertThat(config.getDefaultSqlProviderType().getName()).isEqualTo(MySqlProvider.class.getName());
       assertThat(config.isNullableOnForEach()).isTrue();
+      assertThat(config.isSingleFlightCacheLoading()).isTrue();
+      assertThat(config.getSingleFlightCacheWaitTimeout()).isEqualTo(500L);
+      assertThat(config.isCompiledDynamicSql()).isTrue();
+      assertThat(config.isCompiledExpressions()).isTrue();
+      assertThat(config.getDynamicSqlShapeCacheSize()).isEqualTo(64);
+      assertThat(config.isPositionalForEachBinding()).isTrue();
+      assertThat(config.getMaxParametersPerStatement()).isEqualTo(1000);
+      assertThat(config.isPhysicalPagination()).isTrue();
+      assertThat(config.getPaginationDialect()).isEqualTo(PaginationDialect.OFFSET_FETCH);
+      assertThat(config.getAsyncExecutor()).isInstanceOf(ForkJoinPool.class);
+      assertThat(config.isCompiledRowMappers()).isTrue();
+      assertThat(config.isAutoResultOrdered()).isTrue();
 
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blogauthor")).isEqualTo(Author.class);
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blog")).isEqualTo(Blog.class);
@@ -15,32 +15,47 @@
  */
 package org.apache.ibatis.builder.xml.dynamic;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.io.IOException;
 import java.io.Reader;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.scripting.xmltags.ChooseSqlNode;
+import org.apache.ibatis.scripting.xmltags.CompiledTextSqlNode;
 import org.apache.ibatis.scripting.xmltags.DynamicSqlSource;
 import org.apache.ibatis.scripting.xmltags.ForEachSqlNode;
 import org.apache.ibatis.scripting.xmltags.IfSqlNode;
+import org.apache.ibatis.scripting.xmltags.InListSqlNode;
 import org.apache.ibatis.scripting.xmltags.MixedSqlNode;
 import org.apache.ibatis.scripting.xmltags.SetSqlNode;
 import org.apache.ibatis.scripting.xmltags.SqlNode;
+import org.apache.ibatis.scripting.xmltags.SqlShapeCache;
+import org.apache.ibatis.scripting.xmltags.StaticTextSqlNode;
 import org.apache.ibatis.scripting.xmltags.TextSqlNode;
+import org.apache.ibatis.scripting.xmltags.VarDeclSqlNode;
 import org.apache.ibatis.scripting.xmltags.WhereSqlNode;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.type.ArrayTypeHandler;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -376,6 +391,298 @@ class DynamicSqlSourceTest extends BaseDataTest {
     assertEquals("__frch_u_0", boundSql.getParameterMappings().get(3).getProperty());
   }
 
+  @Test
+  void shouldBuildSameBoundSqlWhenCompiled() {
+    final Map<String, Object> param = new HashMap<>();
+    param.put("name", "Bob");
+    param.put("ids", Arrays.asList(1, 2));
+    param.put("note", "n");
+    Configuration compiledConfiguration = new Configuration();
+    compiledConfiguration.setCompiledDynamicSql(true);
+    DynamicSqlSource compiled = new DynamicSqlSource(compiledConfiguration, mixedContents(
+        new CompiledTextSqlNode("SELECT * FROM BLOG"),
+        new WhereSqlNode(compiledConfiguration, mixedContents(
+            new IfSqlNode(mixedContents(new CompiledTextSqlNode("AND NAME = #{name,jdbcType=VARCHAR}")), "name != null"),
+            new TextSqlNode("AND NOTE = #{note} AND ${'1'} = 1"),
+            new ForEachSqlNode(compiledConfiguration, mixedContents(new StaticTextSqlNode("#{id}")), "ids", null, null, "id", "AND ID IN (", ")", ","))),
+        new CompiledTextSqlNode("ORDER BY #{name}")));
+    Configuration configuration = new Configuration();
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new StaticTextSqlNode("SELECT * FROM BLOG"),
+        new WhereSqlNode(configuration, mixedContents(
+            new IfSqlNode(mixedContents(new StaticTextSqlNode("AND NAME = #{name,jdbcType=VARCHAR}")), "name != null"),
+            new TextSqlNode("AND NOTE = #{note} AND ${'1'} = 1"),
+            new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("#{id}")), "ids", null, null, "id", "AND ID IN (", ")", ","))),
+        new StaticTextSqlNode("ORDER BY #{name}")));
+
+    BoundSql compiledBoundSql = compiled.getBoundSql(param);
+    BoundSql boundSql = source.getBoundSql(param);
+
+    assertEquals("SELECT * FROM BLOG WHERE  NAME = ?AND NOTE = ? AND 1 = 1AND ID IN (?,?) ORDER BY ?", compiledBoundSql.getSql());
+    assertEquals(boundSql.getSql(), compiledBoundSql.getSql());
+    assertEquals(boundSql.getParameterMappings().size(), compiledBoundSql.getParameterMappings().size());
+    for (int i = 0; i < boundSql.getParameterMappings().size(); i++) {
+      ParameterMapping expected = boundSql.getParameterMappings().get(i);
+      ParameterMapping actual = compiledBoundSql.getParameterMappings().get(i);
+      assertEquals(expected.getProperty(), actual.getProperty());
+      assertEquals(expected.getJavaType(), actual.getJavaType());
+      assertEquals(expected.getJdbcType(), actual.getJdbcType());
+      assertEquals(compiledBoundSql.getAdditionalParameter(expected.getProperty()), boundSql.getAdditionalParameter(expected.getProperty()));
+    }
+  }
+
+  @Test
+  void shouldReuseParameterMappingsOfCompiledText() {
+    Configuration configuration = new Configuration();
+    configuration.setCompiledDynamicSql(true);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new CompiledTextSqlNode("SELECT * FROM BLOG WHERE ID = #{id}"),
+        new IfSqlNode(mixedContents(new CompiledTextSqlNode("AND ID != #{id}")), "id != null")));
+
+    BoundSql first = source.getBoundSql(new Bean("1"));
+    BoundSql second = source.getBoundSql(new Bean("2"));
+
+    assertEquals("SELECT * FROM BLOG WHERE ID = ? AND ID != ?", second.getSql());
+    assertEquals(String.class, first.getParameterMappings().get(0).getJavaType());
+    assertSame(first.getParameterMappings().get(0), second.getParameterMappings().get(0));
+    assertSame(first.getParameterMappings().get(1), second.getParameterMappings().get(1));
+  }
+
+  @Test
+  void shouldResolveBoundPropertyOfCompiledTextFromBindings() {
+    Configuration configuration = new Configuration();
+    configuration.setCompiledDynamicSql(true);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new VarDeclSqlNode("id", "42"),
+        new CompiledTextSqlNode("SELECT * FROM BLOG WHERE ID = #{id}")));
+
+    BoundSql boundSql = source.getBoundSql(new Bean("1"));
+
+    assertEquals(Integer.class, boundSql.getParameterMappings().get(0).getJavaType());
+    assertEquals(42, boundSql.getAdditionalParameter("id"));
+  }
+
+  @Test
+  void shouldKeepEscapedPlaceholderOfCompiledText() {
+    Configuration configuration = new Configuration();
+    configuration.setCompiledDynamicSql(true);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new WhereSqlNode(configuration, mixedContents(
+            new CompiledTextSqlNode("AND NOTE = '\\#{note}' AND ID = #{id}")))));
+
+    BoundSql boundSql = source.getBoundSql(new Bean("1"));
+
+    assertEquals("WHERE  NOTE = '#{note}' AND ID = ?", boundSql.getSql());
+    assertEquals(1, boundSql.getParameterMappings().size());
+    assertEquals("id", boundSql.getParameterMappings().get(0).getProperty());
+  }
+
+  @Test
+  void shouldReuseSqlOfSameShape() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlShapeCacheSize(8);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new StaticTextSqlNode("SELECT * FROM BLOG"),
+        new WhereSqlNode(configuration, mixedContents(
+            new IfSqlNode(mixedContents(new StaticTextSqlNode("AND ID = #{id}")), "id != null"),
+            new IfSqlNode(mixedContents(new StaticTextSqlNode("AND ID != #{id}")), "id == null")))));
+    SqlShapeCache shapeCache = source.getShapeCache();
+
+    BoundSql first = source.getBoundSql(new Bean("1"));
+    BoundSql second = source.getBoundSql(new Bean("2"));
+    BoundSql third = source.getBoundSql(new Bean(null));
+
+    assertEquals("SELECT * FROM BLOG WHERE  ID = ?", second.getSql());
+    assertSame(first.getSql(), second.getSql());
+    assertSame(first.getParameterMappings(), second.getParameterMappings());
+    assertEquals("SELECT * FROM BLOG WHERE  ID != ?", third.getSql());
+    assertEquals(String.class, third.getParameterMappings().get(0).getJavaType());
+    assertEquals(1, shapeCache.getHits());
+    assertEquals(2, shapeCache.getMisses());
+    assertEquals(2, shapeCache.getSize());
+  }
+
+  @Test
+  void shouldKeyShapeOnForEachIterationsAndTextValues() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlShapeCacheSize(8);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new TextSqlNode("SELECT * FROM ${table}"),
+        new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("#{id}")), "ids", null, null, "id", "WHERE ID IN (", ")", ",")));
+    Map<String, Object> param = new HashMap<>();
+    param.put("table", "BLOG");
+    param.put("ids", Arrays.asList(1, 2));
+
+    BoundSql twoIds = source.getBoundSql(param);
+    param.put("ids", Arrays.asList("a", "b"));
+    BoundSql otherTwoIds = source.getBoundSql(param);
+    param.put("ids", Arrays.asList(1, 2, 3));
+    BoundSql threeIds = source.getBoundSql(param);
+    param.put("table", "POST");
+    BoundSql otherTable = source.getBoundSql(param);
+
+    assertEquals("SELECT * FROM BLOG WHERE ID IN (  ? , ? )", twoIds.getSql());
+    assertSame(twoIds.getSql(), otherTwoIds.getSql());
+    assertNotSame(twoIds.getParameterMappings(), otherTwoIds.getParameterMappings());
+    assertEquals(Integer.class, twoIds.getParameterMappings().get(0).getJavaType());
+    assertEquals(String.class, otherTwoIds.getParameterMappings().get(0).getJavaType());
+    assertEquals("b", otherTwoIds.getAdditionalParameter("__frch_id_1"));
+    assertEquals("SELECT * FROM BLOG WHERE ID IN (  ? , ? , ? )", threeIds.getSql());
+    assertEquals("SELECT * FROM POST WHERE ID IN (  ? , ? , ? )", otherTable.getSql());
+    assertEquals(1, source.getShapeCache().getHits());
+    assertEquals(3, source.getShapeCache().getMisses());
+  }
+
+  @Test
+  void shouldEvictOldestShape() {
+    Configuration configuration = new Configuration();
+    configuration.setDynamicSqlShapeCacheSize(1);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new StaticTextSqlNode("SELECT * FROM BLOG"),
+        new IfSqlNode(mixedContents(new StaticTextSqlNode("WHERE ID = #{id}")), "id != null")));
+
+    source.getBoundSql(new Bean("1"));
+    source.getBoundSql(new Bean(null));
+    BoundSql boundSql = source.getBoundSql(new Bean("1"));
+
+    assertEquals("SELECT * FROM BLOG WHERE ID = ?", boundSql.getSql());
+    assertEquals(1, source.getShapeCache().getSize());
+    assertEquals(0, source.getShapeCache().getHits());
+    assertEquals(3, source.getShapeCache().getMisses());
+  }
+
+  @Test
+  void shouldBindForEachItemsByPosition() {
+    Configuration configuration = new Configuration();
+    configuration.setPositionalForEachBinding(true);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new StaticTextSqlNode("SELECT * FROM BLOG WHERE"),
+        new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("(ID = #{bean.id} AND POS = #{i})")), "beans", null, "i", "bean", null, null, "OR")));
+    Map<String, Object> param = new HashMap<>();
+    param.put("beans", Arrays.asList(new Bean("a"), new Bean("b")));
+
+    BoundSql boundSql = source.getBoundSql(param);
+
+    assertEquals("SELECT * FROM BLOG WHERE  (ID = ? AND POS = ?) OR (ID = ? AND POS = ?)", boundSql.getSql());
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    assertEquals("__frch_bean_0.1.id", parameterMappings.get(2).getProperty());
+    assertEquals(String.class, parameterMappings.get(2).getJavaType());
+    assertEquals("__frch_i_0.1", parameterMappings.get(3).getProperty());
+    assertEquals(Integer.class, parameterMappings.get(3).getJavaType());
+    assertEquals("b", boundSql.getAdditionalParameter("__frch_bean_0.1.id"));
+    assertEquals(1, boundSql.getAdditionalParameter("__frch_i_0.1"));
+    assertFalse(boundSql.hasAdditionalParameter("__frch_bean_1"));
+  }
+
+  @Test
+  void shouldSplitForEachBindingTooManyParameters() {
+    Configuration configuration = new Configuration();
+    configuration.setMaxParametersPerStatement(5);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new StaticTextSqlNode("SELECT * FROM BLOG WHERE AUTHOR = #{author} AND ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("#{id}")), "ids", null, true, null, "id", "(", ")", ",")));
+    Map<String, Object> param = new HashMap<>();
+    param.put("author", "jim");
+    param.put("ids", Arrays.asList(1, 2, 3, 4));
+    assertNull(source.getBoundSql(param).getChunks());
+
+    param.put("ids", Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+    BoundSql boundSql = source.getBoundSql(param);
+
+    assertEquals(11, boundSql.getParameterMappings().size());
+    List<BoundSql> chunks = boundSql.getChunks();
+    assertEquals(3, chunks.size());
+    assertEquals("SELECT * FROM BLOG WHERE AUTHOR = ? AND ID IN (  ? , ? , ? , ? )", chunks.get(0).getSql());
+    assertEquals("SELECT * FROM BLOG WHERE AUTHOR = ? AND ID IN (  ? , ? )", chunks.get(2).getSql());
+    BoundSql last = chunks.get(2);
+    assertEquals("author", last.getParameterMappings().get(0).getProperty());
+    assertEquals(9, last.getAdditionalParameter(last.getParameterMappings().get(1).getProperty()));
+    assertEquals(10, last.getAdditionalParameter(last.getParameterMappings().get(2).getProperty()));
+  }
+
+  @Test
+  void shouldOnlySplitForEachDeclaredSplittable() {
+    Configuration configuration = new Configuration();
+    configuration.setMaxParametersPerStatement(5);
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new StaticTextSqlNode("SELECT * FROM BLOG WHERE ID IN"),
+        new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("#{id}")), "ids", null, null, "id", "(", ")", ",")));
+    Map<String, Object> param = new HashMap<>();
+    param.put("ids", Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+
+    assertNull(source.getBoundSql(param).getChunks());
+  }
+
+  @Test
+  void shouldRejectSplitChangingTheRowsOfTheStatement() {
+    Configuration configuration = new Configuration();
+    configuration.setMaxParametersPerStatement(5);
+    Map<String, Object> param = new HashMap<>();
+    param.put("ids", Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+    for (String[] sql : new String[][] {
+        { "SELECT * FROM BLOG WHERE AUTHOR = 'jim' OR ID IN", "" },
+        { "DELETE FROM BLOG WHERE ID NOT IN", "" },
+        { "SELECT SUM(VIEWS) FROM BLOG WHERE ID IN", "" },
+        { "SELECT DISTINCT AUTHOR FROM BLOG WHERE ID IN", "" },
+        { "SELECT * FROM BLOG WHERE ID IN", "ORDER BY ID" },
+        { "SELECT * FROM BLOG WHERE ID IN", "LIMIT 10" },
+        { "SELECT * FROM BLOG WHERE ID = ", "" },
+        { "INSERT INTO BLOG (ID) VALUES", "ON CONFLICT DO NOTHING" } }) {
+      DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+          new StaticTextSqlNode(sql[0]),
+          new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("#{id}")), "ids", null, true, null, "id", "(", ")", ","),
+          new StaticTextSqlNode(sql[1])));
+      assertThrows(BuilderException.class, () -> source.getBoundSql(param), sql[0]);
+    }
+
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new StaticTextSqlNode("SELECT * FROM BLOG"),
+        new WhereSqlNode(configuration, mixedContents(
+            new StaticTextSqlNode("AND AUTHOR IS NOT NULL"),
+            new ForEachSqlNode(configuration, mixedContents(new StaticTextSqlNode("#{id}")), "ids", null, true, null, "id", "AND ID IN (", ")", ",")))));
+    assertEquals(2, source.getBoundSql(param).getChunks().size());
+  }
+
+  @Test
+  void shouldBindInListAsArrayWithArrayBinding() {
+    Configuration configuration = new Configuration();
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new StaticTextSqlNode("SELECT * FROM BLOG WHERE"),
+        new InListSqlNode(configuration, "ID", "ids", null, InListSqlNode.ArrayBinding.ANY)));
+    Map<String, Object> param = new HashMap<>();
+    param.put("ids", Arrays.asList(1, 2, 3));
+
+    BoundSql boundSql = source.getBoundSql(param);
+    assertEquals("SELECT * FROM BLOG WHERE ID = ANY(?)", boundSql.getSql());
+    ParameterMapping parameterMapping = boundSql.getParameterMappings().get(0);
+    assertEquals(ArrayTypeHandler.class, parameterMapping.getTypeHandler().getClass());
+    assertArrayEquals(new Integer[] { 1, 2, 3 }, (Integer[]) boundSql.getAdditionalParameter(parameterMapping.getProperty()));
+
+    source = new DynamicSqlSource(configuration, mixedContents(
+        new StaticTextSqlNode("SELECT * FROM BLOG WHERE"),
+        new InListSqlNode(configuration, "ID", "ids", null, InListSqlNode.ArrayBinding.UNNEST)));
+    assertEquals("SELECT * FROM BLOG WHERE ID IN (UNNEST(?))", source.getBoundSql(param).getSql());
+  }
+
+  @Test
+  void shouldBindEachInListValueWithoutArrayBinding() {
+    Configuration configuration = new Configuration();
+    // the array binding is never guessed from the database id
+    configuration.setDatabaseId("postgresql");
+    DynamicSqlSource source = new DynamicSqlSource(configuration, mixedContents(
+        new StaticTextSqlNode("SELECT * FROM BLOG WHERE"),
+        new InListSqlNode(configuration, "ID", "ids", null)));
+    Map<String, Object> param = new HashMap<>();
+    param.put("ids", Arrays.asList(1, 2, 3));
+
+    BoundSql boundSql = source.getBoundSql(param);
+    assertEquals("SELECT * FROM BLOG WHERE ID IN (?, ?, ?)", boundSql.getSql());
+    assertEquals(3, boundSql.getAdditionalParameter(boundSql.getParameterMappings().get(2).getProperty()));
+
+    param.put("ids", Collections.emptyList());
+    assertEquals("SELECT * FROM BLOG WHERE ID IN (NULL)", source.getBoundSql(param).getSql());
+  }
+
   private DynamicSqlSource createDynamicSqlSource(SqlNode... contents) throws IOException, SQLException {
     createBlogDataSource();
     final String resource = "org/apache/ibatis/builder/MapperConfig.xml";
@@ -17,11 +17,19 @@ package org.apache.ibatis.builder.xml.dynamic;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.scripting.xmltags.DynamicContext;
 import org.apache.ibatis.scripting.xmltags.ExpressionEvaluator;
+import org.apache.ibatis.session.Configuration;
 import org.junit.jupiter.api.Test;
 
 class ExpressionEvaluatorTest {
@@ -85,5 +93,76 @@ class ExpressionEvaluatorTest {
     }
   }
 
+  @Test
+  void shouldEvaluateCompiledExpressionsAsOgnlDoes() {
+    ExpressionEvaluator compiledEvaluator = new ExpressionEvaluator(true);
+    Map<String, Object> map = new HashMap<>();
+    map.put("name", "Bob");
+    map.put("status", "A");
+    map.put("count", 3);
+    map.put("empty", new ArrayList<>());
+    map.put("ids", new ArrayList<>(Arrays.asList(1, 2)));
+    map.put("nested", new HashMap<>(Collections.singletonMap("key", "value")));
+    map.put("author", new Author(1, "cbegin", null, "cbegin@apache.org", "N/A", Section.NEWS));
+    map.put("none", null);
+    List<Object> parameters = new ArrayList<>();
+    parameters.add(map);
+    parameters.add(new Author(1, "cbegin", null, "cbegin@apache.org", "N/A", Section.NEWS));
+    parameters.add(new Author(0, null, "******", null, "bio", null));
+    parameters.add(5);
+    parameters.add(null);
+    List<String> expressions = Arrays.asList(
+        "name", "none", "name != null", "name == null", "name != null and name != ''", "status == 'A'",
+        "count > 2", "count >= 3", "count < 3", "count <= 2", "count == 3L", "count != 3.0",
+        "ids != null and ids.size() > 0", "empty.isEmpty()", "!empty.isEmpty()", "not (count > 2)",
+        "name or count", "none and count", "none or none", "name and count",
+        "nested.key == 'value'", "nested.size", "nested.isEmpty", "author.username", "author.id == 1",
+        "author.bio.length() > 1", "ids[0] == 1", "_parameter != null", "_parameter == 5", "_databaseId == null",
+        "id", "username == 'cbegin'", "password == null", "favouriteSection.name() == 'NEWS'", "id > 0 and username != null",
+        "missing", "missing.name", "value == 5", "ids.size() + 1 > 2", "name.empty");
+    for (Object parameter : parameters) {
+      for (String expression : expressions) {
+        Map<String, Object> bindings = new DynamicContext(new Configuration(), parameter).getBindings();
+        Object expected;
+        try {
+          expected = evaluator.evaluateBoolean(expression, bindings);
+        } catch (RuntimeException e) {
+          expected = e.getClass();
+        }
+        Object actual;
+        try {
+          actual = compiledEvaluator.evaluateBoolean(expression, bindings);
+        } catch (RuntimeException e) {
+          actual = e.getClass();
+        }
+        assertEquals(expected, actual, () -> expression + " with " + parameter);
+      }
+    }
+  }
+
+  @Test
+  void shouldCallCompiledMethodThroughPublicInterface() {
+    ExpressionEvaluator compiledEvaluator = new ExpressionEvaluator(true);
+    Map<String, Object> parameterObject = new HashMap<>();
+    parameterObject.put("ids", Arrays.asList(1, 2));
+    parameterObject.put("empty", Collections.emptyList());
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), parameterObject).getBindings();
+
+    assertTrue(compiledEvaluator.evaluateBoolean("ids.size() == 2", bindings));
+    assertTrue(compiledEvaluator.evaluateBoolean("empty.isEmpty()", bindings));
+  }
+
+  @Test
+  void shouldEvaluateCompiledIterable() {
+    ExpressionEvaluator compiledEvaluator = new ExpressionEvaluator(true);
+    Map<String, Object> parameterObject = new HashMap<>();
+    parameterObject.put("author", new Author(1, "cbegin", null, "cbegin@apache.org", "N/A", Section.NEWS));
+    parameterObject.put("ids", new int[] { 1, 2 });
+    Map<String, Object> bindings = new DynamicContext(new Configuration(), parameterObject).getBindings();
+
+    assertEquals(Arrays.asList(1, 2), compiledEvaluator.evaluateIterable("ids", bindings, false));
+    assertNull(compiledEvaluator.evaluateIterable("author.password", bindings, true));
+    assertThrows(BuilderException.class, () -> compiledEvaluator.evaluateIterable("author.username", bindings, false));
+  }
 
 }
@@ -61,6 +61,15 @@ class CacheKeyTest {
     assertNotEquals(key1.toString(), key2.toString());
   }
 
+  @Test
+  void shouldTellStringsSharingTheirHashCodeApart() {
+    assertEquals("Aa".hashCode(), "BB".hashCode());
+    CacheKey key1 = new CacheKey(new Object[] { 1, "Aa" });
+    CacheKey key2 = new CacheKey(new Object[] { 1, "BB" });
+    assertNotEquals(key1, key2);
+    assertNotEquals(key1.hashCode(), key2.hashCode());
+  }
+
   @Test
   void shouldDemonstrateEmptyAndNullKeysAreEqual() {
     CacheKey key1 = new CacheKey();
@@ -86,6 +95,32 @@ class CacheKeyTest {
     assertEquals(key1, key2);
   }
 
+  @Test
+  void shouldTestCacheKeysEqualRegardlessOfExpectedUpdateCount() {
+    CacheKey key1 = new CacheKey();
+    CacheKey key2 = new CacheKey(3);
+    for (int i = 0; i < 20; i++) {
+      key1.update("value" + i);
+      key2.update("value" + i);
+    }
+    assertEquals(20, key1.getUpdateCount());
+    assertEquals(key1, key2);
+    assertEquals(key1.hashCode(), key2.hashCode());
+    assertEquals(key1.toString(), key2.toString());
+  }
+
+  @Test
+  void shouldNotShareValuesWithClonedCacheKey() throws Exception {
+    CacheKey cacheKey = new CacheKey(new Object[] { 1, "hello" });
+    CacheKey clonedCacheKey = cacheKey.clone();
+    assertEquals(cacheKey, clonedCacheKey);
+    clonedCacheKey.update(null);
+    assertNotEquals(cacheKey, clonedCacheKey);
+    assertEquals(2, cacheKey.getUpdateCount());
+    cacheKey.update(null);
+    assertEquals(cacheKey, clonedCacheKey);
+  }
+
   @Test
   void throwExceptionWhenTryingToUpdateNullCacheKey() {
     CacheKey cacheKey = CacheKey.NULL_CACHE_KEY;
@@ -122,6 +157,19 @@ class CacheKeyTest {
     assertEquals(cacheKey, serialize(cacheKey));
   }
 
+  @Test
+  void shouldKeepUpdatingKeysAfterSerialization() throws Exception {
+    CacheKey cacheKey = new CacheKey();
+    cacheKey.update("first");
+    CacheKey deserialized = serialize(cacheKey);
+    cacheKey.update("second");
+    deserialized.update("second");
+    CacheKey expected = new CacheKey(new Object[] { "first", "second" });
+    assertEquals(expected, cacheKey);
+    assertEquals(expected, deserialized);
+    assertEquals(expected.hashCode(), deserialized.hashCode());
+  }
+
   private static <T> T serialize(T object) throws Exception {
       ByteArrayOutputStream baos = new ByteArrayOutputStream();
       new ObjectOutputStream(baos).writeObject(object);
@@ -0,0 +1,174 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.CompactCacheSerializer;
+import org.apache.ibatis.cache.serializer.JdkCacheSerializer;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.ImmutableAuthor;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class CompactCacheSerializerTest {
+
+  private final CompactCacheSerializer serializer = new CompactCacheSerializer();
+
+  @Test
+  void shouldCopyListOfResultObjects() {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      authors.add(new Author(i, "user" + i, "******", "user" + i + "@mybatis.org", null, Section.NEWS));
+    }
+    Object copy = serializer.deserialize(serializer.serialize(authors));
+    assertEquals(authors, copy);
+    assertNotSame(authors.get(0), ((List<?>) copy).get(0));
+  }
+
+  @Test
+  void shouldBeSmallerThanJavaSerialization() {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      authors.add(new Author(i, "user" + i, "******", "user" + i + "@mybatis.org", null, Section.NEWS));
+    }
+    assertTrue(serializer.serialize(authors).length < new JdkCacheSerializer().serialize(authors).length);
+  }
+
+  @Test
+  void shouldCopySimpleValues() {
+    Map<String, Object> row = new LinkedHashMap<>();
+    row.put("string", "value");
+    row.put("int", 1);
+    row.put("long", 2L);
+    row.put("decimal", new BigDecimal("123.456"));
+    row.put("timestamp", new Timestamp(1234567890123L));
+    row.put("bytes", new byte[] { 1, 2, 3 });
+    row.put("array", new String[] { "a", null });
+    row.put("null", null);
+    @SuppressWarnings("unchecked")
+    Map<String, Object> copy = (Map<String, Object>) serializer.deserialize(serializer.serialize(row));
+    assertEquals(LinkedHashMap.class, copy.getClass());
+    assertEquals(new ArrayList<>(row.keySet()), new ArrayList<>(copy.keySet()));
+    assertEquals("value", copy.get("string"));
+    assertEquals(1, copy.get("int"));
+    assertEquals(2L, copy.get("long"));
+    assertEquals(new BigDecimal("123.456"), copy.get("decimal"));
+    assertEquals(new Timestamp(1234567890123L), copy.get("timestamp"));
+    assertArrayEquals(new byte[] { 1, 2, 3 }, (byte[]) copy.get("bytes"));
+    assertArrayEquals(new String[] { "a", null }, (String[]) copy.get("array"));
+    assertNull(copy.get("null"));
+  }
+
+  @Test
+  void shouldPreserveSharedReferencesAndCycles() {
+    Node parent = new Node();
+    parent.setName("parent");
+    Node child = new Node();
+    child.setName("child");
+    child.setParent(parent);
+    parent.setChildren(new ArrayList<>(Arrays.asList(child, child)));
+    Node copy = (Node) serializer.deserialize(serializer.serialize(parent));
+    assertEquals("parent", copy.getName());
+    assertSame(copy.getChildren().get(0), copy.getChildren().get(1));
+    assertSame(copy, copy.getChildren().get(0).getParent());
+  }
+
+  @Test
+  void shouldFallBackToJavaSerialization() {
+    Map<String, Object> values = new HashMap<>();
+    values.put("date", LocalDate.of(2021, 12, 31));
+    values.put("author", new ImmutableAuthor(1, "user", "******", "user@mybatis.org", null, Section.NEWS));
+    values.put("list", Arrays.asList(1, 2));
+    @SuppressWarnings("unchecked")
+    Map<String, Object> copy = (Map<String, Object>) serializer.deserialize(serializer.serialize(values));
+    assertEquals(LocalDate.of(2021, 12, 31), copy.get("date"));
+    assertEquals(Arrays.asList(1, 2), copy.get("list"));
+    assertEquals("user", ((ImmutableAuthor) copy.get("author")).getUsername());
+  }
+
+  @Test
+  void shouldRejectNonSerializableObjects() {
+    List<Object> values = new ArrayList<>();
+    values.add(new Object());
+    assertThrows(CacheException.class, () -> serializer.serialize(values));
+  }
+
+  @Test
+  void shouldOnlyReadClassesItWrote() {
+    Author author = new Author(1, "user", "******", "user@mybatis.org", null, Section.NEWS);
+    byte[] bytes = serializer.serialize(author);
+    assertEquals(author, serializer.deserialize(bytes));
+    CacheException e = assertThrows(CacheException.class, () -> new CompactCacheSerializer().deserialize(bytes));
+    assertTrue(e.getMessage().contains(Author.class.getName()));
+  }
+
+  @Test
+  void shouldBeSelectableBySerializedCache() {
+    SerializedCache cache = new SerializedCache(new PerpetualCache("default"));
+    cache.setSerializer("COMPACT");
+    Author author = new Author(1, "user", "******", "user@mybatis.org", null, Section.NEWS);
+    cache.putObject(1, author);
+    assertEquals(author, cache.getObject(1));
+    assertNotSame(author, cache.getObject(1));
+  }
+
+  public static class Node implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String name;
+    private Node parent;
+    private List<Node> children;
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public Node getParent() {
+      return parent;
+    }
+
+    public void setParent(Node parent) {
+      this.parent = parent;
+    }
+
+    public List<Node> getChildren() {
+      return children;
+    }
+
+    public void setChildren(List<Node> children) {
+      this.children = children;
+    }
+  }
+
+}
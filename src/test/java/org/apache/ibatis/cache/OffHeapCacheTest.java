@@ -0,0 +1,187 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
+import org.junit.jupiter.api.Test;
+
+class OffHeapCacheTest {
+
+  @Test
+  void shouldStoreSerializedCopies() {
+    Cache cache = new SerializedCache(newCache(1024 * 1024, 64 * 1024));
+    for (int i = 0; i < 1000; i++) {
+      cache.putObject(i, "value" + i);
+      assertEquals("value" + i, cache.getObject(i));
+    }
+    assertEquals(1000, cache.getSize());
+  }
+
+  @Test
+  void shouldEvictOldestValueOfSameSizeWhenFull() {
+    OffHeapCache cache = newCache(4096, 1024);
+    for (int i = 0; i < 4; i++) {
+      cache.putObject(i, new byte[1024]);
+    }
+    assertEquals(4096, cache.getAllocatedCapacity());
+    cache.putObject(4, new byte[1024]);
+    assertNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    assertEquals(4, cache.getSize());
+  }
+
+  @Test
+  void shouldMoveSlabsToTheSizesInUse() {
+    OffHeapCache cache = newCache(4096, 1024);
+    for (int i = 0; i < 4; i++) {
+      cache.putObject(i, new byte[1024]);
+    }
+    // the slabs of the large values, no longer written, are moved to the small ones
+    for (int i = 10; i < 30; i++) {
+      cache.putObject(i, new byte[100]);
+    }
+    for (int i = 10; i < 30; i++) {
+      assertNotNull(cache.getObject(i));
+    }
+    assertNotNull(cache.getObject(3));
+    assertEquals(21, cache.getSize());
+    assertEquals(4096, cache.getAllocatedCapacity());
+
+    // and back when the large values are written again
+    for (int i = 0; i < 4; i++) {
+      cache.putObject(i, new byte[1024]);
+    }
+    for (int i = 0; i < 4; i++) {
+      assertNotNull(cache.getObject(i));
+    }
+    assertEquals(4, cache.getSize());
+  }
+
+  @Test
+  void shouldNotCacheValueLargerThanSlab() {
+    OffHeapCache cache = newCache(4096, 1024);
+    cache.putObject(0, new byte[1025]);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getAllocatedCapacity());
+  }
+
+  @Test
+  void shouldReuseMemoryOfReplacedValues() {
+    OffHeapCache cache = newCache(1024, 1024);
+    for (int i = 0; i < 100; i++) {
+      byte[] value = new byte[100];
+      value[0] = (byte) i;
+      cache.putObject(0, value);
+    }
+    assertEquals(99, ((byte[]) cache.getObject(0))[0]);
+    assertEquals(1024, cache.getAllocatedCapacity());
+  }
+
+  @Test
+  void shouldRejectValuesThatAreNotSerialized() {
+    Cache cache = newCache(1024, 1024);
+    assertThrows(CacheException.class, () -> cache.putObject(0, "value"));
+  }
+
+  @Test
+  void shouldRejectCapacitySmallerThanSlab() {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setCapacity(1024);
+    cache.setSlabSize(2048);
+    assertThrows(CacheException.class, cache::initialize);
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    Cache cache = newCache(1024, 1024);
+    cache.putObject(0, new byte[10]);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    Cache cache = newCache(1024, 1024);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, new byte[10]);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+  }
+
+  @Test
+  void shouldNeverReturnTornValuesUnderConcurrentAccess() throws Exception {
+    OffHeapCache cache = newCache(8192, 1024);
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicBoolean torn = new AtomicBoolean();
+    try {
+      for (int t = 0; t < threads; t++) {
+        executor.execute(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+          for (int i = 0; i < 10000; i++) {
+            int key = i % 32;
+            byte[] value = new byte[200];
+            Arrays.fill(value, (byte) key);
+            cache.putObject(key, value);
+            byte[] read = (byte[]) cache.getObject((i * 7) % 32);
+            if (read != null) {
+              for (byte b : read) {
+                if (b != read[0]) {
+                  torn.set(true);
+                }
+              }
+            }
+          }
+        });
+      }
+      start.countDown();
+    } finally {
+      executor.shutdown();
+    }
+    assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+    assertFalse(torn.get());
+  }
+
+  private OffHeapCache newCache(long capacity, int slabSize) {
+    OffHeapCache cache = new OffHeapCache("default");
+    cache.setCapacity(capacity);
+    cache.setSlabSize(slabSize);
+    cache.initialize();
+    return cache;
+  }
+
+}
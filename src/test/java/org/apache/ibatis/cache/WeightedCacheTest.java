@@ -0,0 +1,165 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.junit.jupiter.api.Test;
+
+class WeightedCacheTest {
+
+  @Test
+  void shouldWeighSerializedValuesByLength() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.putObject(0, new byte[100]);
+    cache.putObject(1, new byte[200]);
+    assertEquals(120 + 216, cache.getWeight());
+  }
+
+  @Test
+  void shouldRemoveOldestItemsBeyondMaxWeight() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.setMaxWeight(1000);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, new byte[184]);
+    }
+    assertNotNull(cache.getObject(0));
+    cache.putObject(5, new byte[184]);
+    assertNull(cache.getObject(0));
+    assertNotNull(cache.getObject(1));
+    assertEquals(5, cache.getSize());
+    assertEquals(1000, cache.getWeight());
+  }
+
+  @Test
+  void shouldNotCacheItemHeavierThanMaxWeight() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.setMaxWeight(1000);
+    cache.putObject(0, new byte[100]);
+    cache.putObject(1, new byte[1000]);
+    assertNull(cache.getObject(1));
+    assertNotNull(cache.getObject(0));
+    assertEquals(120, cache.getWeight());
+  }
+
+  @Test
+  void shouldReplaceWeightOfUpdatedItem() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.putObject(0, new byte[100]);
+    cache.putObject(0, new byte[200]);
+    assertEquals(216, cache.getWeight());
+  }
+
+  @Test
+  void shouldEstimateWeightOfObjectGraphs() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    List<Author> authors = new ArrayList<>();
+    authors.add(new Author(1, "jim", "********", "jim@ibatis.apache.org", "", Section.NEWS));
+    cache.putObject(0, authors);
+    long oneAuthor = cache.getWeight();
+    assertTrue(oneAuthor > 0);
+    for (int i = 2; i <= 10; i++) {
+      authors.add(new Author(i, "jim" + i, "********", "jim@ibatis.apache.org", "", Section.NEWS));
+    }
+    cache.putObject(0, authors);
+    assertTrue(cache.getWeight() > oneAuthor * 5);
+  }
+
+  @Test
+  void shouldRemoveItemsEvictedByWeightFromLruPolicy() {
+    Cache cache = new CacheBuilder("default").addDecorator(LruCache.class).size(3).maxWeight(600L).build();
+    cache.putObject(0, new byte[384]);
+    cache.putObject(1, new byte[184]);
+    cache.putObject(2, new byte[184]);
+    assertNull(cache.getObject(0));
+    assertEquals(2, cache.getSize());
+    // a key evicted by weight must not take one of the three slots of the LRU policy
+    cache.putObject(3, new byte[184]);
+    assertNotNull(cache.getObject(1));
+    assertNotNull(cache.getObject(2));
+    assertNotNull(cache.getObject(3));
+    assertEquals(3, cache.getSize());
+  }
+
+  @Test
+  void shouldKeepItemPutAgainWhileItIsEvicted() throws Exception {
+    WeightedCache weightedCache = new WeightedCache(new PerpetualCache("default"));
+    weightedCache.setMaxWeight(250);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      List<Future<?>> putsAgain = new ArrayList<>();
+      Cache cache = new FifoCache(weightedCache) {
+        @Override
+        public Object removeObject(Object key) {
+          Future<?> putAgain = executor.submit(() -> weightedCache.putObject(key, new byte[16]));
+          putsAgain.add(putAgain);
+          // the eviction holds the lock of the weighted cache until the key is removed from the policy
+          assertThrows(TimeoutException.class, () -> putAgain.get(100, TimeUnit.MILLISECONDS));
+          return super.removeObject(key);
+        }
+      };
+      weightedCache.setEvictionCache(cache);
+      cache.putObject(0, new byte[184]);
+      cache.putObject(1, new byte[184]);
+      assertEquals(1, putsAgain.size());
+      putsAgain.get(0).get(1, TimeUnit.SECONDS);
+      assertNotNull(cache.getObject(0));
+      assertEquals(200 + 32, weightedCache.getWeight());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldRemoveItemOnDemand() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    cache.putObject(0, 0);
+    assertNotNull(cache.getObject(0));
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getWeight());
+  }
+
+  @Test
+  void shouldFlushAllItemsOnDemand() {
+    WeightedCache cache = new WeightedCache(new PerpetualCache("default"));
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    assertNotNull(cache.getObject(0));
+    assertNotNull(cache.getObject(4));
+    cache.clear();
+    assertNull(cache.getObject(0));
+    assertNull(cache.getObject(4));
+    assertEquals(0, cache.getWeight());
+  }
+
+}
@@ -26,6 +26,7 @@ import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -136,6 +137,7 @@ class DefaultCursorTest {
    */
   protected abstract class ImpatientResultSet implements ResultSet {
     private int rowIndex = -1;
+    private List<String> columnLabels = Arrays.asList("id", "role");
     private List<Map<String, Object>> rows = new ArrayList<>();
 
     protected ImpatientResultSet() {
@@ -162,12 +164,22 @@ class DefaultCursorTest {
       return (String) rows.get(rowIndex).get(columnLabel);
     }
 
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+      return getString(columnLabels.get(columnIndex - 1));
+    }
+
     @Override
     public int getInt(String columnLabel) throws SQLException {
       throwIfClosed();
       return (Integer) rows.get(rowIndex).get(columnLabel);
     }
 
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+      return getInt(columnLabels.get(columnIndex - 1));
+    }
+
     @Override
     public boolean wasNull() throws SQLException {
       throwIfClosed();
@@ -0,0 +1,126 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightLoaderTest {
+
+  private final SingleFlightLoader singleFlightLoader = new SingleFlightLoader();
+  private final ExecutorService executorService = Executors.newSingleThreadExecutor();
+  private final CacheKey key = new CacheKey(new Object[] { "key" });
+
+  @AfterEach
+  void shutdown() {
+    executorService.shutdownNow();
+  }
+
+  @Test
+  void shouldShareConcurrentLoad() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    Future<String> leader = executorService.submit(() -> singleFlightLoader.load(key, null, () -> {
+      loads.incrementAndGet();
+      loading.countDown();
+      awaitUninterruptibly(release);
+      return "loaded";
+    }, () -> null));
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+    assertEquals(1, singleFlightLoader.getLoadsInFlight());
+
+    releaseWhenWaiting(Thread.currentThread(), release);
+    String waited = singleFlightLoader.load(key, null, () -> {
+      loads.incrementAndGet();
+      return "not shared";
+    }, () -> "read");
+
+    assertEquals("read", waited);
+    assertEquals("loaded", leader.get(5, TimeUnit.SECONDS));
+    assertEquals(1, loads.get());
+    assertEquals(0, singleFlightLoader.getLoadsInFlight());
+  }
+
+  @Test
+  void shouldLetWaitersQueryOnTheirOwnWhenLoadFails() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> leader = executorService.submit(() -> singleFlightLoader.load(key, null, () -> {
+      loading.countDown();
+      awaitUninterruptibly(release);
+      throw new SQLException("boom", "42000", 99);
+    }, () -> null));
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+    releaseWhenWaiting(Thread.currentThread(), release);
+    assertNull(singleFlightLoader.load(key, null, () -> "not shared", () -> "read"));
+
+    ExecutionException e = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+    assertEquals("42000", ((SQLException) e.getCause()).getSQLState());
+    assertEquals(0, singleFlightLoader.getLoadsInFlight());
+  }
+
+  @Test
+  void shouldGiveUpAfterWaitTimeout() throws Exception {
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<String> leader = executorService.submit(() -> singleFlightLoader.load(key, null, () -> {
+      loading.countDown();
+      awaitUninterruptibly(release);
+      return "loaded";
+    }, () -> null));
+    assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+    assertNull(singleFlightLoader.load(key, 10L, () -> "not shared", () -> "read"));
+
+    release.countDown();
+    assertEquals("loaded", leader.get(5, TimeUnit.SECONDS));
+  }
+
+  private static void releaseWhenWaiting(Thread waiter, CountDownLatch release) {
+    new Thread(() -> {
+      while (waiter.getState() != Thread.State.WAITING) {
+        Thread.yield();
+      }
+      release.countDown();
+    }).start();
+  }
+
+  private static void awaitUninterruptibly(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,88 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Collections;
+import java.util.UUID;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.junit.jupiter.api.Test;
+
+class NestedResultObjectsTest {
+
+  @Test
+  void shouldNotFailOnParentsSharingTheirHash() {
+    // the 64-bit hash of a list falls back to its hashCode(), where "Aa" and "BB" collide
+    RowKey first = key(Collections.singletonList("Aa"));
+    RowKey second = key(Collections.singletonList("BB"));
+    assertEquals(first.longHash(), second.longHash());
+
+    NestedResultObjects objects = new NestedResultObjects("selectBlogs", true);
+    objects.startParent(first);
+    objects.startParent(second);
+  }
+
+  @Test
+  void shouldFailOnParentFollowingOtherParents() {
+    NestedResultObjects objects = new NestedResultObjects("selectBlogs", true);
+    objects.startParent(key(1));
+    objects.startParent(key(2));
+    assertThrows(ExecutorException.class, () -> objects.startParent(key(1)));
+
+    NestedResultObjects uuidObjects = new NestedResultObjects("selectBlogs", true);
+    uuidObjects.startParent(key(new UUID(0, 1)));
+    uuidObjects.startParent(key(new UUID(1, 0)));
+    assertThrows(ExecutorException.class, () -> uuidObjects.startParent(key(new UUID(0, 1))));
+
+    NestedResultObjects listObjects = new NestedResultObjects("selectBlogs", true);
+    listObjects.startParent(key(Collections.singletonList("Aa")));
+    listObjects.startParent(key(Collections.singletonList("BB")));
+    assertThrows(ExecutorException.class, () -> listObjects.startParent(key(Collections.singletonList("Aa"))));
+  }
+
+  @Test
+  void shouldHashStringsAndUuidsWithoutTheirHashCode() {
+    assertNotEquals(key("Aa").longHash(), key("BB").longHash());
+    assertNotEquals(key(new UUID(0, 1)).longHash(), key(new UUID(1, 0)).longHash());
+  }
+
+  @Test
+  void shouldTellCompositeParentsApart() {
+    NestedResultObjects objects = new NestedResultObjects("selectBlogs", true);
+    objects.startParent(key(1, "a"));
+    objects.startParent(key(1, "b"));
+    objects.startParent(key(2, "a"));
+    objects.startParent(key(2, null));
+    assertThrows(ExecutorException.class, () -> objects.startParent(key(1, "b")));
+  }
+
+  @Test
+  void shouldTellIntegralParentFromNullParentApart() {
+    NestedResultObjects objects = new NestedResultObjects("selectBlogs", true);
+    objects.startParent(key(0));
+    objects.startParent(key((Object) null));
+    assertThrows(ExecutorException.class, () -> objects.startParent(key(0)));
+  }
+
+  private static RowKey key(Object... values) {
+    return new RowKey("blogMap", null, values);
+  }
+
+}
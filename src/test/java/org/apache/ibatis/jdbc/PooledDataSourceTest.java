@@ -17,12 +17,25 @@ package org.apache.ibatis.jdbc;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.lang.management.ManagementFactory;
 import java.sql.Connection;
+import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PoolMetrics;
+import org.apache.ibatis.datasource.pooled.PoolMetricsListener;
 import org.apache.ibatis.datasource.pooled.PooledDataSource;
 import org.hsqldb.jdbc.JDBCConnection;
 import org.junit.jupiter.api.Test;
@@ -85,4 +98,250 @@ class PooledDataSourceTest extends BaseDataTest {
     JDBCConnection realConnection = (JDBCConnection) PooledDataSource.unwrapConnection(c);
     c.close();
   }
+
+  @Test
+  void shouldHandOverReturnedConnectionToWaitingThread() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    ds.setPoolMaximumActiveConnections(1);
+    ds.setPoolTimeToWait(20000);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Connection held = ds.getConnection();
+      Connection real = PooledDataSource.unwrapConnection(held);
+      Future<Connection> waiting = executor.submit(() -> PooledDataSource.unwrapConnection(ds.getConnection()));
+      while (ds.getPoolState().getHadToWaitCount() == 0) {
+        Thread.sleep(10);
+      }
+      held.close();
+      assertSame(real, waiting.get(5, TimeUnit.SECONDS));
+      assertEquals(1, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+      assertEquals(2, ds.getPoolState().getRequestCount());
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldWakeWaitingThreadWhenReturnedConnectionIsClosed() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    ds.setPoolMaximumActiveConnections(1);
+    ds.setPoolMaximumIdleConnections(0);
+    ds.setPoolTimeToWait(20000);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Connection held = ds.getConnection();
+      Future<Connection> waiting = executor.submit(() -> ds.getConnection());
+      while (ds.getPoolState().getHadToWaitCount() == 0) {
+        Thread.sleep(10);
+      }
+      held.close();
+      waiting.get(5, TimeUnit.SECONDS).close();
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldNotExceedMaximumActiveConnectionsUnderContention() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    ds.setPoolMaximumActiveConnections(4);
+    ds.setPoolMaximumIdleConnections(2);
+    int threads = 16;
+    int checkouts = 200;
+    AtomicInteger inUse = new AtomicInteger();
+    AtomicInteger maxInUse = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          for (int j = 0; j < checkouts; j++) {
+            try (Connection c = ds.getConnection()) {
+              maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+              c.getAutoCommit();
+              inUse.decrementAndGet();
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+      assertTrue(maxInUse.get() <= 4);
+      assertEquals(threads * checkouts, ds.getPoolState().getRequestCount());
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertTrue(ds.getPoolState().getIdleConnectionCount() <= 2);
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldOpenIdleConnectionsUpToMinimumInBackground() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMinimumIdleConnections(2);
+      ds.setPoolHousekeepingInterval(20);
+      awaitCondition(() -> ds.getPoolState().getIdleConnectionCount() == 2);
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    } finally {
+      ds.setPoolHousekeepingInterval(0);
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldEvictConnectionsIdleForTooLong() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumIdleConnections(5);
+      ds.setPoolMinimumIdleConnections(1);
+      ds.setPoolMaximumIdleTime(50);
+      List<Connection> connections = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        connections.add(ds.getConnection());
+      }
+      for (Connection c : connections) {
+        c.close();
+      }
+      assertEquals(3, ds.getPoolState().getIdleConnectionCount());
+      ds.setPoolHousekeepingInterval(20);
+      awaitCondition(() -> ds.getPoolState().getIdleConnectionCount() == 1);
+      assertEquals(0, ds.getPoolState().getBadConnectionCount());
+    } finally {
+      ds.setPoolHousekeepingInterval(0);
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldCloseConnectionPastMaximumLifetimeWhenReturned() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumLifetime(1);
+      Connection c = ds.getConnection();
+      Connection real = PooledDataSource.unwrapConnection(c);
+      Thread.sleep(10);
+      c.close();
+      assertEquals(0, ds.getPoolState().getIdleConnectionCount());
+      assertTrue(real.isClosed());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldDiscardIdleConnectionFailingValidationInBackground() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      Connection c = ds.getConnection();
+      Connection real = PooledDataSource.unwrapConnection(c);
+      c.close();
+      real.close();
+      assertEquals(1, ds.getPoolState().getIdleConnectionCount());
+      ds.setPoolHousekeepingInterval(20);
+      awaitCondition(() -> ds.getPoolState().getIdleConnectionCount() == 0);
+      assertEquals(1, ds.getPoolState().getBadConnectionCount());
+    } finally {
+      ds.setPoolHousekeepingInterval(0);
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldPublishPoolMetrics() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    AtomicInteger checkouts = new AtomicInteger();
+    AtomicInteger closes = new AtomicInteger();
+    ds.addPoolMetricsListener(new PoolMetricsListener() {
+      @Override
+      public void connectionCheckedOut(long waitTimeNanos) {
+        checkouts.incrementAndGet();
+      }
+
+      @Override
+      public void connectionClosed(long lifetimeMillis) {
+        closes.incrementAndGet();
+      }
+    });
+    try {
+      List<Connection> connections = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        connections.add(ds.getConnection());
+      }
+      PoolMetrics metrics = ds.getPoolMetrics();
+      assertEquals(3, metrics.getActiveConnectionCount());
+      for (Connection c : connections) {
+        c.close();
+      }
+      assertEquals(0, metrics.getActiveConnectionCount());
+      assertEquals(3, metrics.getIdleConnectionCount());
+      assertEquals(3, metrics.getCheckoutCount());
+      assertEquals(3, metrics.getOpenedConnectionCount());
+      assertEquals(3, Arrays.stream(metrics.getCheckoutTimeHistogram()).sum());
+      assertEquals(metrics.getCheckoutTimeBucketBoundsMicros().length + 1, metrics.getCheckoutTimeHistogram().length);
+      ds.forceCloseAll();
+      assertEquals(3, metrics.getClosedConnectionCount());
+      assertEquals(3, Arrays.stream(metrics.getConnectionLifetimeHistogram()).sum());
+      assertEquals(3, checkouts.get());
+      assertEquals(3, closes.get());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldPublishCloseOfConnectionFailingPingOnce() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolPingEnabled(true);
+      ds.setPoolPingQuery("SELECT * FROM NO_SUCH_TABLE");
+      ds.setPoolPingConnectionsNotUsedFor(0);
+      Connection c = ds.getConnection();
+      Thread.sleep(10);
+      c.close();
+      PoolMetrics metrics = ds.getPoolMetrics();
+      assertEquals(1, ds.getPoolState().getBadConnectionCount());
+      assertEquals(0, metrics.getIdleConnectionCount());
+      assertEquals(1, metrics.getOpenedConnectionCount());
+      assertEquals(1, metrics.getClosedConnectionCount());
+      ds.forceCloseAll();
+      assertEquals(1, metrics.getClosedConnectionCount());
+    } finally {
+      ds.forceCloseAll();
+    }
+  }
+
+  @Test
+  void shouldRegisterPoolMetricsInJmx() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    String name = "org.apache.ibatis:type=PooledDataSource,name=PooledDataSourceTest";
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    try {
+      ds.setPoolJmxName(name);
+      ds.getConnection().close();
+      assertEquals(1L, server.getAttribute(new ObjectName(name), "CheckoutCount"));
+      assertEquals(1, server.getAttribute(new ObjectName(name), "IdleConnectionCount"));
+    } finally {
+      ds.setPoolJmxName(null);
+      ds.forceCloseAll();
+    }
+    assertFalse(server.isRegistered(new ObjectName(name)));
+  }
+
+  private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.currentTimeMillis() < deadline, "Condition not met within 5 seconds");
+      Thread.sleep(10);
+    }
+  }
 }
@@ -19,11 +19,22 @@ import static com.googlecode.catchexception.apis.BDDCatchException.*;
 import static org.assertj.core.api.BDDAssertions.then;
 
 import java.lang.reflect.Field;
+import java.util.Properties;
 
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.decorators.FifoCache;
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TinyLfuCache;
+import org.apache.ibatis.cache.decorators.WeightedCache;
+import org.apache.ibatis.cache.impl.ConcurrentPerpetualCache;
+import org.apache.ibatis.cache.impl.OffHeapCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.serializer.CompactCacheSerializer;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -43,11 +54,110 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
-  @SuppressWarnings("unchecked")
+  @Test
+  void shouldSynchronizeDefaultCache() {
+    Cache cache = new CacheBuilder("test").build();
+
+    Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+  }
+
+  @Test
+  void shouldNotSynchronizeThreadSafeCache() {
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentPerpetualCache.class)
+        .addDecorator(FifoCache.class).size(10).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    FifoCache fifoCache = unwrap(cache);
+    Assertions.assertThat((Cache) unwrap(fifoCache)).isInstanceOf(ConcurrentPerpetualCache.class);
+    for (int i = 0; i < 20; i++) {
+      cache.putObject(i, i);
+    }
+    Assertions.assertThat(cache.getSize()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldNotSynchronizeTinyLfuCache() {
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentPerpetualCache.class)
+        .addDecorator(TinyLfuCache.class).size(10).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    for (int i = 0; i < 20; i++) {
+      cache.putObject(i, i);
+    }
+    Assertions.assertThat(cache.getSize()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldPlaceWeightedCacheBelowEvictionPolicy() {
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentPerpetualCache.class)
+        .addDecorator(FifoCache.class).maxWeight(1000L).build();
+
+    FifoCache fifoCache = unwrap(cache);
+    WeightedCache weightedCache = unwrap(fifoCache);
+    Assertions.assertThat(weightedCache.getMaxWeight()).isEqualTo(1000L);
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(i, new byte[184]);
+    }
+    Assertions.assertThat(cache.getSize()).isEqualTo(5);
+    cache.removeObject(9);
+    Assertions.assertThat(weightedCache.getWeight()).isEqualTo(800L);
+  }
+
+  @Test
+  void shouldSynchronizeWeightedUnsafeCache() {
+    Cache cache = new CacheBuilder("test").addDecorator(FifoCache.class).maxWeight(1000000L).build();
+
+    Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+  }
+
+  @Test
+  void shouldBuildOffHeapCache() {
+    Properties properties = new Properties();
+    properties.setProperty("capacity", "2048");
+    properties.setProperty("slabSize", "1024");
+    Cache cache = new CacheBuilder("test").implementation(OffHeapCache.class).addDecorator(TinyLfuCache.class)
+        .readWrite(true).properties(properties).build();
+
+    Assertions.assertThat(cache).isInstanceOf(LoggingCache.class);
+    cache.putObject(1, "value");
+    Assertions.assertThat(cache.getObject(1)).isEqualTo("value");
+  }
+
+  @Test
+  void shouldApplySerializerProperty() {
+    Properties properties = new Properties();
+    properties.setProperty("serializer", "COMPACT");
+    Cache cache = new CacheBuilder("test").readWrite(true).properties(properties).build();
+
+    SerializedCache serializedCache = unwrap(unwrap(cache));
+    Assertions.assertThat((Object) unwrap(serializedCache, "serializer")).isInstanceOf(CompactCacheSerializer.class);
+  }
+
+  @Test
+  void shouldSynchronizeThreadSafeCacheWithUnsafeDecorator() {
+    Cache cache = new CacheBuilder("test").implementation(ConcurrentPerpetualCache.class)
+        .addDecorator(LruCache.class).build();
+
+    Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+  }
+
+  @Test
+  void shouldSynchronizeUnsafeCacheWithThreadSafeDecorator() {
+    Cache cache = new CacheBuilder("test").implementation(PerpetualCache.class)
+        .addDecorator(FifoCache.class).build();
+
+    Assertions.assertThat(cache).isInstanceOf(SynchronizedCache.class);
+  }
+
   private <T> T unwrap(Cache cache) {
+    return unwrap(cache, "delegate");
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T unwrap(Cache cache, String fieldName) {
     Field field;
     try {
-      field = cache.getClass().getDeclaredField("delegate");
+      field = cache.getClass().getDeclaredField(fieldName);
     } catch (NoSuchFieldException e) {
       throw new IllegalStateException(e);
     }
@@ -125,6 +125,19 @@ class AutoMappingUnknownColumnBehaviorTest {
         }
     }
 
+    @Test
+    void warningOnEveryExecution() {
+        sqlSessionFactory.getConfiguration().setAutoMappingUnknownColumnBehavior(AutoMappingUnknownColumnBehavior.WARNING);
+        for (int i = 0; i < 2; i++) {
+            LastEventSavedAppender.lastEvent = null;
+            try (SqlSession session = sqlSessionFactory.openSession()) {
+                session.getMapper(Mapper.class).selectSimpleAuthor(101);
+            }
+            assertThat(LastEventSavedAppender.lastEvent).isNotNull();
+            assertThat(LastEventSavedAppender.lastEvent.getMessage()).contains("columnName=ID,propertyName=id");
+        }
+    }
+
     @Test
     void failingCauseByUnknownColumn() {
         sqlSessionFactory.getConfiguration().setAutoMappingUnknownColumnBehavior(AutoMappingUnknownColumnBehavior.FAILING);
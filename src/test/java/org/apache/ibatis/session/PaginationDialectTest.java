@@ -0,0 +1,49 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class PaginationDialectTest {
+
+  @Test
+  void shouldFindBodyOfSingleSelect() {
+    assertEquals("select * from users", PaginationDialect.getSelectBody(" select * from users ;; "));
+    assertEquals("with t as (select * from users limit 5) select * from t order by id",
+        PaginationDialect.getSelectBody("with t as (select * from users limit 5) select * from t order by id"));
+    assertEquals("select u.limit, 'union' from users /* for update */ where name = \"offset\"",
+        PaginationDialect.getSelectBody("select u.limit, 'union' from users /* for update */ where name = \"offset\""));
+    assertEquals("select * from users -- for update\n order by id",
+        PaginationDialect.getSelectBody("select * from users -- for update\n order by id"));
+  }
+
+  @Test
+  void shouldNotFindBodyOfQueryEndingInOtherClauses() {
+    assertNull(PaginationDialect.getSelectBody("select * from users order by id limit 5"));
+    assertNull(PaginationDialect.getSelectBody("select * from users order by id fetch first 5 rows only"));
+    assertNull(PaginationDialect.getSelectBody("select * from users where id = ? for update"));
+    assertNull(PaginationDialect.getSelectBody("select top 5 * from users"));
+    assertNull(PaginationDialect.getSelectBody("select * from a union all select * from b"));
+    assertNull(PaginationDialect.getSelectBody("(select * from a) order by id"));
+    assertNull(PaginationDialect.getSelectBody("select * from a; select * from b"));
+    assertNull(PaginationDialect.getSelectBody("select * from users -- page"));
+    assertNull(PaginationDialect.getSelectBody("select * from users where name = 'it''s"));
+  }
+
+}
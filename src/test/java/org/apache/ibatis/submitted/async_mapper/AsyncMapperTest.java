@@ -0,0 +1,132 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.binding.BindingException;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncMapperTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+  private ExecutorService executor;
+  private final AtomicReference<String> threadName = new AtomicReference<>();
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/async_mapper/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/async_mapper/CreateDB.sql");
+    executor = Executors.newFixedThreadPool(2, runnable -> new Thread(runnable, "async-mapper"));
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(runnable -> executor.execute(() -> {
+      threadName.set(Thread.currentThread().getName());
+      runnable.run();
+    }));
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldSelectOnAsyncExecutor() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals("async-mapper", mapper.getUsers().thenApply(users -> threadName.get()).get(10, TimeUnit.SECONDS));
+      assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), idsOf(mapper.getUsers().get(10, TimeUnit.SECONDS)));
+      assertEquals("User3", mapper.getUser(3).toCompletableFuture().get(10, TimeUnit.SECONDS).getName());
+      assertNull(mapper.getUser(9).toCompletableFuture().get(10, TimeUnit.SECONDS));
+      assertEquals(Optional.empty(), mapper.findUser(9).get(10, TimeUnit.SECONDS));
+      assertEquals("User4", mapper.findUser(4).get(10, TimeUnit.SECONDS).get().getName());
+    }
+  }
+
+  @Test
+  void shouldCommitUpdates() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(1, mapper.insertUser(new User(7, "User7")).get(10, TimeUnit.SECONDS));
+      assertNull(mapper.insertUsers(Arrays.asList(new User(8, "User8"), new User(9, "User9"))).get(10, TimeUnit.SECONDS));
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = sqlSession.selectList("org.apache.ibatis.submitted.async_mapper.Mapper.getUsers");
+      assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9), idsOf(users));
+    }
+  }
+
+  @Test
+  void shouldCompleteExceptionallyWhenStatementFails() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      ExecutionException e = assertThrows(ExecutionException.class,
+          () -> mapper.insertUsers(Arrays.asList(new User(7, "User7"), new User(1, "User1"))).get(10, TimeUnit.SECONDS));
+      assertTrue(e.getCause() instanceof PersistenceException);
+      assertFalse(mapper.findUser(7).get(10, TimeUnit.SECONDS).isPresent());
+    }
+  }
+
+  @Test
+  void shouldRejectAsyncCursor() {
+    sqlSessionFactory.getConfiguration().addMapper(Mapper.CursorMapper.class);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper.CursorMapper mapper = sqlSession.getMapper(Mapper.CursorMapper.class);
+      BindingException e = assertThrows(BindingException.class, mapper::getUsers);
+      assertTrue(e.getMessage().contains("cannot return a Cursor asynchronously"));
+    }
+  }
+
+  @Test
+  void shouldRequireAsyncExecutor() {
+    sqlSessionFactory.getConfiguration().setAsyncExecutor(null);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      BindingException e = assertThrows(BindingException.class, mapper::getUsers);
+      assertTrue(e.getMessage().contains("no asyncExecutor is configured"));
+    }
+  }
+
+  private static List<Integer> idsOf(List<User> users) {
+    return users.stream().map(User::getId).collect(Collectors.toList());
+  }
+
+}
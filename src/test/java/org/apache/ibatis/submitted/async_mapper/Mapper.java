@@ -0,0 +1,45 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.async_mapper;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+
+public interface Mapper {
+
+  CompletableFuture<List<User>> getUsers();
+
+  CompletionStage<User> getUser(Integer id);
+
+  CompletableFuture<Optional<User>> findUser(Integer id);
+
+  CompletableFuture<Integer> insertUser(User user);
+
+  CompletableFuture<Void> insertUsers(List<User> users);
+
+  interface CursorMapper {
+
+    @Select("select * from users")
+    CompletableFuture<Cursor<User>> getUsers();
+
+  }
+
+}
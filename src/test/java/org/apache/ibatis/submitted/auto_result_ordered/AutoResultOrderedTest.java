@@ -0,0 +1,90 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.auto_result_ordered;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AutoResultOrderedTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/auto_result_ordered/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/auto_result_ordered/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapOrderedRowsLikeUnorderedProcessing() {
+    List<String> ordered = select(Mapper::getBlogs);
+    sqlSessionFactory.getConfiguration().setAutoResultOrdered(false);
+    assertEquals(select(Mapper::getBlogs), ordered);
+    assertEquals(Arrays.asList("1/Blog1[1/Post1, 3/Post3]", "2/Blog2[2/Post2, 4/Post4]", "3/Blog3[]"), ordered);
+  }
+
+  @Test
+  void shouldHandleCompleteParents() {
+    List<String> handled = new ArrayList<>();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      // no need for resultOrdered with a custom result handler
+      sqlSession.select("getBlogs", context -> handled.add(String.valueOf(context.getResultObject())));
+    }
+    assertEquals(Arrays.asList("1/Blog1[1/Post1, 3/Post3]", "2/Blog2[2/Post2, 4/Post4]", "3/Blog3[]"), handled);
+  }
+
+  @Test
+  void shouldFailWhenParentRowsAreNotOrdered() {
+    PersistenceException e = assertThrows(PersistenceException.class, () -> select(Mapper::getBlogsByPost));
+    assertTrue(e.getMessage().contains("follow the rows of other parents"), e.getMessage());
+  }
+
+  @Test
+  void shouldMergeUnorderedParentRowsWithoutAutoResultOrdered() {
+    sqlSessionFactory.getConfiguration().setAutoResultOrdered(false);
+    assertEquals(Arrays.asList("1/Blog1[1/Post1, 3/Post3]", "2/Blog2[2/Post2, 4/Post4]"),
+        select(Mapper::getBlogsByPost));
+  }
+
+  private List<String> select(Function<Mapper, List<Blog>> query) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return query.apply(sqlSession.getMapper(Mapper.class)).stream().map(String::valueOf)
+          .collect(Collectors.toList());
+    }
+  }
+
+}
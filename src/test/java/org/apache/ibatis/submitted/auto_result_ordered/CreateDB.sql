@@ -0,0 +1,39 @@
+--
+--    Copyright 2009-2021 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+
+drop table posts if exists;
+drop table blogs if exists;
+
+create table blogs (
+  id int,
+  title varchar(20)
+);
+
+create table posts (
+  id int,
+  blog_id int,
+  subject varchar(20)
+);
+
+insert into blogs (id, title) values(1, 'Blog1');
+insert into blogs (id, title) values(2, 'Blog2');
+insert into blogs (id, title) values(3, 'Blog3');
+
+insert into posts (id, blog_id, subject) values(1, 1, 'Post1');
+insert into posts (id, blog_id, subject) values(2, 2, 'Post2');
+insert into posts (id, blog_id, subject) values(3, 1, 'Post3');
+insert into posts (id, blog_id, subject) values(4, 2, 'Post4');
@@ -19,11 +19,14 @@ import java.io.Reader;
 import java.util.List;
 
 import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.resultset.AutoMappingPlanCache;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.AutoMappingBehavior;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.type.StringTypeHandler;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
@@ -54,6 +57,39 @@ class AutomappingTest {
     }
   }
 
+  @Test
+  void shouldShareAutoMappingsAcrossSessions() {
+    AutoMappingPlanCache planCache = sqlSessionFactory.getConfiguration().getAutoMappingPlanCache();
+    planCache.clear();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertEquals("User1", sqlSession.getMapper(Mapper.class).getUser(1).getName());
+    }
+    Assertions.assertEquals(1, planCache.size());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertEquals("User2", sqlSession.getMapper(Mapper.class).getUser(2).getName());
+    }
+    Assertions.assertEquals(1, planCache.size());
+  }
+
+  @Test
+  void shouldClearAutoMappingsWhenTheyMayChange() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    AutoMappingPlanCache planCache = configuration.getAutoMappingPlanCache();
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUser(1);
+    }
+    Assertions.assertTrue(planCache.size() > 0);
+    configuration.setMapUnderscoreToCamelCase(configuration.isMapUnderscoreToCamelCase());
+    Assertions.assertEquals(0, planCache.size());
+
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.getMapper(Mapper.class).getUser(1);
+    }
+    Assertions.assertTrue(planCache.size() > 0);
+    configuration.getTypeHandlerRegistry().register(String.class, new StringTypeHandler());
+    Assertions.assertEquals(0, planCache.size());
+  }
+
   @Test
   void shouldGetAUserWhithPhoneNumber() {
     sqlSessionFactory.getConfiguration().setAutoMappingBehavior(AutoMappingBehavior.NONE);
@@ -312,6 +312,16 @@ class CacheTest {
         .hasMessage("Should be specified either value() or name() attribute in the @CacheNamespaceRef");
   }
 
+  @Test
+  void shouldApplyMaxWeightOfCacheNamespace() {
+    sqlSessionFactory.getConfiguration().getMapperRegistry().addMapper(WeightedCacheMapper.class);
+    Cache cache = sqlSessionFactory.getConfiguration().getCache(WeightedCacheMapper.class.getName());
+    cache.putObject(1, new byte[600]);
+    cache.putObject(2, new byte[600]);
+    Assertions.assertNull(cache.getObject(1));
+    Assertions.assertNotNull(cache.getObject(2));
+  }
+
   private CustomCache unwrap(Cache cache){
     Field field;
     try {
@@ -335,6 +345,10 @@ class CacheTest {
   private interface CustomCacheUnsupportedPropertyMapper {
   }
 
+  @CacheNamespace(maxWeight = 1024)
+  private interface WeightedCacheMapper {
+  }
+
   @CacheNamespaceRef(value = PersonMapper.class, name = "org.apache.ibatis.submitted.cache.PersonMapper")
   private interface InvalidCacheNamespaceRefBothMapper {
   }
@@ -0,0 +1,144 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compiled_row_mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.resultset.RowMapper;
+import org.apache.ibatis.executor.resultset.RowMapperCompiler;
+import org.apache.ibatis.executor.resultset.RowMapperCompiler.Column;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.StringTypeHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMapperTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources
+        .getResourceAsReader("org/apache/ibatis/submitted/compiled_row_mapper/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compiled_row_mapper/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapResultMapLikeReflectiveMapping() {
+    List<String> users = compiledAndReflective(Mapper::getUsers);
+    assertEquals(Arrays.asList("1/User1/31/one", "2/User2/-1/none", "3/null/-1/none"), users);
+  }
+
+  @Test
+  void shouldMapResultTypeLikeReflectiveMapping() {
+    List<String> users = compiledAndReflective(Mapper::getUsersByResultType);
+    assertEquals(Arrays.asList("1/User1/31/one", "2/User2/-1/none", "3/null/-1/none"), users);
+  }
+
+  @Test
+  void shouldCallSettersOnNullsLikeReflectiveMapping() {
+    sqlSessionFactory.getConfiguration().setCallSettersOnNulls(true);
+    List<String> users = compiledAndReflective(Mapper::getUsers);
+    assertEquals(Arrays.asList("1/User1/31/one", "2/User2/-1/null", "3/null/-1/null"), users);
+  }
+
+  @Test
+  void shouldReturnEmptyRowLikeReflectiveMapping() {
+    assertEquals(Arrays.asList("null"), compiledAndReflective(mapper -> Collections.singletonList(mapper.getEmptyUser())));
+    sqlSessionFactory.getConfiguration().setReturnInstanceForEmptyRow(true);
+    assertEquals(Arrays.asList("null/null/-1/none"),
+        compiledAndReflective(mapper -> Collections.singletonList(mapper.getEmptyUser())));
+  }
+
+  @Test
+  void shouldFallBackToReflectiveMappingForDiscriminator() {
+    List<String> users = compiledAndReflective(Mapper::getDiscriminatedUsers);
+    assertEquals(Arrays.asList("1/null/31/User1", "2/null/-1/none", "3/null/-1/none"), users);
+  }
+
+  @Test
+  void shouldGenerateRowMapperForPublicTypesOnly() throws Exception {
+    RowMapperCompiler compiler = new RowMapperCompiler();
+    List<Column> columns = Arrays.asList(new Column(1, "id", new IntegerTypeHandler()),
+        new Column(2, "name", new StringTypeHandler()));
+    assertNotNull(compiler.getRowMapper("user", User.class, new DefaultReflectorFactory(), () -> columns, false, false));
+    assertNull(compiler.getRowMapper("hidden", HiddenUser.class, new DefaultReflectorFactory(), () -> columns, false,
+        false));
+    assertNull(compiler.getRowMapper("unknown", User.class, new DefaultReflectorFactory(),
+        () -> Collections.singletonList(new Column(1, "unknown", new IntegerTypeHandler())), false, false));
+  }
+
+  @Test
+  void shouldShareGeneratedClassBetweenKeysWithSameColumnLayout() throws Exception {
+    RowMapperCompiler compiler = new RowMapperCompiler();
+    IntegerTypeHandler integerTypeHandler = new IntegerTypeHandler();
+    StringTypeHandler stringTypeHandler = new StringTypeHandler();
+    List<Column> columns = Arrays.asList(new Column(1, "id", integerTypeHandler),
+        new Column(2, "name", stringTypeHandler));
+    List<Column> sameColumns = Arrays.asList(new Column(1, "id", integerTypeHandler),
+        new Column(2, "name", stringTypeHandler));
+    RowMapper rowMapper = compiler.getRowMapper("user:ID/INTEGER:NAME/VARCHAR", User.class,
+        new DefaultReflectorFactory(), () -> columns, false, false);
+    assertSame(rowMapper, compiler.getRowMapper("user:ID/INTEGER:NAME/VARCHAR:EXTRA/VARCHAR", User.class,
+        new DefaultReflectorFactory(), () -> sameColumns, false, false));
+    assertEquals(1, compiler.getGeneratedClassCount());
+    compiler.getRowMapper("user:NAME/VARCHAR:ID/INTEGER", User.class, new DefaultReflectorFactory(),
+        () -> Arrays.asList(new Column(2, "id", integerTypeHandler), new Column(1, "name", stringTypeHandler)), false,
+        false);
+    assertEquals(2, compiler.getGeneratedClassCount());
+  }
+
+  private List<String> compiledAndReflective(Function<Mapper, List<User>> query) {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setCompiledRowMappers(true);
+    List<String> compiled = select(query);
+    configuration.setCompiledRowMappers(false);
+    List<String> reflective = select(query);
+    assertEquals(reflective, compiled);
+    return compiled;
+  }
+
+  private List<String> select(Function<Mapper, List<User>> query) {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return query.apply(sqlSession.getMapper(Mapper.class)).stream().map(String::valueOf)
+          .collect(Collectors.toList());
+    }
+  }
+
+  static class HiddenUser extends User {
+  }
+
+}
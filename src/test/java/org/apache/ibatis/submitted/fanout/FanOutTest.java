@@ -0,0 +1,122 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.fanout;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.QuerySpec;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FanOutTest {
+
+  private static final String NAMESPACE = "org.apache.ibatis.submitted.fanout.Mapper.";
+
+  private SqlSessionFactory sqlSessionFactory;
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/fanout/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/fanout/CreateDB.sql");
+    executor = Executors.newFixedThreadPool(3);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void shouldRunQueriesConcurrently() throws Exception {
+    sqlSessionFactory.getConfiguration().addInterceptor(new QueryBarrier(new CyclicBarrier(3)));
+    List<List<Object>> results = sqlSessionFactory.selectAll(Arrays.asList(
+        new QuerySpec(NAMESPACE + "getUsers"),
+        new QuerySpec(NAMESPACE + "getUser", 3),
+        new QuerySpec(NAMESPACE + "getUsersByName", "User%", new RowBounds(1, 2))), executor)
+        .get(10, TimeUnit.SECONDS);
+    assertEquals(3, results.size());
+    assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), idsOf(results.get(0)));
+    assertEquals(Arrays.asList(3), idsOf(results.get(1)));
+    assertEquals(Arrays.asList(2, 3), idsOf(results.get(2)));
+  }
+
+  @Test
+  void shouldFailWhenAQueryFails() {
+    CompletableFuture<List<List<Object>>> results = sqlSessionFactory.selectAll(Arrays.asList(
+        new QuerySpec(NAMESPACE + "getUsers"),
+        new QuerySpec(NAMESPACE + "getUser", "not a number")), executor);
+    ExecutionException e = assertThrows(ExecutionException.class, () -> results.get(10, TimeUnit.SECONDS));
+    assertTrue(e.getCause() instanceof PersistenceException);
+  }
+
+  @Test
+  void shouldCompleteWithoutQueries() throws Exception {
+    assertTrue(sqlSessionFactory.selectAll(Arrays.asList(), executor).get(10, TimeUnit.SECONDS).isEmpty());
+  }
+
+  private static List<Integer> idsOf(List<Object> users) {
+    return users.stream().map(user -> ((User) user).getId()).collect(Collectors.toList());
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "query", args = { Statement.class, ResultHandler.class }))
+  public static class QueryBarrier implements Interceptor {
+
+    private final CyclicBarrier barrier;
+
+    QueryBarrier(CyclicBarrier barrier) {
+      this.barrier = barrier;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      barrier.await(5, TimeUnit.SECONDS);
+      return invocation.proceed();
+    }
+
+  }
+
+}
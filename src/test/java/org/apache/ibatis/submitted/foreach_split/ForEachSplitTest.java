@@ -0,0 +1,149 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.foreach_split;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ForEachSplitTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/foreach_split/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/foreach_split/CreateDB.sql");
+  }
+
+  @Test
+  void shouldConcatenateResultsOfSplitQuery() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<User> users = mapper.getUsers(Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9));
+      assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6),
+          users.stream().map(User::getId).sorted().collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void shouldCountRowsOfEachChunk() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      assertEquals(6L, sqlSession.selectCount("org.apache.ibatis.submitted.foreach_split.Mapper.getUsers",
+          Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9)));
+      // like the list, the count holds a row for each chunk the row is in
+      List<Integer> ids = Arrays.asList(1, 2, 3, 4, 1);
+      assertEquals(5, sqlSession.getMapper(Mapper.class).getUsers(ids).size());
+      assertEquals(5L, sqlSession.selectCount("org.apache.ibatis.submitted.foreach_split.Mapper.getUsers", ids));
+    }
+  }
+
+  @Test
+  void shouldNotSplitForEachWithoutSplitAttribute() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<User> users = mapper.getUsersUnsplit(Arrays.asList(9, 8, 7, 6, 5, 4, 3, 2, 1));
+      assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), users.stream().map(User::getId).collect(Collectors.toList()));
+    }
+  }
+
+  @Test
+  void shouldDeleteRowsOfEachChunk() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(5, mapper.deleteUsersIn(Arrays.asList(1, 2, 3, 4, 5, 7, 8)));
+      assertEquals(1, mapper.countUsers());
+    }
+  }
+
+  @Test
+  void shouldRejectSplitOfNegatedList() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      PersistenceException e = assertThrows(PersistenceException.class,
+          () -> mapper.deleteUsersNotIn(Arrays.asList(1, 2, 3, 4, 5)));
+      assertTrue(e.getMessage().contains("cannot be split"));
+      assertEquals(6, mapper.countUsers());
+    }
+  }
+
+  @Test
+  void shouldRejectSplitOfAggregate() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(3, mapper.countUsersIn(Arrays.asList(1, 2, 3)));
+      PersistenceException e = assertThrows(PersistenceException.class,
+          () -> mapper.countUsersIn(Arrays.asList(1, 2, 3, 4, 5)));
+      assertTrue(e.getMessage().contains("cannot be split"));
+    }
+  }
+
+  @Test
+  void shouldRejectCursorOfSplitQuery() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      PersistenceException e = assertThrows(PersistenceException.class,
+          () -> mapper.getUsersCursor(Arrays.asList(1, 2, 3, 4, 5)));
+      assertTrue(e.getMessage().contains("cannot be returned as a cursor"));
+    }
+  }
+
+  @Test
+  void shouldSumRowsOfSplitUpdate() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      int rows = mapper.insertUsers(Arrays.asList(new User(7, "User7"), new User(8, "User8"), new User(9, "User9"),
+          new User(10, "User10"), new User(11, "User11")));
+      assertEquals(5, rows);
+      assertEquals(11, mapper.countUsers());
+    }
+  }
+
+  @Test
+  void shouldBatchChunksOfSplitUpdate() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(ExecutorType.BATCH)) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      mapper.insertUsers(Arrays.asList(new User(7, "User7"), new User(8, "User8"), new User(9, "User9"),
+          new User(10, "User10"), new User(11, "User11")));
+      List<BatchResult> results = sqlSession.flushStatements();
+      // two chunks of two users share their statement, the last user has its own
+      assertEquals(2, results.size());
+      assertEquals(2, results.get(0).getUpdateCounts().length);
+      assertEquals(1, results.get(1).getUpdateCounts().length);
+      assertEquals(11, mapper.countUsers());
+    }
+  }
+
+}
@@ -0,0 +1,40 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.foreach_split;
+
+import java.util.List;
+
+import org.apache.ibatis.cursor.Cursor;
+
+public interface Mapper {
+
+  List<User> getUsers(List<Integer> ids);
+
+  Cursor<User> getUsersCursor(List<Integer> ids);
+
+  List<User> getUsersUnsplit(List<Integer> ids);
+
+  int countUsersIn(List<Integer> ids);
+
+  int insertUsers(List<User> users);
+
+  int deleteUsersIn(List<Integer> ids);
+
+  int deleteUsersNotIn(List<Integer> ids);
+
+  int countUsers();
+
+}
@@ -0,0 +1,111 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.inlist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.ParamNameResolver;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Test;
+
+class InListTest {
+
+  private SqlSessionFactory setUp(String environment) throws Exception {
+    SqlSessionFactory sqlSessionFactory;
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/inlist/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader, environment);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/inlist/CreateDB.sql");
+    return sqlSessionFactory;
+  }
+
+  @Test
+  void shouldBindListAsArrayOnHsqldb() throws Exception {
+    assertBindsListAsArray("hsqldb");
+  }
+
+  @Test
+  void shouldBindListAsArrayOnH2() throws Exception {
+    assertBindsListAsArray("h2");
+  }
+
+  @Test
+  void shouldBindEachValueWithoutArrayBinding() throws Exception {
+    SqlSessionFactory sqlSessionFactory = setUp("hsqldb");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(2, 5), idsOf(mapper.getEachUserById(Arrays.asList(5, 2, 9))));
+      assertEquals(Collections.emptyList(), idsOf(mapper.getEachUserById(Collections.emptyList())));
+    }
+    MappedStatement ms = sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.inlist.Mapper.getEachUserById");
+    assertTrue(sqlOf(ms, Arrays.asList(1, 2)).contains("id IN (?, ?)"));
+  }
+
+  @Test
+  void shouldBindEachValueWithoutStandardSqlType() throws Exception {
+    SqlSessionFactory sqlSessionFactory = setUp("hsqldb");
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(3, 6), idsOf(mapper.getUsersByEnumName(Arrays.asList(UserName.User6, UserName.User3))));
+    }
+    MappedStatement ms = sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.inlist.Mapper.getUsersByEnumName");
+    assertNotEquals(sqlOf(ms, Collections.singletonList(UserName.User3)),
+        sqlOf(ms, Arrays.asList(UserName.User3, UserName.User6)));
+  }
+
+  private void assertBindsListAsArray(String environment) throws Exception {
+    SqlSessionFactory sqlSessionFactory = setUp(environment);
+    assertEquals(environment, sqlSessionFactory.getConfiguration().getDatabaseId());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(2, 5), idsOf(mapper.getUsersById(Arrays.asList(5, 2, 9))));
+      assertEquals(Arrays.asList(1, 3, 4), idsOf(mapper.getUsersById(Arrays.asList(1, 3, 4))));
+      assertEquals(Arrays.asList(3, 6), idsOf(mapper.getUsersByName("User3", "User6")));
+      assertEquals(Collections.emptyList(), idsOf(mapper.getUsersById(Collections.emptyList())));
+    }
+    // one statement whatever the number of values
+    MappedStatement ms = sqlSessionFactory.getConfiguration()
+        .getMappedStatement("org.apache.ibatis.submitted.inlist.Mapper.getUsersById");
+    String sql = sqlOf(ms, Collections.singletonList(1));
+    assertEquals(sql, sqlOf(ms, Arrays.asList(1, 2, 3)));
+    assertEquals(sql, sqlOf(ms, Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10)));
+  }
+
+  private static String sqlOf(MappedStatement ms, List<?> values) {
+    return ms.getBoundSql(ParamNameResolver.wrapToMapIfCollection(values, null)).getSql();
+  }
+
+  private static List<Integer> idsOf(List<User> users) {
+    return users.stream().map(User::getId).collect(Collectors.toList());
+  }
+
+}
@@ -0,0 +1,46 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.pagination;
+
+import java.util.List;
+
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.Page;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.Seek;
+
+public interface Mapper {
+
+  List<User> getUsers(RowBounds rowBounds);
+
+  List<User> getUsersByName(String name, RowBounds rowBounds);
+
+  List<User> getFirstUsers(RowBounds rowBounds);
+
+  List<User> getUsersOfUnion(RowBounds rowBounds);
+
+  List<User> getUsersWithSemicolon(RowBounds rowBounds);
+
+  Cursor<User> getUserCursor(RowBounds rowBounds);
+
+  Page<User> getUserPage(Seek seek);
+
+  Page<User> getUserPageByName(@Param("name") String name, Seek seek);
+
+  Page<User> getUnkeyedUserPage(Seek seek);
+
+}
@@ -0,0 +1,219 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.pagination;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.Page;
+import org.apache.ibatis.session.PaginationDialect;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.Seek;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PaginationTest {
+
+  private SqlSessionFactory sqlSessionFactory;
+  private SqlRecorder sqlRecorder;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/pagination/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    sqlRecorder = new SqlRecorder();
+    sqlSessionFactory.getConfiguration().addInterceptor(sqlRecorder);
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/pagination/CreateDB.sql");
+  }
+
+  @Test
+  void shouldChooseDialectFromDatabaseId() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    assertEquals("hsqldb", configuration.getDatabaseId());
+    assertEquals(PaginationDialect.LIMIT_OFFSET, configuration.getPaginationDialect());
+    assertEquals(PaginationDialect.LIMIT_OFFSET, PaginationDialect.forDatabaseId("PostgreSQL"));
+    assertEquals(PaginationDialect.OFFSET_FETCH, PaginationDialect.forDatabaseId("oracle"));
+    assertNull(PaginationDialect.forDatabaseId("informix"));
+    assertNull(PaginationDialect.forDatabaseId(null));
+  }
+
+  @Test
+  void shouldLimitRowsInDatabase() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(3, 4), idsOf(mapper.getUsers(new RowBounds(2, 2))));
+      assertEquals(Arrays.asList(5, 6), idsOf(mapper.getUsers(new RowBounds(4, 10))));
+      assertEquals(Arrays.asList(6), idsOf(mapper.getUsers(new RowBounds(5, RowBounds.NO_ROW_LIMIT))));
+      assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6), idsOf(mapper.getUsers(RowBounds.DEFAULT)));
+      assertEquals("select * from users order by id LIMIT ? OFFSET ?", sqlRecorder.sqls.get(0));
+      assertEquals("select * from users order by id", sqlRecorder.sqls.get(3));
+    }
+  }
+
+  @Test
+  void shouldLimitRowsWithParameters() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(2, 3), idsOf(mapper.getUsersByName("User%", new RowBounds(1, 2))));
+      assertEquals(6L, sqlSession.selectCount("org.apache.ibatis.submitted.pagination.Mapper.getUsersByName", "User%"));
+      assertEquals(1L, sqlSession.selectCount("org.apache.ibatis.submitted.pagination.Mapper.getUsersByName", "User1"));
+      assertEquals(6L, sqlSession.selectCount("org.apache.ibatis.submitted.pagination.Mapper.getUsers"));
+      assertEquals("SELECT COUNT(*) FROM (select * from users where name like ? order by id) total_count",
+          sqlRecorder.sqls.get(1));
+    }
+  }
+
+  @Test
+  void shouldLimitRowsWithOffsetFetch() {
+    sqlSessionFactory.getConfiguration().setPaginationDialect(PaginationDialect.OFFSET_FETCH);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(2, 3, 4), idsOf(mapper.getUsers(new RowBounds(1, 3))));
+      assertEquals("select * from users order by id OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", sqlRecorder.sqls.get(0));
+    }
+  }
+
+  @Test
+  void shouldSkipRowsOfQueryNotEndingInSelectBody() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(2, 3), idsOf(mapper.getFirstUsers(new RowBounds(1, 2))));
+      assertEquals(Arrays.asList(2, 5), idsOf(mapper.getUsersOfUnion(new RowBounds(1, 2))));
+      assertEquals("select * from users order by id limit 4", sqlRecorder.sqls.get(0));
+      assertEquals("select * from users where id < 3 union select * from users where id > 4 order by id",
+          sqlRecorder.sqls.get(1));
+    }
+  }
+
+  @Test
+  void shouldLimitRowsOfQueryEndingInSemicolon() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(3, 4), idsOf(mapper.getUsersWithSemicolon(new RowBounds(2, 2))));
+      assertEquals(6L, sqlSession.selectCount("org.apache.ibatis.submitted.pagination.Mapper.getUsersWithSemicolon"));
+      assertEquals("select * from users order by id LIMIT ? OFFSET ?", sqlRecorder.sqls.get(0));
+      assertEquals("SELECT COUNT(*) FROM (select * from users order by id) total_count", sqlRecorder.sqls.get(1));
+    }
+  }
+
+  @Test
+  void shouldLimitCursorRows() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      List<Integer> ids = new ArrayList<>();
+      try (Cursor<User> cursor = mapper.getUserCursor(new RowBounds(3, 2))) {
+        cursor.forEach(user -> ids.add(user.getId()));
+      }
+      assertEquals(Arrays.asList(4, 5), ids);
+      assertTrue(sqlRecorder.sqls.get(0).endsWith("LIMIT ? OFFSET ?"));
+    }
+  }
+
+  @Test
+  void shouldSkipRowsWithoutDialect() {
+    sqlSessionFactory.getConfiguration().setDatabaseId(null);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertEquals(Arrays.asList(3, 4), idsOf(mapper.getUsers(new RowBounds(2, 2))));
+      assertEquals("select * from users order by id", sqlRecorder.sqls.get(0));
+    }
+  }
+
+  @Test
+  void shouldPageByKey() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Page<User> page = mapper.getUserPage(new Seek(4));
+      assertEquals(Arrays.asList(1, 2, 3, 4), idsOf(page.getItems()));
+      assertEquals(Arrays.asList(4), page.getNext().getKeys());
+      page = mapper.getUserPage(page.getNext());
+      assertEquals(Arrays.asList(5, 6), idsOf(page.getItems()));
+      assertFalse(page.hasNext());
+      assertEquals(Arrays.asList(3, 4, 5), idsOf(mapper.getUserPage(new Seek(3).after(2)).getItems()));
+      assertEquals("SELECT * FROM (select * from users) seek_page ORDER BY id LIMIT ? OFFSET ?", sqlRecorder.sqls.get(0));
+      assertEquals("SELECT * FROM (select * from users) seek_page WHERE (id > ?) ORDER BY id LIMIT ? OFFSET ?",
+          sqlRecorder.sqls.get(1));
+    }
+  }
+
+  @Test
+  void shouldPageByCompositeKeyInDescendingOrder() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Page<User> page = mapper.getUserPageByName("User%", new Seek(4, true));
+      assertEquals(Arrays.asList(6, 5, 4, 3), idsOf(page.getItems()));
+      assertEquals(Arrays.asList("User3", 3), page.getNext().getKeys());
+      page = mapper.getUserPageByName("User%", page.getNext());
+      assertEquals(Arrays.asList(2, 1), idsOf(page.getItems()));
+      assertFalse(page.hasNext());
+      assertEquals("SELECT * FROM (select * from users where name like ?) seek_page"
+          + " WHERE (name < ?) OR (name = ? AND id < ?) ORDER BY name DESC, id DESC LIMIT ? OFFSET ?",
+          sqlRecorder.sqls.get(1));
+    }
+  }
+
+  @Test
+  void shouldNotPageByKeyWithoutIdMapping() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      PersistenceException e = assertThrows(PersistenceException.class, () -> mapper.getUnkeyedUserPage(new Seek(2)));
+      assertTrue(e.getMessage().contains("has no id mapping"));
+    }
+  }
+
+  private static List<Integer> idsOf(List<User> users) {
+    return users.stream().map(User::getId).collect(Collectors.toList());
+  }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class, Integer.class }))
+  public static class SqlRecorder implements Interceptor {
+
+    private final List<String> sqls = new ArrayList<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      sqls.add(((StatementHandler) invocation.getTarget()).getBoundSql().getSql());
+      return invocation.proceed();
+    }
+
+  }
+
+}
@@ -0,0 +1,137 @@
+/*
+ *    Copyright 2009-2021 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.virtual_threads;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.pooled.PooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs thousands of virtual threads through sessions that share a small connection pool, a second level cache and lazy
+ * loading, and checks with Flight Recorder that MyBatis does not pin any of them to its carrier thread. Skipped when
+ * the JVM has no virtual threads.
+ */
+class VirtualThreadsTest {
+
+  private static final int TASKS = 2000;
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/virtual_threads/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/virtual_threads/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRunThousandsOfVirtualThreadsThroughSessionsWithoutPinning() throws Exception {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    assumeTrue(executor != null, "Virtual threads are not available");
+    List<RecordedEvent> pinnedEvents;
+    try (Recording recording = new Recording()) {
+      recording.enable("jdk.VirtualThreadPinned").withStackTrace();
+      recording.start();
+      runThousandsOfThreads(executor);
+      recording.stop();
+      Path dump = Files.createTempFile("virtual-threads", ".jfr");
+      try {
+        recording.dump(dump);
+        pinnedEvents = RecordingFile.readAllEvents(dump);
+      } finally {
+        Files.delete(dump);
+      }
+    }
+    // HSQLDB synchronizes its sessions, only the pinning by MyBatis itself is checked
+    assertEquals("", pinnedEvents.stream().filter(VirtualThreadsTest::isPinnedByMyBatis)
+        .map(VirtualThreadsTest::stackTraceOf).collect(Collectors.joining("\n")), "Virtual threads were pinned");
+    PooledDataSource dataSource = (PooledDataSource) sqlSessionFactory.getConfiguration().getEnvironment()
+        .getDataSource();
+    assertEquals(0, dataSource.getPoolState().getActiveConnectionCount());
+    assertTrue(dataSource.getPoolState().getIdleConnectionCount() <= 8);
+  }
+
+  private void runThousandsOfThreads(ExecutorService executor) throws Exception {
+    try {
+      List<Future<String>> futures = new ArrayList<>(TASKS);
+      for (int i = 0; i < TASKS; i++) {
+        int id = i % 4 + 1;
+        futures.add(executor.submit(() -> {
+          try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+            User user = sqlSession.getMapper(Mapper.class).getUser(id);
+            return user.getName() + "/" + user.getGroup().getName();
+          }
+        }));
+      }
+      for (int i = 0; i < TASKS; i++) {
+        int id = i % 4 + 1;
+        assertEquals("User" + id + "/Group" + (id % 2 == 0 ? 2 : 1), futures.get(i).get(60, TimeUnit.SECONDS));
+      }
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS));
+    }
+  }
+
+  private static boolean isPinnedByMyBatis(RecordedEvent event) {
+    return event.getStackTrace().getFrames().stream().map(frame -> frame.getMethod().getType().getName())
+        .filter(type -> !type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")).findFirst()
+        .filter(type -> type.startsWith("org.apache.ibatis.")).isPresent();
+  }
+
+  private static String stackTraceOf(RecordedEvent event) {
+    return "Pinned for " + event.getDuration().toMillis() + " ms:" + event.getStackTrace().getFrames().stream()
+        .map(frame -> "\n\tat " + frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":"
+            + frame.getLineNumber())
+        .collect(Collectors.joining());
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      // before Java 19, or a preview API that is not enabled
+      return null;
+    }
+  }
+
+}